@@ -9,18 +9,27 @@
  */
 package de.rub.nds.siwecos.tls;
 
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.ScannerSettings;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.warmup.WarmUp;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
 import de.rub.nds.siwecos.tls.ws.PoolManager;
-import java.io.File;
-import java.io.FileInputStream;
+import de.rub.nds.siwecos.tls.ws.PoolSizeController;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import javax.ws.rs.core.Application;
+import org.apache.logging.log4j.LogManager;
 
 @javax.ws.rs.ApplicationPath("/")
 public class ApplicationConfig extends Application {
 
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ApplicationConfig.class
+            .getName());
+
     @Override
     public Set<Class<?>> getClasses() {
         Set<Class<?>> resources = new java.util.HashSet<>();
@@ -30,47 +39,37 @@ public class ApplicationConfig extends Application {
     }
 
     static {
-        Properties p = new Properties(System.getProperties());
-        if (new File("config.txt").exists()) {
-            InputStream input = null;
-            try {
-                input = new FileInputStream("config.txt");
-                // load a properties file
-
-                p.load(input);
-
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            } finally {
-                try {
-                    input.close();
-                } catch (IOException ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-        if (p.containsKey("tlsscanner.probeThreads")) {
-            PoolManager.getInstance().setProbeThreads(Integer.parseInt(p.getProperty("tlsscanner.probeThreads")));
-        }
-        if (p.containsKey("tlsscanner.parallelProbeThreads")) {
-            PoolManager.getInstance().setParallelProbeThreads(
-                    Integer.parseInt(p.getProperty("tlsscanner.parallelProbeThreads")));
-
-        }
-        if (p.containsKey("tlsscanner.parallelScanJobs")) {
-            PoolManager.getInstance().setPoolSize(Integer.parseInt(p.getProperty("tlsscanner.parallelScanJobs")));
-        }
-        if (p.containsKey("tlsscanner.debugMode")) {
-            DebugManager.getInstance().setDebugEnabled(Boolean.parseBoolean(p.getProperty("tlsscanner.debugMode")));
+        Properties p = ConfigManager.getInstance().readProperties();
+        ScannerSettings.apply(p);
+        boolean configReload = true;
+        if (p.containsKey("tlsscanner.configReload")) {
+            configReload = Boolean.parseBoolean(p.getProperty("tlsscanner.configReload"));
         }
         System.out.println("################### WS-TLS ###################");
         System.out
                 .println("Properties are defined in a file called config.txt in the tomcat bin folder, or can be set as enviroment Variables");
-        System.out.println("tlsscanner.probeThreads=" + PoolManager.getInstance().getProbeThreads());
-        System.out.println("tlsscanner.parallelProbeThreads=" + PoolManager.getInstance().getParallelProbeThreads());
-        System.out
-                .println("tlsscanner.parallelScanJobs=" + PoolManager.getInstance().getService().getMaximumPoolSize());
-        System.out.println("tlsscanner.debugMode=" + DebugManager.getInstance().isDebugEnabled());
+        ScannerSettings.print();
+        System.out.println("tlsscanner.configReload=" + configReload);
+        PoolSizeController.getInstance().start();
+        if (configReload) {
+            try {
+                ConfigManager.getInstance().startWatching();
+            } catch (IOException E) {
+                LOGGER.warn("Could not watch " + ConfigManager.getInstance().getFile().getAbsolutePath()
+                        + ", the configuration reload is disabled", E);
+            }
+        }
+        WarmUp.getInstance().start();
+        for (CheckpointStore.PendingJob job : CheckpointStore.getInstance().getPendingJobs()) {
+            System.out.println("Resuming interrupted " + job.getType() + " scan of " + job.getRequest().getUrl());
+            ScanThreadPoolExecutor service = PoolManager.getInstance().getService(job.getType());
+            try {
+                service.submit(new TlsScannerCallback(job.getRequest(), job.getType(), new DebugOutput(service
+                        .getOwnQueue().size(), System.currentTimeMillis())));
+            } catch (RejectedExecutionException E) {
+                System.out.println("Could not resume scan of " + job.getRequest().getUrl() + ": " + E.getMessage());
+            }
+        }
 
     }
 
@@ -80,6 +79,9 @@ public class ApplicationConfig extends Application {
      * out calling this method in getClasses().
      */
     private void addRestResourceClasses(Set<Class<?>> resources) {
+        resources.add(de.rub.nds.siwecos.tls.ws.AdminWS.class);
+        resources.add(de.rub.nds.siwecos.tls.ws.MetricsWS.class);
+        resources.add(de.rub.nds.siwecos.tls.ws.ReadinessWS.class);
         resources.add(de.rub.nds.siwecos.tls.ws.ScannerWS.class);
     }
 
@@ -9,27 +9,41 @@
  */
 package de.rub.nds.siwecos.tls;
 
-public class DebugManager {
-
-    private boolean debugEnabled = false;
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
 
-    private static DebugManager instance = null;
+/**
+ * The debug mode is one of the published settings of the
+ * {@link ConfigManager}
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class DebugManager {
 
     private DebugManager() {
     }
 
-    public synchronized boolean isDebugEnabled() {
-        return debugEnabled;
+    public boolean isDebugEnabled() {
+        return ConfigManager.getInstance().getConfig().isDebugMode();
     }
 
-    public synchronized void setDebugEnabled(boolean debugEnabled) {
-        this.debugEnabled = debugEnabled;
+    public void setDebugEnabled(boolean debugEnabled) {
+        ConfigManager.getInstance().update(WsConfig.DEBUG_MODE, debugEnabled);
+    }
+
+    /**
+     * @return The new state of the debug mode
+     */
+    public boolean toggleDebugEnabled() {
+        return ConfigManager.getInstance().toggleDebugMode();
     }
 
     public static DebugManager getInstance() {
-        if (instance == null) {
-            instance = new DebugManager();
-        }
-        return instance;
+        return DebugManagerHolder.INSTANCE;
+    }
+
+    private static class DebugManagerHolder {
+
+        private static final DebugManager INSTANCE = new DebugManager();
     }
 }
@@ -9,12 +9,99 @@
  */
 package de.rub.nds.siwecos.tls;
 
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import de.rub.nds.siwecos.tls.batch.BatchConfig;
+import de.rub.nds.siwecos.tls.batch.BatchScanner;
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.ScannerSettings;
+import de.rub.nds.siwecos.tls.server.EmbeddedServer;
+import de.rub.nds.siwecos.tls.server.ServerConfig;
+import java.io.IOException;
+import org.apache.logging.log4j.LogManager;
+
 /**
+ * Runs the scanner without an application server, either as an embedded
+ * webservice (see {@link EmbeddedServer}) or as a batch scan of a domain list
+ * (see {@link BatchScanner})
  *
  * @author Robert Merget - robert.merget@rub.de
  */
 public class Main {
 
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(Main.class.getName());
+
+    private static final String SERVER = "server";
+
+    private static final String BATCH = "batch";
+
     public static void main(String args[]) {
+        ServerConfig serverConfig = new ServerConfig();
+        BatchConfig batchConfig = new BatchConfig();
+        JCommander commander = new JCommander();
+        commander.addCommand(SERVER, serverConfig);
+        commander.addCommand(BATCH, batchConfig);
+        try {
+            commander.parse(args);
+        } catch (ParameterException E) {
+            System.err.println(E.getMessage());
+            commander.usage();
+            System.exit(1);
+        }
+        String command = commander.getParsedCommand();
+        if (command == null) {
+            commander.usage();
+            System.exit(1);
+        } else if (SERVER.equals(command)) {
+            if (serverConfig.isHelp()) {
+                commander.usage(SERVER);
+                return;
+            }
+            serve(serverConfig);
+        } else if (BATCH.equals(command)) {
+            if (batchConfig.isHelp()) {
+                commander.usage(BATCH);
+                return;
+            }
+            scan(batchConfig);
+        }
+    }
+
+    private static void serve(ServerConfig config) {
+        final EmbeddedServer server = new EmbeddedServer(config);
+        try {
+            server.start();
+        } catch (RuntimeException E) {
+            LOGGER.error("Could not start the server", E);
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.stop(1);
+            }
+        }, "Server-Shutdown"));
+        try {
+            server.awaitReady();
+        } catch (InterruptedException E) {
+            LOGGER.warn("Interrupted while waiting for the warm-up", E);
+        }
+    }
+
+    private static void scan(BatchConfig config) {
+        int status = 0;
+        try {
+            // The options of the batch take precedence over config.txt
+            ScannerSettings.apply(ConfigManager.getInstance().readProperties());
+            new BatchScanner(config).run();
+        } catch (IOException | IllegalArgumentException E) {
+            LOGGER.error("Batch scan failed", E);
+            status = 1;
+        } catch (InterruptedException E) {
+            LOGGER.error("Batch scan was interrupted", E);
+            status = 1;
+        }
+        // The worker pools are not daemon threads
+        System.exit(status);
     }
 }
@@ -11,6 +11,8 @@ package de.rub.nds.siwecos.tls;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rub.nds.siwecos.tls.accounting.ScanCost;
+import de.rub.nds.siwecos.tls.accounting.TenantCostRegistry;
 import de.rub.nds.siwecos.tls.constants.ScanType;
 import de.rub.nds.siwecos.tls.json.CertificateTestInfo;
 import de.rub.nds.siwecos.tls.json.CiphersuitesTestInfo;
@@ -23,24 +25,34 @@ import de.rub.nds.siwecos.tls.json.ScanResult;
 import de.rub.nds.siwecos.tls.json.TestResult;
 import de.rub.nds.siwecos.tls.json.TranslateableMessage;
 import de.rub.nds.siwecos.tls.json.TestInfo;
+import de.rub.nds.siwecos.tls.jfr.JfrSupport;
+import de.rub.nds.siwecos.tls.metrics.MetricsRegistry;
+import de.rub.nds.siwecos.tls.pool.CostAwareTask;
+import de.rub.nds.siwecos.tls.pool.JobCostEstimator;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.TenantTask;
+import de.rub.nds.siwecos.tls.scan.ActiveScan;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.scan.ConnectionBudget;
+import de.rub.nds.siwecos.tls.scan.InstrumentedParallelExecutor;
+import de.rub.nds.siwecos.tls.scan.ScanPorts;
+import de.rub.nds.siwecos.tls.scan.ScanRegistry;
+import de.rub.nds.siwecos.tls.scan.ScannerConfigTemplate;
+import de.rub.nds.siwecos.tls.scan.ServerProbeResultCache;
+import de.rub.nds.siwecos.tls.scan.SharedProbeResults;
+import de.rub.nds.siwecos.tls.scan.TimeoutManager;
+import de.rub.nds.siwecos.tls.scan.WsScanJobExecutor;
+import de.rub.nds.siwecos.tls.scan.WsScannerConfig;
 import de.rub.nds.siwecos.tls.ws.DebugOutput;
 import de.rub.nds.siwecos.tls.ws.PoolManager;
+import de.rub.nds.siwecos.tls.ws.ProbeDebugOutput;
 import de.rub.nds.siwecos.tls.ws.ScanRequest;
 import de.rub.nds.tlsattacker.attacks.constants.EarlyCcsVulnerabilityType;
-import de.rub.nds.tlsattacker.core.config.delegate.ClientDelegate;
-import de.rub.nds.tlsattacker.core.config.delegate.GeneralDelegate;
-import de.rub.nds.tlsattacker.core.config.delegate.StarttlsDelegate;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
 import de.rub.nds.tlsattacker.core.constants.HashAlgorithm;
-import de.rub.nds.tlsattacker.core.constants.StarttlsType;
 import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
-import de.rub.nds.tlsattacker.core.workflow.ParallelExecutor;
-import de.rub.nds.tlsscanner.MultiThreadedScanJobExecutor;
-import de.rub.nds.tlsscanner.ScanJobExecutor;
 import de.rub.nds.tlsscanner.TlsScanner;
-import de.rub.nds.tlsscanner.config.ScannerConfig;
 import de.rub.nds.tlsscanner.constants.ProbeType;
-import de.rub.nds.tlsscanner.constants.ScannerDetail;
 import de.rub.nds.tlsscanner.probe.BleichenbacherProbe;
 import de.rub.nds.tlsscanner.probe.CertificateProbe;
 import de.rub.nds.tlsscanner.probe.CiphersuiteOrderProbe;
@@ -69,20 +81,20 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
-import java.security.Security;
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 /**
  *
  * @author Robert Merget <robert.merget@rub.de>
  */
-public class TlsScannerCallback implements Runnable {
+public class TlsScannerCallback implements Runnable, TenantTask, CostAwareTask {
 
     protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(TlsScannerCallback.class
             .getName());
@@ -93,13 +105,20 @@ public class TlsScannerCallback implements Runnable {
 
     private final ScanType type;
 
+    private final ScanCost cost = new ScanCost();
+
+    private volatile ActiveScan activeScan = null;
+
     public TlsScannerCallback(ScanRequest request, ScanType type, DebugOutput debugOutput) {
         this.request = request;
         this.debugOutput = debugOutput;
         this.type = type;
     }
 
-    private String callbackUrlsToId(String[] urls) {
+    /**
+     * @return The id of the tenant behind the callback urls
+     */
+    public static String callbackUrlsToId(String[] urls) {
         StringBuilder builder = new StringBuilder();
         for (String s : urls) {
             builder.append(s);
@@ -107,87 +126,176 @@ public class TlsScannerCallback implements Runnable {
         return "" + Math.abs(builder.toString().hashCode());
     }
 
+    @Override
+    public String getTenant() {
+        return callbackUrlsToId(request.getCallbackurls());
+    }
+
+    @Override
+    public long getExpectedCost() {
+        return JobCostEstimator.getInstance().estimate(type, request.getDangerLevel(), request.getUrl());
+    }
+
     @Override
     public void run() {
+        long[] snapshot = ScanCost.snapshot();
 
         Thread.currentThread().setName(Thread.currentThread().getName() + "-" + request.getUrl());
-        Security.addProvider(new BouncyCastleProvider());
         debugOutput.setLeftQueueAt(System.currentTimeMillis());
         debugOutput.setScanStartedAt(System.currentTimeMillis());
         debugOutput.setTimeInQueue(debugOutput.getLeftQueueAt() - debugOutput.getEnteredQueueAt());
+        ScanFamily family = ScanFamily.of(type);
+        MetricsRegistry.getInstance().observeQueueWait(family, debugOutput.getTimeInQueue());
+        if (debugOutput.getInitialQueueLenght() != null) {
+            MetricsRegistry.getInstance().observeQueueLength(family, debugOutput.getInitialQueueLenght());
+        }
         String id = callbackUrlsToId(request.getCallbackurls());
         LOGGER.info("Scanning: " + request.getUrl() + " - " + id + " for " + type);
         for (String s : request.getCallbackurls()) {
             LOGGER.info("\tCallbackUrls: " + s);
         }
-        if (type != ScanType.MAIL) {
-            ScanResult result = getScanResult(type, id, request);
-            answer(result);
-        } else {
-            List<ScanResult> scanResultList = new LinkedList<>();
-            try {
-                for (ScanType type : ScanType.values()) {
-                    if (type == ScanType.MAIL || type == ScanType.TLS) {
-                        continue;
-                    } else {
-                        ScanResult result = getScanResult(type, id, request);
-                        scanResultList.add(result);
+        String jobId = CheckpointStore.getInstance().begin(request, type);
+        activeScan = ScanRegistry.getInstance().register(id, request.getUrl(), type.name());
+        try {
+            if (type != ScanType.MAIL) {
+                ScanResult result = getCheckpointedScanResult(jobId, type, id, request, null);
+                answer(result);
+            } else {
+                List<ScanResult> scanResultList = new LinkedList<>();
+                SharedProbeResults sharedResults = new SharedProbeResults();
+                try {
+                    for (ScanType type : ScanType.values()) {
+                        if (type == ScanType.MAIL || type == ScanType.TLS) {
+                            continue;
+                        } else {
+                            ScanResult result = getCheckpointedScanResult(jobId, type, id, request, sharedResults);
+                            scanResultList.add(result);
+                        }
                     }
+                    answer(new CollectedScanResult(type.name(), false, null, 0, scanResultList));
+                } catch (Exception E) {
+                    MetricsRegistry.getInstance().countError("REPORT_CONSTRUCTION");
+                    answer(new CollectedScanResult(type.name(), true, new TranslateableMessage("REPORT_CONSTRUCTION",
+                            new ErrorTestInfo(E.getMessage())), 0, scanResultList));
                 }
-                answer(new CollectedScanResult(type.name(), false, null, 0, scanResultList));
-            } catch (Exception E) {
-                answer(new CollectedScanResult(type.name(), true, new TranslateableMessage("REPORT_CONSTRUCTION",
-                        new ErrorTestInfo(E.getMessage())), 0, scanResultList));
             }
+        } finally {
+            // no cancellation interrupts this worker after unregistering
+            ScanRegistry.getInstance().unregister(activeScan);
+            if (activeScan.isCancelled()) {
+                Thread.interrupted();
+            }
+        }
+        CheckpointStore.getInstance().finish(jobId);
+        long wallTime = System.currentTimeMillis() - debugOutput.getScanStartedAt();
+        if (!activeScan.isCancelled()) {
+            JobCostEstimator.getInstance().record(type, request.getDangerLevel(), request.getUrl(), wallTime);
         }
+        MetricsRegistry.getInstance().addWorkerBusyTime(type, wallTime);
+        cost.addSince(snapshot);
+        TenantCostRegistry.getInstance().add(id, cost, wallTime);
+        LOGGER.info("Scan of " + request.getUrl() + " for " + type + " took " + wallTime + "ms, "
+                + cost.getCpuTime() / 1000000 + "ms CPU and allocated " + cost.getAllocatedBytes() + " bytes");
+    }
 
+    public ScanCost getCost() {
+        return cost;
     }
 
-    public ScanResult getScanResult(ScanType type, String id, ScanRequest request) {
-        try {
-            ScannerConfig scannerConfig = new ScannerConfig(new GeneralDelegate());
-            scannerConfig.setDangerLevel(request.getDangerLevel());
-            scannerConfig.setScanDetail(ScannerDetail.QUICK);
-            scannerConfig.setNoProgressbar(true);
-            int port = 443;
-            StarttlsDelegate starttlsDelegate = (StarttlsDelegate) scannerConfig.getDelegate(StarttlsDelegate.class);
-
-            switch (type) {
-                case TLS:
-                    port = 443;
-                    break;
-                case IMAP_TLS:
-                    starttlsDelegate.setStarttlsType(StarttlsType.IMAP);
-                    port = 143;
-                    break;
-                case IMAPS_TLS:
-                    port = 993;
-                    break;
-                case POP3_TLS:
-                    starttlsDelegate.setStarttlsType(StarttlsType.POP3);
-                    port = 110;
-                    break;
-                case POP3S_TLS:
-                    port = 995;
-                    break;
-                case SMTP_TLS:
-                    starttlsDelegate.setStarttlsType(StarttlsType.SMTP);
-                    port = 25;
-                    break;
-                case SMTP_MSA_TLS:
-                    starttlsDelegate.setStarttlsType(StarttlsType.SMTP);
-                    port = 587;
-                    break;
-                case SMTPS_TLS:
-                    port = 465;
-                    break;
+    private ScanResult getCheckpointedScanResult(String jobId, ScanType type, String id, ScanRequest request,
+            SharedProbeResults sharedResults) {
+        ScanResult result = CheckpointStore.getInstance().load(jobId, type);
+        if (result == null) {
+            if (isCancelled()) {
+                return getCancelledResult(type);
+            }
+            long start = System.currentTimeMillis();
+            Object event = JfrSupport.getInstance().beginScan();
+            result = getScanResult(type, id, request, sharedResults);
+            JfrSupport.getInstance().commitScan(event, request.getUrl(), type.name(), getScanId(id),
+                    result.isHasError());
+            MetricsRegistry.getInstance().observeScanDuration(type, System.currentTimeMillis() - start);
+            if (isCancelled()) {
+                // clear the interrupt of the cancellation before calling back
+                Thread.interrupted();
+                result = getCancelledResult(type);
+                countErrors(result);
+                return result;
+            }
+            countErrors(result);
+            CheckpointStore.getInstance().save(jobId, type, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return The id of the running scan, which correlates the events of one
+     *         scan, or the fallback if the scan is not registered
+     */
+    private String getScanId(String fallback) {
+        ActiveScan scan = activeScan;
+        return scan == null ? fallback : Long.toString(scan.getId());
+    }
+
+    private boolean isCancelled() {
+        return activeScan != null && activeScan.isCancelled();
+    }
+
+    private ScanResult getCancelledResult(ScanType type) {
+        return new ScanResult(type.name(), true, new TranslateableMessage("SCAN_CANCELLED", new ErrorTestInfo(
+                "The scan made no progress and was cancelled")), 0, new LinkedList<TestResult>());
+    }
+
+    private void countErrors(ScanResult result) {
+        MetricsRegistry.getInstance().countScanResult(result.isHasError());
+        if (result.isHasError()) {
+            MetricsRegistry.getInstance().countError(
+                    result.getErrorMessage() == null ? null : result.getErrorMessage().getTranslationStringId());
+        }
+        if (result.getTests() != null) {
+            for (TestResult test : result.getTests()) {
+                if (test.isHasError()) {
+                    MetricsRegistry.getInstance().countError(
+                            test.getErrorMessage() == null ? null : test.getErrorMessage().getTranslationStringId());
+                }
             }
+        }
+    }
+
+    public ScanResult getScanResult(ScanType type, String id, ScanRequest request) {
+        return getScanResult(type, id, request, null);
+    }
+
+    /**
+     * Scans the host for the given type. Server wide probe results are taken
+     * from and added to the shared results, if they are provided.
+     */
+    public ScanResult getScanResult(ScanType type, String id, ScanRequest request, SharedProbeResults sharedResults) {
+        return getScanResult(type, id, request, sharedResults, ScanPorts.getInstance().getPort(type));
+    }
 
-            ClientDelegate delegate = (ClientDelegate) scannerConfig.getDelegate(ClientDelegate.class);
-            delegate.setHost(request.getUrl() + ":" + port);
-            LOGGER.info("Scanning: " + delegate.getHost() + " for " + type);
-            ParallelExecutor executor = new ParallelExecutor(PoolManager.getInstance().getParallelProbeThreads(), 3,
+    /**
+     * Scans the host on the given port instead of the configured port of the
+     * type, e.g. a local server during the warm-up
+     */
+    public ScanResult getScanResult(ScanType type, String id, ScanRequest request, SharedProbeResults sharedResults,
+            int port) {
+        InstrumentedParallelExecutor executor = null;
+        WsScanJobExecutor scanJobExecutor = null;
+        boolean completed = false;
+        try {
+            ScannerConfigTemplate template = ScannerConfigTemplate.of(type);
+            WsScannerConfig scannerConfig = template.create(request.getUrl(), port, request.getDangerLevel());
+            scannerConfig.setConnectionTimeout(TimeoutManager.getInstance().getTimeout(request.getUrl(), port,
+                    template.isStarttls()));
+            LOGGER.info("Scanning: " + request.getUrl() + ":" + port + " for " + type);
+            executor = new InstrumentedParallelExecutor(PoolManager.getInstance().getParallelProbeThreads(), 3,
                     new NamedThreadFactory("" + id));
+            executor.setCost(cost);
+            executor.setActiveScan(activeScan);
+            if (activeScan != null) {
+                activeScan.setScanType(type.name());
+            }
             List<TlsProbe> phaseOneList = new LinkedList<>();
             List<TlsProbe> phaseTwoList = new LinkedList<>();
             List<AfterProbe> afterList = new LinkedList<>();
@@ -219,19 +327,32 @@ public class TlsScannerCallback implements Runnable {
             afterList.add(new Sweet32AfterProbe());
             afterList.add(new FreakAfterProbe());
             afterList.add(new LogjamAfterprobe());
-            ScanJobExecutor scanJobExecutor = new MultiThreadedScanJobExecutor(PoolManager.getInstance()
-                    .getProbeThreads(), id);
+            scanJobExecutor = new WsScanJobExecutor(PoolManager.getInstance().getProbeThreads(), id);
+            scanJobExecutor.setScanType(type.name());
+            scanJobExecutor.setScanId(getScanId(id));
+            scanJobExecutor.setCost(cost);
+            scanJobExecutor.setActiveScan(activeScan);
+            scanJobExecutor.setSharedResults(sharedResults);
+            scanJobExecutor.setServerCache(ServerProbeResultCache.getInstance());
             TlsScanner scanner = new TlsScanner(scannerConfig, scanJobExecutor, executor, phaseOneList, phaseTwoList,
                     afterList);
             SiteReport report = scanner.scan();
-            executor.shutdown();
-            scanJobExecutor.shutdown();
-            ScanResult result = reportToScanResult(report, type);
+            completed = true;
+            Object event = JfrSupport.getInstance().beginReportConversion();
+            ScanResult result = reportToScanResult(report, type, scanJobExecutor.getFailedProbes());
+            JfrSupport.getInstance().commitReportConversion(event, request.getUrl(), type.name(), getScanId(id),
+                    result.getTests() == null ? 0 : result.getTests().size());
             LOGGER.info("Finished scanning: " + request.getUrl() + " for " + type);
             debugOutput.setScanFinisedAt(System.currentTimeMillis());
-            debugOutput.setFinalQueueSize(PoolManager.getInstance().getService().getQueue().size());
+            debugOutput.setFinalQueueSize(PoolManager.getInstance().getService(this.type).getOwnQueue().size());
             if (DebugManager.getInstance().isDebugEnabled()) {
-                result.setDebugOutput(debugOutput);
+                // the ports of a MAIL scan share the job, but not the probes
+                DebugOutput portOutput = new DebugOutput(debugOutput);
+                for (ProbeDebugOutput probeOutput : scanJobExecutor.getProbeOutputs()) {
+                    probeOutput.setScanType(type.name());
+                }
+                portOutput.addProbes(scanJobExecutor.getProbeOutputs());
+                result.setDebugOutput(portOutput);
             }
 
             return result;
@@ -241,10 +362,32 @@ public class TlsScannerCallback implements Runnable {
             return new ScanResult(type.name(), true, new TranslateableMessage("REPORT_CONSTRUCTION", new ErrorTestInfo(
                     T.getMessage())), 0, new LinkedList<TestResult>());
         } finally {
+            release(executor, scanJobExecutor, completed);
             Thread.currentThread().setName(Thread.currentThread().getName().replace("-" + request.getUrl(), ""));
         }
     }
 
+    /**
+     * Shuts the executors of a scan down on every exit path. If the scan did
+     * not complete, the probes which are still running are interrupted.
+     */
+    private static void release(InstrumentedParallelExecutor executor, WsScanJobExecutor scanJobExecutor,
+            boolean completed) {
+        try {
+            if (scanJobExecutor != null) {
+                if (completed) {
+                    scanJobExecutor.shutdown();
+                } else {
+                    scanJobExecutor.cancel();
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
     public String scanResultToJson(ScanResult result) {
         ObjectMapper ow = new ObjectMapper();
         String json = "";
@@ -271,6 +414,9 @@ public class TlsScannerCallback implements Runnable {
         String json = scanResultToJson(result);
         for (String callback : request.getCallbackurls()) {
             LOGGER.info("Calling back: " + callback + " for " + result.getName());
+            long start = System.currentTimeMillis();
+            boolean success = false;
+            Object event = JfrSupport.getInstance().beginCallback();
             try {
                 URL url = new URL(callback);
                 URLConnection con = url.openConnection();
@@ -286,10 +432,15 @@ public class TlsScannerCallback implements Runnable {
                     os.write(json.getBytes("UTF-8"));
                     os.flush();
                 }
+                success = http.getResponseCode() < 400;
                 LOGGER.debug(json);
                 http.disconnect();
             } catch (Exception ex) {
                 LOGGER.warn("Failed to callback:" + callback, ex);
+            } finally {
+                MetricsRegistry.getInstance().observeCallback(System.currentTimeMillis() - start, success);
+                JfrSupport.getInstance().commitCallback(event, request.getUrl(), result.getName(),
+                        getScanId(callbackUrlsToId(request.getCallbackurls())), callback, json.length(), success);
             }
         }
     }
@@ -298,6 +449,9 @@ public class TlsScannerCallback implements Runnable {
         String json = scanResultToJson(result);
         for (String callback : request.getCallbackurls()) {
             LOGGER.info("Calling back: " + callback + " for " + result.getName());
+            long start = System.currentTimeMillis();
+            boolean success = false;
+            Object event = JfrSupport.getInstance().beginCallback();
             try {
                 URL url = new URL(callback);
                 URLConnection con = url.openConnection();
@@ -312,15 +466,28 @@ public class TlsScannerCallback implements Runnable {
                     os.write(json.getBytes("UTF-8"));
                     os.flush();
                 }
+                success = http.getResponseCode() < 400;
                 LOGGER.debug(json);
                 http.disconnect();
             } catch (IOException ex) {
                 LOGGER.warn("Failed to callback:" + callback, ex);
+            } finally {
+                MetricsRegistry.getInstance().observeCallback(System.currentTimeMillis() - start, success);
+                JfrSupport.getInstance().commitCallback(event, request.getUrl(), result.getName(),
+                        getScanId(callbackUrlsToId(request.getCallbackurls())), callback, json.length(), success);
             }
         }
     }
 
     public ScanResult reportToScanResult(SiteReport report, ScanType type) {
+        return reportToScanResult(report, type, new HashMap<ProbeType, Throwable>());
+    }
+
+    /**
+     * Converts the report into a ScanResult. Tests which depend on a probe
+     * which failed during the scan are reported as errored.
+     */
+    public ScanResult reportToScanResult(SiteReport report, ScanType type, Map<ProbeType, Throwable> failedProbes) {
         if (!Objects.equals(report.getServerIsAlive(), Boolean.TRUE)) {
             if (type == ScanType.TLS) {
                 return new ScanResult(type.name(), true, getPortResponse(report), 0, new LinkedList<TestResult>());
@@ -335,14 +502,21 @@ public class TlsScannerCallback implements Runnable {
             return new ScanResult(type.name(), true, getTlsSupported(report), 0, new LinkedList<TestResult>());
         }
         List<TestResult> resultList = new LinkedList<>();
-        if (report.getProbeTypeList().contains(ProbeType.CERTIFICATE)) {
+        if (failedProbes.containsKey(ProbeType.CERTIFICATE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.CERTIFICATE), "CERTIFICATE_EXPIRED",
+                    "CERTIFICATE_NOT_VALID_YET", "CERTIFICATE_NOT_SENT_BY_SERVER", "CERTIFICATE_WEAK_HASH_FUNCTION");
+        } else if (report.getProbeTypeList().contains(ProbeType.CERTIFICATE)) {
             resultList.add(getCertificateExpired(report));
             resultList.add(getCertificateNotValidYet(report));
             resultList.add(getCertificateNotSentByServer(report));
             resultList.add(getCertificateWeakHashFunction(report));
             // resultList.add(getCertificateWeakSignAlgorithm(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.CIPHERSUITE)) {
+        if (failedProbes.containsKey(ProbeType.CIPHERSUITE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.CIPHERSUITE), "CIPHERSUITE_ANON",
+                    "CIPHERSUITE_EXPORT", "CIPHERSUITE_NULL", "CIPHERSUITE_RC4", "CIPHERSUITE_DES",
+                    "SWEET32_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.CIPHERSUITE)) {
             resultList.add(getSupportsAnon(report));
             resultList.add(getSupportsExport(report));
             resultList.add(getSupportsNull(report));
@@ -350,37 +524,59 @@ public class TlsScannerCallback implements Runnable {
             resultList.add(getSupportsDes(report));
             resultList.add(getSweet32Vulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.CIPHERSUITE_ORDER)) {
+        if (failedProbes.containsKey(ProbeType.CIPHERSUITE_ORDER)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.CIPHERSUITE_ORDER), "CIPHERSUITEORDER_ENFORCED");
+        } else if (report.getProbeTypeList().contains(ProbeType.CIPHERSUITE_ORDER)) {
             resultList.add(getCipherSuiteOrder(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.PROTOCOL_VERSION)) {
+        if (failedProbes.containsKey(ProbeType.PROTOCOL_VERSION)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.PROTOCOL_VERSION), "PROTOCOLVERSION_SSL2",
+                    "PROTOCOLVERSION_SSL3", "PROTOCOLVERSION_TLS13");
+        } else if (report.getProbeTypeList().contains(ProbeType.PROTOCOL_VERSION)) {
             resultList.add(getSupportsSsl2(report));
             resultList.add(getSupportsSsl3(report));
             resultList.add(getSupportsTls13(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.BLEICHENBACHER)) {
+        if (failedProbes.containsKey(ProbeType.BLEICHENBACHER)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.BLEICHENBACHER), "BLEICHENBACHER_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.BLEICHENBACHER)) {
             resultList.add(getBleichenbacherVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.COMPRESSIONS)) {
+        if (failedProbes.containsKey(ProbeType.COMPRESSIONS)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.COMPRESSIONS), "CRIME_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.COMPRESSIONS)) {
             resultList.add(getCrimeVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.HEARTBLEED)) {
+        if (failedProbes.containsKey(ProbeType.HEARTBLEED)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.HEARTBLEED), "HEARTBLEED_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.HEARTBLEED)) {
             resultList.add(getHeartbleedVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.EARLY_CCS)) {
+        if (failedProbes.containsKey(ProbeType.EARLY_CCS)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.EARLY_CCS), "EARLYCCS_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.EARLY_CCS)) {
             resultList.add(getEarlyCcsVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.INVALID_CURVE)) {
+        if (failedProbes.containsKey(ProbeType.INVALID_CURVE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.INVALID_CURVE),
+                    "INVALID_CURVE_EPHEMERAL_VULNERABLE", "INVALID_CURVE_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.INVALID_CURVE)) {
             resultList.add(getInvalidCurveEphemeralVulnerable(report));
             resultList.add(getInvalidCurveVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.PADDING_ORACLE)) {
+        if (failedProbes.containsKey(ProbeType.PADDING_ORACLE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.PADDING_ORACLE), "PADDING_ORACLE_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.PADDING_ORACLE)) {
             resultList.add(getPaddingOracleVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.POODLE)) {
+        if (failedProbes.containsKey(ProbeType.POODLE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.POODLE), "POODLE_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.POODLE)) {
             resultList.add(getPoodleVulnerable(report));
         }
-        if (report.getProbeTypeList().contains(ProbeType.TLS_POODLE)) {
+        if (failedProbes.containsKey(ProbeType.TLS_POODLE)) {
+            addProbeFailed(resultList, failedProbes.get(ProbeType.TLS_POODLE), "TLS_POODLE_VULNERABLE");
+        } else if (report.getProbeTypeList().contains(ProbeType.TLS_POODLE)) {
             resultList.add(getTlsPoodleVulnerable(report));
         }
         // if (report.getProbeTypeList().contains(ProbeType.CVE20162107)) {
@@ -430,6 +626,15 @@ public class TlsScannerCallback implements Runnable {
         return result;
     }
 
+    private void addProbeFailed(List<TestResult> resultList, Throwable reason, String... testNames) {
+        // Failures of the scanning node are no statement about the target
+        String messageId = ConnectionBudget.isLocalExhaustion(reason) ? "LOCAL_RESOURCES_EXHAUSTED" : "PROBE_FAILED";
+        for (String testName : testNames) {
+            resultList.add(new TestResult(testName, true, new TranslateableMessage(messageId, new ErrorTestInfo(
+                    reason == null ? null : reason.getMessage())), 0, "hidden", null));
+        }
+    }
+
     private TranslateableMessage getPortResponse(SiteReport report) {
         return new TranslateableMessage("PORT_NO_RESPONSE", new HostTestInfo(report.getHost()));
 
@@ -0,0 +1,95 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.accounting;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * CPU time and allocated bytes of a scan job, summed over all threads which
+ * worked for the job. Every thread takes a {@link #snapshot()} before it
+ * starts working for the job and adds the difference afterwards with
+ * {@link #addSince(long[])}.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScanCost {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ScanCost.class.getName());
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME_SUPPORTED;
+
+    private static final boolean ALLOCATION_SUPPORTED;
+
+    static {
+        boolean cpuTime = false;
+        boolean allocation = false;
+        try {
+            if (THREAD_BEAN.isCurrentThreadCpuTimeSupported()) {
+                if (!THREAD_BEAN.isThreadCpuTimeEnabled()) {
+                    THREAD_BEAN.setThreadCpuTimeEnabled(true);
+                }
+                cpuTime = true;
+            }
+            if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    if (!bean.isThreadAllocatedMemoryEnabled()) {
+                        bean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    allocation = true;
+                }
+            }
+        } catch (UnsupportedOperationException | SecurityException E) {
+            LOGGER.warn("Could not enable thread cost measurement", E);
+        }
+        CPU_TIME_SUPPORTED = cpuTime;
+        ALLOCATION_SUPPORTED = allocation;
+    }
+
+    private final AtomicLong cpuTime = new AtomicLong(0);
+
+    private final AtomicLong allocatedBytes = new AtomicLong(0);
+
+    /**
+     * @return The CPU time in nanoseconds and the allocated bytes of the
+     *         current thread so far
+     */
+    public static long[] snapshot() {
+        long cpu = CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+        long allocated = ALLOCATION_SUPPORTED ? ((com.sun.management.ThreadMXBean) THREAD_BEAN)
+                .getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+        return new long[] { cpu, allocated };
+    }
+
+    /**
+     * Adds the cost of the current thread since the snapshot was taken
+     */
+    public void addSince(long[] snapshot) {
+        long[] now = snapshot();
+        cpuTime.addAndGet(Math.max(0, now[0] - snapshot[0]));
+        allocatedBytes.addAndGet(Math.max(0, now[1] - snapshot[1]));
+    }
+
+    /**
+     * @return The CPU time in nanoseconds
+     */
+    public long getCpuTime() {
+        return cpuTime.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.accounting;
+
+/**
+ * Accumulated cost of the scan jobs of a tenant
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TenantCost {
+
+    private String tenant;
+
+    private long jobs;
+
+    private long cpuTimeMillis;
+
+    private long allocatedBytes;
+
+    private long wallTimeMillis;
+
+    private long lastJobAt;
+
+    public TenantCost(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public TenantCost() {
+    }
+
+    synchronized void add(ScanCost cost, long wallTime, long finishedAt) {
+        jobs++;
+        cpuTimeMillis += cost.getCpuTime() / 1000000;
+        allocatedBytes += cost.getAllocatedBytes();
+        wallTimeMillis += wallTime;
+        lastJobAt = finishedAt;
+    }
+
+    synchronized TenantCost copy() {
+        TenantCost copy = new TenantCost(tenant);
+        copy.jobs = jobs;
+        copy.cpuTimeMillis = cpuTimeMillis;
+        copy.allocatedBytes = allocatedBytes;
+        copy.wallTimeMillis = wallTimeMillis;
+        copy.lastJobAt = lastJobAt;
+        return copy;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public long getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(long jobs) {
+        this.jobs = jobs;
+    }
+
+    public long getCpuTimeMillis() {
+        return cpuTimeMillis;
+    }
+
+    public void setCpuTimeMillis(long cpuTimeMillis) {
+        this.cpuTimeMillis = cpuTimeMillis;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public long getWallTimeMillis() {
+        return wallTimeMillis;
+    }
+
+    public void setWallTimeMillis(long wallTimeMillis) {
+        this.wallTimeMillis = wallTimeMillis;
+    }
+
+    public long getLastJobAt() {
+        return lastJobAt;
+    }
+
+    public void setLastJobAt(long lastJobAt) {
+        this.lastJobAt = lastJobAt;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.accounting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolls the cost of finished scan jobs up into per tenant totals. The tenant
+ * is the customer behind the callback urls of a request. Callback urls may
+ * contain per scan tokens, so the number of tenants is bounded and the least
+ * recently used tenant is dropped first.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TenantCostRegistry {
+
+    private volatile int maxTenants = 10000;
+
+    private final Map<String, TenantCost> costs;
+
+    TenantCostRegistry() {
+        costs = Collections.synchronizedMap(new LinkedHashMap<String, TenantCost>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TenantCost> eldest) {
+                return size() > maxTenants;
+            }
+        });
+    }
+
+    public static TenantCostRegistry getInstance() {
+        return TenantCostRegistryHolder.INSTANCE;
+    }
+
+    private static class TenantCostRegistryHolder {
+
+        private static final TenantCostRegistry INSTANCE = new TenantCostRegistry();
+    }
+
+    public void add(String tenant, ScanCost cost, long wallTime) {
+        TenantCost tenantCost;
+        synchronized (costs) {
+            tenantCost = costs.get(tenant);
+            if (tenantCost == null) {
+                tenantCost = new TenantCost(tenant);
+                costs.put(tenant, tenantCost);
+            }
+        }
+        tenantCost.add(cost, wallTime, System.currentTimeMillis());
+    }
+
+    public TenantCost get(String tenant) {
+        TenantCost tenantCost = costs.get(tenant);
+        return tenantCost == null ? null : tenantCost.copy();
+    }
+
+    /**
+     * @return A snapshot of the totals of all tenants, the most expensive
+     *         tenant by CPU time first
+     */
+    public List<TenantCost> getAll() {
+        List<TenantCost> tenantCosts;
+        synchronized (costs) {
+            tenantCosts = new ArrayList<>(costs.values());
+        }
+        List<TenantCost> list = new ArrayList<>();
+        for (TenantCost tenantCost : tenantCosts) {
+            list.add(tenantCost.copy());
+        }
+        Collections.sort(list, new Comparator<TenantCost>() {
+            @Override
+            public int compare(TenantCost o1, TenantCost o2) {
+                return Long.compare(o2.getCpuTimeMillis(), o1.getCpuTimeMillis());
+            }
+        });
+        return list;
+    }
+
+    public void clear() {
+        costs.clear();
+    }
+
+    public int size() {
+        return costs.size();
+    }
+
+    public int getMaxTenants() {
+        return maxTenants;
+    }
+
+    public void setMaxTenants(int maxTenants) {
+        this.maxTenants = maxTenants;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import java.io.File;
+
+/**
+ * Command line options of the batch mode
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+@Parameters(commandDescription = "Scans a list of domains and writes the results to a file")
+public class BatchConfig {
+
+    @Parameter(names = "-input", description = "File with one domain per line, - reads the domains from stdin")
+    private String input = "-";
+
+    @Parameter(names = "-output", required = true, description = "File the results are appended to as NDJSON")
+    private String output;
+
+    @Parameter(names = "-checkpoint", description = "File the progress is stored in, defaults to the output file "
+            + "with the suffix .checkpoint")
+    private String checkpoint;
+
+    @Parameter(names = "-type", description = "The scan type, e.g. TLS, SMTP_TLS or MAIL")
+    private String type = "TLS";
+
+    @Parameter(names = "-dangerLevel", description = "The danger level of the scans")
+    private int dangerLevel = 0;
+
+    @Parameter(names = "-workers", description = "Number of domains which are scanned in parallel")
+    private int workers = 10;
+
+    @Parameter(names = "-maxInFlight", description = "Number of domains which are queued or scanned at a time, "
+            + "defaults to twice the number of workers")
+    private int maxInFlight = 0;
+
+    @Parameter(names = "-checkpointInterval", description = "Number of finished domains after which the progress "
+            + "is stored")
+    private int checkpointInterval = 100;
+
+    @Parameter(names = "-help", help = true, description = "Prints the usage")
+    private boolean help = false;
+
+    public BatchConfig() {
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public void setInput(String input) {
+        this.input = input;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public void setOutput(String output) {
+        this.output = output;
+    }
+
+    /**
+     * @return The checkpoint file, next to the output file if none was set
+     */
+    public File getCheckpointFile() {
+        if (checkpoint == null) {
+            return new File(output + ".checkpoint");
+        }
+        return new File(checkpoint);
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getDangerLevel() {
+        return dangerLevel;
+    }
+
+    public void setDangerLevel(int dangerLevel) {
+        this.dangerLevel = dangerLevel;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxInFlight() {
+        if (maxInFlight <= 0) {
+            return 2 * workers;
+        }
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public void setHelp(boolean help) {
+        this.help = help;
+    }
+}
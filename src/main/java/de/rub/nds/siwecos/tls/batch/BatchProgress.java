@@ -0,0 +1,125 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Tracks which lines of the domain list are finished. The scans finish out of
+ * order, so the progress consists of the number of lines which are finished
+ * without a gap and the finished lines after the first gap. Only the lines
+ * after the gap are kept in memory, their number is bounded by the lines read
+ * while the oldest unfinished scan is running.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class BatchProgress {
+
+    private final File file;
+
+    private long completedLines = 0;
+
+    private final TreeSet<Long> completedAbove = new TreeSet<>();
+
+    public BatchProgress(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Restores the progress of an interrupted run
+     *
+     * @return True if there was a stored progress
+     */
+    public synchronized boolean load() throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            p.load(in);
+        }
+        completedLines = Long.parseLong(p.getProperty("completedLines", "0"));
+        completedAbove.clear();
+        for (String line : p.getProperty("completedAbove", "").split(",")) {
+            if (!line.trim().isEmpty()) {
+                completedAbove.add(Long.parseLong(line.trim()));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores the progress atomically, a crash never leaves a partial file
+     */
+    public synchronized void save() throws IOException {
+        Properties p = new Properties();
+        p.setProperty("completedLines", Long.toString(completedLines));
+        StringBuilder builder = new StringBuilder();
+        for (Long line : completedAbove) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(line);
+        }
+        p.setProperty("completedAbove", builder.toString());
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            p.store(out, "Progress of the batch scan");
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param line
+     *            The number of the line, starting at 1
+     */
+    public synchronized void complete(long line) {
+        if (line <= completedLines) {
+            return;
+        }
+        completedAbove.add(line);
+        while (!completedAbove.isEmpty() && completedAbove.first() == completedLines + 1) {
+            completedAbove.pollFirst();
+            completedLines++;
+        }
+    }
+
+    public synchronized boolean isCompleted(long line) {
+        return line <= completedLines || completedAbove.contains(line);
+    }
+
+    /**
+     * @return The number of lines which are finished without a gap
+     */
+    public synchronized long getCompletedLines() {
+        return completedLines;
+    }
+
+    /**
+     * @return The number of finished lines after the first unfinished line
+     */
+    public synchronized int getCompletedAboveCount() {
+        return completedAbove.size();
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
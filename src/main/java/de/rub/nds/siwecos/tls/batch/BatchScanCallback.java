@@ -0,0 +1,81 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.CollectedScanResult;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+
+/**
+ * Scan of one line of the domain list. The scan runs through the same
+ * pipeline as a scan of the webservice, the results are written to the output
+ * of the batch instead of being posted to callback urls.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+class BatchScanCallback extends TlsScannerCallback {
+
+    private final BatchScanner scanner;
+
+    private final long line;
+
+    private final ScanRequest request;
+
+    private final ScanType type;
+
+    private volatile boolean written = false;
+
+    BatchScanCallback(BatchScanner scanner, long line, ScanRequest request, ScanType type, DebugOutput debugOutput) {
+        super(request, type, debugOutput);
+        this.scanner = scanner;
+        this.line = line;
+        this.request = request;
+        this.type = type;
+    }
+
+    @Override
+    public void run() {
+        try {
+            super.run();
+        } catch (RuntimeException | Error E) {
+            LOGGER.warn("Batch scan of " + request.getUrl() + " failed", E);
+            // Every line gets an output line, a line without one would stay
+            // a gap in the progress for the rest of the batch
+            if (!written) {
+                scanner.writeError(line, request.getUrl(), type, E.toString());
+                written = true;
+            }
+            if (E instanceof Error) {
+                throw E;
+            }
+        } finally {
+            scanner.finished(line, written);
+        }
+    }
+
+    @Override
+    public void answer(ScanResult result) {
+        scanner.write(line, request.getUrl(), type, scanResultToJson(result));
+        written = true;
+    }
+
+    @Override
+    public void answer(CollectedScanResult result) {
+        scanner.write(line, request.getUrl(), type, scanResultToJson(result));
+        written = true;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.PoolManager;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Scans a list of domains with one domain per line and writes one JSON object
+ * per line to the output file. The list is streamed, only a bounded number of
+ * domains is queued or scanned at a time, so lists of millions of domains do
+ * not need more memory than short ones.
+ * <p>
+ * The progress is stored in a checkpoint file after every few finished
+ * domains. A run which is started again with the same list and output skips
+ * the finished lines and appends to the output. The output is flushed before
+ * the progress is stored, so a domain is never lost, but the results of the
+ * domains which finished after the last checkpoint are written again. Every
+ * output line carries the number of its input line to remove such duplicates.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class BatchScanner {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(BatchScanner.class
+            .getName());
+
+    private static final int LOG_INTERVAL = 1000;
+
+    private final BatchConfig config;
+
+    private final BatchProgress progress;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Semaphore inFlight;
+
+    private Writer output;
+
+    private long finished = 0;
+
+    private long startedAt;
+
+    private volatile IOException outputFailure = null;
+
+    public BatchScanner(BatchConfig config) {
+        this.config = config;
+        this.progress = new BatchProgress(config.getCheckpointFile());
+    }
+
+    /**
+     * Scans all domains of the input and returns once all results are written
+     */
+    public void run() throws IOException, InterruptedException {
+        ScanType type = ScanType.valueOf(config.getType().toUpperCase());
+        // The batch keeps its own progress, checkpoints per job would only
+        // cost a few file operations per domain
+        CheckpointStore.getInstance().setEnabled(false);
+        boolean resumed = progress.load();
+        if (resumed) {
+            LOGGER.info("Resuming batch scan after line " + progress.getCompletedLines() + " ("
+                    + progress.getCompletedAboveCount() + " later lines are finished as well)");
+        }
+        if (resumed) {
+            truncatePartialLine(new File(config.getOutput()));
+        }
+        PoolManager.getInstance().setPoolSize(ScanFamily.of(type), config.getWorkers());
+        ScanThreadPoolExecutor service = PoolManager.getInstance().getService(type);
+        int maxInFlight = config.getMaxInFlight();
+        inFlight = new Semaphore(maxInFlight);
+        startedAt = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openInput(), StandardCharsets.UTF_8));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(config.getOutput(),
+                        resumed), StandardCharsets.UTF_8))) {
+            output = writer;
+            String line;
+            long number = 0;
+            while ((line = reader.readLine()) != null && outputFailure == null) {
+                number++;
+                String url = line.trim();
+                if (progress.isCompleted(number)) {
+                    continue;
+                }
+                if (url.isEmpty() || url.startsWith("#")) {
+                    progress.complete(number);
+                    continue;
+                }
+                inFlight.acquire();
+                ScanRequest request = new ScanRequest(url, config.getDangerLevel(), new String[0]);
+                try {
+                    service.submit(new BatchScanCallback(this, number, request, type, new DebugOutput(service
+                            .getOwnQueue().size(), System.currentTimeMillis())));
+                } catch (RejectedExecutionException E) {
+                    writeError(number, url, type, "Rejected: " + E.getMessage());
+                    finished(number, true);
+                }
+            }
+            // Wait for the scans in flight
+            inFlight.acquire(maxInFlight);
+            checkpoint();
+        }
+        if (outputFailure != null) {
+            throw outputFailure;
+        }
+        LOGGER.info("Batch scan finished, scanned " + finished + " domains in "
+                + (System.currentTimeMillis() - startedAt) / 1000 + "s");
+    }
+
+    /**
+     * Removes the incomplete last line an interrupted run may have left, the
+     * output of the resumed run would otherwise be appended to it
+     */
+    static void truncatePartialLine(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            long length = output.length();
+            long complete = 0;
+            byte[] buffer = new byte[8192];
+            long end = length;
+            while (end > 0 && complete == 0) {
+                int size = (int) Math.min(buffer.length, end);
+                output.seek(end - size);
+                output.readFully(buffer, 0, size);
+                for (int i = size - 1; i >= 0 && complete == 0; i--) {
+                    if (buffer[i] == '\n') {
+                        complete = end - size + i + 1;
+                    }
+                }
+                end -= size;
+            }
+            if (complete < length) {
+                LOGGER.warn("Removing the incomplete last line of " + file);
+                output.setLength(complete);
+            }
+        }
+    }
+
+    private InputStream openInput() throws IOException {
+        if ("-".equals(config.getInput())) {
+            return System.in;
+        }
+        return new FileInputStream(config.getInput());
+    }
+
+    void write(long line, String url, ScanType type, String resultJson) {
+        writeLine("{\"line\":" + line + ",\"url\":" + quote(url) + ",\"type\":\"" + type + "\",\"result\":"
+                + resultJson + "}");
+    }
+
+    void writeError(long line, String url, ScanType type, String error) {
+        writeLine("{\"line\":" + line + ",\"url\":" + quote(url) + ",\"type\":\"" + type + "\",\"error\":"
+                + quote(error) + "}");
+    }
+
+    private String quote(String value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException E) {
+            throw new IllegalArgumentException("Could not quote " + value, E);
+        }
+    }
+
+    private synchronized void writeLine(String json) {
+        if (outputFailure != null) {
+            return;
+        }
+        try {
+            output.write(json);
+            output.write('\n');
+        } catch (IOException E) {
+            LOGGER.error("Could not write to " + config.getOutput() + ", stopping the batch scan", E);
+            outputFailure = E;
+        }
+    }
+
+    /**
+     * Marks the line as finished and frees its slot. The line is not marked
+     * if no result or error was written for it or the output failed, so it is
+     * scanned again on resume.
+     *
+     * @param written
+     *            True if a result or error line was written for the line
+     */
+    void finished(long line, boolean written) {
+        boolean checkpoint;
+        synchronized (this) {
+            if (written && outputFailure == null) {
+                progress.complete(line);
+            }
+            finished++;
+            checkpoint = finished % Math.max(1, config.getCheckpointInterval()) == 0;
+            if (finished % LOG_INTERVAL == 0) {
+                long duration = Math.max(1, System.currentTimeMillis() - startedAt);
+                LOGGER.info("Scanned " + finished + " domains (" + finished * 1000 / duration
+                        + "/s), finished up to line " + progress.getCompletedLines());
+            }
+        }
+        if (checkpoint) {
+            checkpoint();
+        }
+        inFlight.release();
+    }
+
+    private synchronized void checkpoint() {
+        if (outputFailure != null) {
+            return;
+        }
+        try {
+            output.flush();
+            progress.save();
+        } catch (IOException E) {
+            LOGGER.error("Could not store the progress in " + progress.getFile(), E);
+            outputFailure = E;
+        }
+    }
+
+    public BatchProgress getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.config;
+
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.ws.PoolManager;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Publishes the runtime settings as an immutable {@link WsConfig} snapshot.
+ * The snapshot is the only copy of these settings, the components read it
+ * without locking and change a setting by publishing a new snapshot, see
+ * {@link #update(String, Object)}. The configuration file can be watched, a
+ * change is applied without a restart and every changed setting is logged.
+ * Settings which are removed from the file keep their current value.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ConfigManager {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ConfigManager.class
+            .getName());
+
+    private volatile WsConfig config = new WsConfig(new Properties());
+
+    /**
+     * The settings of the last applied file, a reload only applies the
+     * settings whose value in the file changed since then
+     */
+    private Properties loaded = new Properties();
+
+    private volatile File file = new File("config.txt");
+
+    /**
+     * Editors often write a file in several steps, the reload waits until the
+     * writes settled
+     */
+    private volatile long reloadDelay = 500;
+
+    private WatchService watchService = null;
+
+    ConfigManager() {
+    }
+
+    public static ConfigManager getInstance() {
+        return ConfigManagerHolder.INSTANCE;
+    }
+
+    private static class ConfigManagerHolder {
+
+        private static final ConfigManager INSTANCE = new ConfigManager();
+    }
+
+    /**
+     * @return The current settings, never null
+     */
+    public WsConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return The settings of the configuration file, with the system
+     *         properties as defaults
+     */
+    public Properties readProperties() {
+        Properties p = new Properties(System.getProperties());
+        File current = file;
+        if (current.exists()) {
+            try (InputStream input = new FileInputStream(current)) {
+                p.load(input);
+            } catch (IOException E) {
+                LOGGER.warn("Could not read " + current.getAbsolutePath(), E);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Reads the configuration file again and applies the changed settings.
+     * An invalid file is ignored.
+     *
+     * @return The settings which are in effect
+     */
+    public WsConfig reload() {
+        try {
+            return apply(readProperties());
+        } catch (IllegalArgumentException E) {
+            LOGGER.warn("Ignoring the invalid configuration in " + file.getAbsolutePath(), E);
+            return config;
+        }
+    }
+
+    /**
+     * Applies the settings whose value changed since the last applied file
+     * and publishes the new snapshot. Settings which were changed at runtime,
+     * e.g. by the autoscaler, keep their value unless the file changes them.
+     *
+     * @throws IllegalArgumentException
+     *             If a setting has an invalid value, nothing is applied then
+     */
+    public synchronized WsConfig apply(Properties p) {
+        Properties current = new Properties();
+        Properties changed = new Properties();
+        for (String key : p.stringPropertyNames()) {
+            // Only the configured values count, the defaults are the system
+            // properties
+            if (p.containsKey(key)) {
+                current.setProperty(key, p.getProperty(key));
+                if (!p.getProperty(key).equals(loaded.getProperty(key))) {
+                    changed.setProperty(key, p.getProperty(key));
+                }
+            }
+        }
+        WsConfig next = publish(new WsConfig(changed, config));
+        loaded = current;
+        return next;
+    }
+
+    /**
+     * Changes a single setting, e.g. on a request of the operator or of the
+     * autoscaler
+     *
+     * @throws IllegalArgumentException
+     *             If the value is invalid, nothing is applied then
+     */
+    public synchronized WsConfig update(String key, Object value) {
+        return publish(config.with(key, value));
+    }
+
+    /**
+     * @return The new state of the debug mode
+     */
+    public synchronized boolean toggleDebugMode() {
+        return publish(config.with(WsConfig.DEBUG_MODE, !config.isDebugMode())).isDebugMode();
+    }
+
+    synchronized Properties getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Publishes the snapshot as if the settings were loaded from a file
+     */
+    synchronized void restore(WsConfig config, Properties loaded) {
+        publish(config);
+        this.loaded = loaded;
+    }
+
+    /**
+     * Publishes the snapshot and resizes the worker pools to it. The other
+     * settings take effect by being published. A snapshot taken with
+     * {@link #getConfig()} can be published again to restore all settings.
+     */
+    public synchronized WsConfig publish(WsConfig next) {
+        WsConfig previous = config;
+        config = next;
+        changed(WsConfig.PROBE_THREADS, previous.getProbeThreads(), next.getProbeThreads());
+        changed(WsConfig.PARALLEL_PROBE_THREADS, previous.getParallelProbeThreads(), next.getParallelProbeThreads());
+        for (ScanFamily family : ScanFamily.values()) {
+            if (changed(WsConfig.getPoolSizeKey(family), previous.getPoolSize(family), next.getPoolSize(family))) {
+                PoolManager.getInstance().resizePool(family, next.getPoolSize(family));
+            }
+            if (changed(WsConfig.getMaxBorrowedKey(family), previous.getMaxBorrowed(family),
+                    next.getMaxBorrowed(family))) {
+                PoolManager.getInstance().getPool(family).getBorrowingQueue()
+                        .setMaxBorrowed(next.getMaxBorrowed(family));
+            }
+        }
+        changed(WsConfig.DEBUG_MODE, previous.isDebugMode(), next.isDebugMode());
+        changed(WsConfig.ADAPTIVE_TIMEOUTS, previous.isAdaptiveTimeouts(), next.isAdaptiveTimeouts());
+        changed(WsConfig.MIN_TIMEOUT, previous.getMinTimeout(), next.getMinTimeout());
+        changed(WsConfig.MAX_TIMEOUT, previous.getMaxTimeout(), next.getMaxTimeout());
+        changed(WsConfig.STALL_TIMEOUT, previous.getStallTimeout(), next.getStallTimeout());
+        changed(WsConfig.SCAN_DETAIL, previous.getScanDetail(), next.getScanDetail());
+        return next;
+    }
+
+    private static boolean changed(String key, Object previous, Object next) {
+        if (next.equals(previous)) {
+            return false;
+        }
+        LOGGER.info("Changing " + key + " from " + previous + " to " + next);
+        return true;
+    }
+
+    /**
+     * Watches the configuration file in a background thread and reloads it
+     * whenever it is created or modified
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        final File watched = file.getAbsoluteFile();
+        final WatchService service = FileSystems.getDefault().newWatchService();
+        watched.getParentFile().toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchService = service;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch(service, watched.getName());
+            }
+        }, "ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Watching " + watched + " for changes");
+    }
+
+    private void watch(WatchService service, String fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean modified = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path
+                            && fileName.equals(((Path) event.context()).getFileName().toString())) {
+                        modified = true;
+                    }
+                }
+                key.reset();
+                if (modified) {
+                    Thread.sleep(reloadDelay);
+                    LOGGER.info("Configuration changed, reloading");
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException E) {
+            LOGGER.debug("Stopped watching the configuration");
+        } catch (InterruptedException E) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized void stopWatching() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException E) {
+            LOGGER.warn("Could not stop watching the configuration", E);
+        }
+        watchService = null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    public long getReloadDelay() {
+        return reloadDelay;
+    }
+
+    public void setReloadDelay(long reloadDelay) {
+        this.reloadDelay = reloadDelay;
+    }
+}
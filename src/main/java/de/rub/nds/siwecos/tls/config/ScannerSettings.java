@@ -0,0 +1,220 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.config;
+
+import de.rub.nds.siwecos.tls.DebugManager;
+import de.rub.nds.siwecos.tls.accounting.TenantCostRegistry;
+import de.rub.nds.siwecos.tls.jfr.JfrSupport;
+import de.rub.nds.siwecos.tls.pool.FairScanQueue;
+import de.rub.nds.siwecos.tls.pool.JobCostEstimator;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.scan.ConnectionBudget;
+import de.rub.nds.siwecos.tls.scan.ProbeRetryPolicy;
+import de.rub.nds.siwecos.tls.scan.ScanPorts;
+import de.rub.nds.siwecos.tls.scan.ScanRegistry;
+import de.rub.nds.siwecos.tls.scan.ScannerConfigTemplate;
+import de.rub.nds.siwecos.tls.scan.ServerProbeResultCache;
+import de.rub.nds.siwecos.tls.scan.TimeoutManager;
+import de.rub.nds.siwecos.tls.warmup.WarmUp;
+import de.rub.nds.siwecos.tls.ws.PoolManager;
+import de.rub.nds.siwecos.tls.ws.PoolSizeController;
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * Applies the tlsscanner.* settings to the components of the scanner. The
+ * webservice and the batch mode share these settings, only the webservice
+ * starts the background services which use them.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScannerSettings {
+
+    private ScannerSettings() {
+    }
+
+    /**
+     * Applies the settings, the settings which can change at runtime are
+     * applied by the {@link ConfigManager}
+     *
+     * @throws IllegalArgumentException
+     *             If a setting has an invalid value
+     */
+    public static void apply(Properties p) {
+        ConfigManager.getInstance().apply(p);
+        if (p.containsKey("tlsscanner.timeoutCacheSize")) {
+            TimeoutManager.getInstance().setCacheSize(Integer.parseInt(p.getProperty("tlsscanner.timeoutCacheSize")));
+        }
+        if (p.containsKey("tlsscanner.probeRetries")) {
+            ProbeRetryPolicy.getInstance().setMaxRetries(Integer.parseInt(p.getProperty("tlsscanner.probeRetries")));
+        }
+        if (p.containsKey("tlsscanner.probeRetryBackoff")) {
+            ProbeRetryPolicy.getInstance().setBackoff(Long.parseLong(p.getProperty("tlsscanner.probeRetryBackoff")));
+        }
+        if (p.containsKey("tlsscanner.checkpoints")) {
+            CheckpointStore.getInstance().setEnabled(Boolean.parseBoolean(p.getProperty("tlsscanner.checkpoints")));
+        }
+        if (p.containsKey("tlsscanner.checkpointDir")) {
+            CheckpointStore.getInstance().setDirectory(new File(p.getProperty("tlsscanner.checkpointDir")));
+        }
+        if (p.containsKey("tlsscanner.serverCache")) {
+            ServerProbeResultCache.getInstance().setEnabled(
+                    Boolean.parseBoolean(p.getProperty("tlsscanner.serverCache")));
+        }
+        if (p.containsKey("tlsscanner.serverCacheTtl")) {
+            ServerProbeResultCache.getInstance().setTtl(Long.parseLong(p.getProperty("tlsscanner.serverCacheTtl")));
+        }
+        if (p.containsKey("tlsscanner.serverCacheSize")) {
+            ServerProbeResultCache.getInstance().setMaxEntries(
+                    Integer.parseInt(p.getProperty("tlsscanner.serverCacheSize")));
+        }
+        if (p.containsKey("tlsscanner.maxRecordingDuration")) {
+            JfrSupport.getInstance().setMaxRecordingDuration(
+                    Long.parseLong(p.getProperty("tlsscanner.maxRecordingDuration")));
+        }
+        if (p.containsKey("tlsscanner.maxRecordingSize")) {
+            JfrSupport.getInstance().setMaxRecordingSize(Long.parseLong(p.getProperty("tlsscanner.maxRecordingSize")));
+        }
+        if (p.containsKey("tlsscanner.cancelHungScans")) {
+            ScanRegistry.getInstance().setCancelHungScans(
+                    Boolean.parseBoolean(p.getProperty("tlsscanner.cancelHungScans")));
+        }
+        if (p.containsKey("tlsscanner.maxConnections")) {
+            ConnectionBudget.getInstance().setMaxConnections(
+                    Integer.parseInt(p.getProperty("tlsscanner.maxConnections")));
+        }
+        if (p.containsKey("tlsscanner.handshakesPerSecond")) {
+            ConnectionBudget.getInstance().setHandshakesPerSecond(
+                    Double.parseDouble(p.getProperty("tlsscanner.handshakesPerSecond")));
+        }
+        if (p.containsKey("tlsscanner.connectionWait")) {
+            ConnectionBudget.getInstance().setMaxWait(Long.parseLong(p.getProperty("tlsscanner.connectionWait")));
+        }
+        if (p.containsKey("tlsscanner.costTenants")) {
+            TenantCostRegistry.getInstance().setMaxTenants(Integer.parseInt(p.getProperty("tlsscanner.costTenants")));
+        }
+        if (p.containsKey("tlsscanner.costHistorySize")) {
+            JobCostEstimator.getInstance().setMaxHosts(Integer.parseInt(p.getProperty("tlsscanner.costHistorySize")));
+        }
+        if (p.containsKey("tlsscanner.autoscale")) {
+            PoolSizeController.getInstance().setEnabled(Boolean.parseBoolean(p.getProperty("tlsscanner.autoscale")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleInterval")) {
+            PoolSizeController.getInstance().setInterval(Long.parseLong(p.getProperty("tlsscanner.autoscaleInterval")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleMinJobs")) {
+            PoolSizeController.getInstance().setMinPoolSize(
+                    Integer.parseInt(p.getProperty("tlsscanner.autoscaleMinJobs")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleMaxJobs")) {
+            PoolSizeController.getInstance().setMaxPoolSize(
+                    Integer.parseInt(p.getProperty("tlsscanner.autoscaleMaxJobs")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleTargetWait")) {
+            PoolSizeController.getInstance().setTargetWait(
+                    Long.parseLong(p.getProperty("tlsscanner.autoscaleTargetWait")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleMaxCpu")) {
+            PoolSizeController.getInstance().setMaxCpu(Double.parseDouble(p.getProperty("tlsscanner.autoscaleMaxCpu")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleMaxSockets")) {
+            PoolSizeController.getInstance().setMaxSockets(
+                    Integer.parseInt(p.getProperty("tlsscanner.autoscaleMaxSockets")));
+        }
+        if (p.containsKey("tlsscanner.autoscaleMaxErrorRate")) {
+            PoolSizeController.getInstance().setMaxErrorRate(
+                    Double.parseDouble(p.getProperty("tlsscanner.autoscaleMaxErrorRate")));
+        }
+        if (p.containsKey("tlsscanner.ports")) {
+            ScanPorts.getInstance().setPorts(p.getProperty("tlsscanner.ports"));
+        }
+        if (p.containsKey("tlsscanner.warmup")) {
+            WarmUp.getInstance().setEnabled(Boolean.parseBoolean(p.getProperty("tlsscanner.warmup")));
+        }
+        if (p.containsKey("tlsscanner.warmupScans")) {
+            WarmUp.getInstance().setScans(Integer.parseInt(p.getProperty("tlsscanner.warmupScans")));
+        }
+        for (FairScanQueue fairQueue : PoolManager.getInstance().getFairQueues()) {
+            if (p.containsKey("tlsscanner.tenantWeights")) {
+                fairQueue.setWeights(p.getProperty("tlsscanner.tenantWeights"));
+            }
+            if (p.containsKey("tlsscanner.tenantMaxInFlight")) {
+                fairQueue.setMaxInFlight(Integer.parseInt(p.getProperty("tlsscanner.tenantMaxInFlight")));
+            }
+            if (p.containsKey("tlsscanner.tenantMaxQueued")) {
+                fairQueue.setMaxQueued(Integer.parseInt(p.getProperty("tlsscanner.tenantMaxQueued")));
+            }
+            if (p.containsKey("tlsscanner.agingRate")) {
+                fairQueue.setAgingRate(Double.parseDouble(p.getProperty("tlsscanner.agingRate")));
+            }
+            if (p.containsKey("tlsscanner.idleTenants")) {
+                fairQueue.setMaxIdleTenants(Integer.parseInt(p.getProperty("tlsscanner.idleTenants")));
+            }
+        }
+    }
+
+    /**
+     * Prints the settings which are in effect
+     */
+    public static void print() {
+        System.out.println("tlsscanner.probeThreads=" + PoolManager.getInstance().getProbeThreads());
+        System.out.println("tlsscanner.parallelProbeThreads=" + PoolManager.getInstance().getParallelProbeThreads());
+        System.out.println("tlsscanner.parallelScanJobs="
+                + PoolManager.getInstance().getPool(ScanFamily.HTTPS).getMaximumPoolSize());
+        System.out.println("tlsscanner.parallelMailScanJobs="
+                + PoolManager.getInstance().getPool(ScanFamily.MAIL).getMaximumPoolSize());
+        System.out.println("tlsscanner.borrowedScanJobs=" + PoolManager.getInstance().getMaxBorrowed(ScanFamily.HTTPS));
+        System.out.println("tlsscanner.borrowedMailScanJobs="
+                + PoolManager.getInstance().getMaxBorrowed(ScanFamily.MAIL));
+        System.out.println("tlsscanner.debugMode=" + DebugManager.getInstance().isDebugEnabled());
+        System.out.println("tlsscanner.adaptiveTimeouts=" + TimeoutManager.getInstance().isAdaptiveTimeouts());
+        System.out.println("tlsscanner.minTimeout=" + TimeoutManager.getInstance().getMinTimeout());
+        System.out.println("tlsscanner.maxTimeout=" + TimeoutManager.getInstance().getMaxTimeout());
+        System.out.println("tlsscanner.timeoutCacheSize=" + TimeoutManager.getInstance().getCacheSize());
+        System.out.println("tlsscanner.probeRetries=" + ProbeRetryPolicy.getInstance().getMaxRetries());
+        System.out.println("tlsscanner.probeRetryBackoff=" + ProbeRetryPolicy.getInstance().getBackoff());
+        System.out.println("tlsscanner.checkpoints=" + CheckpointStore.getInstance().isEnabled());
+        System.out.println("tlsscanner.checkpointDir="
+                + CheckpointStore.getInstance().getDirectory().getAbsolutePath());
+        System.out.println("tlsscanner.serverCache=" + ServerProbeResultCache.getInstance().isEnabled());
+        System.out.println("tlsscanner.serverCacheTtl=" + ServerProbeResultCache.getInstance().getTtl());
+        System.out.println("tlsscanner.serverCacheSize=" + ServerProbeResultCache.getInstance().getMaxEntries());
+        System.out.println("tlsscanner.maxRecordingDuration=" + JfrSupport.getInstance().getMaxRecordingDuration());
+        System.out.println("tlsscanner.maxRecordingSize=" + JfrSupport.getInstance().getMaxRecordingSize());
+        System.out.println("tlsscanner.stallTimeout=" + ScanRegistry.getInstance().getStallTimeout());
+        System.out.println("tlsscanner.cancelHungScans=" + ScanRegistry.getInstance().isCancelHungScans());
+        System.out.println("tlsscanner.maxConnections=" + ConnectionBudget.getInstance().getMaxConnections());
+        System.out.println("tlsscanner.handshakesPerSecond=" + ConnectionBudget.getInstance().getHandshakesPerSecond());
+        System.out.println("tlsscanner.connectionWait=" + ConnectionBudget.getInstance().getMaxWait());
+        System.out.println("tlsscanner.costTenants=" + TenantCostRegistry.getInstance().getMaxTenants());
+        System.out.println("tlsscanner.costHistorySize=" + JobCostEstimator.getInstance().getMaxHosts());
+        System.out.println("tlsscanner.autoscale=" + PoolSizeController.getInstance().isEnabled());
+        System.out.println("tlsscanner.autoscaleInterval=" + PoolSizeController.getInstance().getInterval());
+        System.out.println("tlsscanner.autoscaleMinJobs=" + PoolSizeController.getInstance().getMinPoolSize());
+        System.out.println("tlsscanner.autoscaleMaxJobs=" + PoolSizeController.getInstance().getMaxPoolSize());
+        System.out.println("tlsscanner.autoscaleTargetWait=" + PoolSizeController.getInstance().getTargetWait());
+        System.out.println("tlsscanner.autoscaleMaxCpu=" + PoolSizeController.getInstance().getMaxCpu());
+        System.out.println("tlsscanner.autoscaleMaxSockets=" + PoolSizeController.getInstance().getMaxSockets());
+        System.out.println("tlsscanner.autoscaleMaxErrorRate=" + PoolSizeController.getInstance().getMaxErrorRate());
+        System.out.println("tlsscanner.ports=" + ScanPorts.getInstance().getPorts());
+        System.out.println("tlsscanner.warmup=" + WarmUp.getInstance().isEnabled());
+        System.out.println("tlsscanner.warmupScans=" + WarmUp.getInstance().getScans());
+        System.out.println("tlsscanner.scanDetail=" + ScannerConfigTemplate.getDefaultScanDetail());
+        for (FairScanQueue fairQueue : PoolManager.getInstance().getFairQueues()) {
+            System.out.println("tlsscanner.tenantWeights=" + fairQueue.getWeights());
+            System.out.println("tlsscanner.tenantMaxInFlight=" + fairQueue.getMaxInFlight());
+            System.out.println("tlsscanner.tenantMaxQueued=" + fairQueue.getMaxQueued());
+            System.out.println("tlsscanner.agingRate=" + fairQueue.getAgingRate());
+            System.out.println("tlsscanner.idleTenants=" + fairQueue.getMaxIdleTenants());
+            break;
+        }
+    }
+}
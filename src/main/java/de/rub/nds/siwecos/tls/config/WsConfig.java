@@ -9,54 +9,249 @@
  */
 package de.rub.nds.siwecos.tls.config;
 
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import java.util.Properties;
+
 /**
+ * Immutable snapshot of the settings which can be changed at runtime. The
+ * snapshot always holds the values in effect, a setting which is not
+ * configured keeps the value of the previous snapshot. All values are
+ * validated before the snapshot exists, so an invalid setting never changes
+ * any of the others.
  *
  * @author robert
  */
-public class WsConfig {
+public final class WsConfig {
+
+    public static final String PROBE_THREADS = "tlsscanner.probeThreads";
+
+    public static final String PARALLEL_PROBE_THREADS = "tlsscanner.parallelProbeThreads";
+
+    public static final String PARALLEL_SCAN_JOBS = "tlsscanner.parallelScanJobs";
+
+    public static final String PARALLEL_MAIL_SCAN_JOBS = "tlsscanner.parallelMailScanJobs";
+
+    public static final String BORROWED_SCAN_JOBS = "tlsscanner.borrowedScanJobs";
+
+    public static final String BORROWED_MAIL_SCAN_JOBS = "tlsscanner.borrowedMailScanJobs";
+
+    public static final String DEBUG_MODE = "tlsscanner.debugMode";
+
+    public static final String ADAPTIVE_TIMEOUTS = "tlsscanner.adaptiveTimeouts";
+
+    public static final String MIN_TIMEOUT = "tlsscanner.minTimeout";
+
+    public static final String MAX_TIMEOUT = "tlsscanner.maxTimeout";
+
+    public static final String STALL_TIMEOUT = "tlsscanner.stallTimeout";
+
+    public static final String SCAN_DETAIL = "tlsscanner.scanDetail";
+
+    private static final WsConfig DEFAULTS = new WsConfig(9, 64, 10, 10, 5, 5, false, true, 300, 10000,
+            15 * 60 * 1000, ScannerDetail.QUICK);
+
+    private final int probeThreads;
+
+    private final int parallelProbeThreads;
+
+    private final int parallelScanJobs;
+
+    private final int parallelMailScanJobs;
 
-    private int probeThreads;
-    private int parallelProbeThreads;
-    private int parallelScanJobs;
-    private boolean debugMode;
+    private final int borrowedScanJobs;
 
-    public WsConfig() {
+    private final int borrowedMailScanJobs;
+
+    private final boolean debugMode;
+
+    private final boolean adaptiveTimeouts;
+
+    private final int minTimeout;
+
+    private final int maxTimeout;
+
+    private final long stallTimeout;
+
+    private final ScannerDetail scanDetail;
+
+    /**
+     * Creates the settings with the defaults for every setting which is not
+     * configured
+     *
+     * @throws IllegalArgumentException
+     *             If a setting has an invalid value
+     */
+    public WsConfig(Properties p) {
+        this(p, DEFAULTS);
+    }
+
+    /**
+     * @param previous
+     *            The settings whose values are kept if they are not
+     *            configured
+     * @throws IllegalArgumentException
+     *             If a setting has an invalid value
+     */
+    public WsConfig(Properties p, WsConfig previous) {
+        probeThreads = getInteger(p, PROBE_THREADS, previous.probeThreads);
+        parallelProbeThreads = getInteger(p, PARALLEL_PROBE_THREADS, previous.parallelProbeThreads);
+        parallelScanJobs = getInteger(p, PARALLEL_SCAN_JOBS, previous.parallelScanJobs);
+        parallelMailScanJobs = getInteger(p, PARALLEL_MAIL_SCAN_JOBS, previous.parallelMailScanJobs);
+        borrowedScanJobs = getInteger(p, BORROWED_SCAN_JOBS, previous.borrowedScanJobs);
+        borrowedMailScanJobs = getInteger(p, BORROWED_MAIL_SCAN_JOBS, previous.borrowedMailScanJobs);
+        debugMode = getBoolean(p, DEBUG_MODE, previous.debugMode);
+        adaptiveTimeouts = getBoolean(p, ADAPTIVE_TIMEOUTS, previous.adaptiveTimeouts);
+        minTimeout = getInteger(p, MIN_TIMEOUT, previous.minTimeout);
+        maxTimeout = getInteger(p, MAX_TIMEOUT, previous.maxTimeout);
+        stallTimeout = getLong(p, STALL_TIMEOUT, previous.stallTimeout);
+        scanDetail = getScanDetail(p, SCAN_DETAIL, previous.scanDetail);
+        validate();
+    }
+
+    private WsConfig(int probeThreads, int parallelProbeThreads, int parallelScanJobs, int parallelMailScanJobs,
+            int borrowedScanJobs, int borrowedMailScanJobs, boolean debugMode, boolean adaptiveTimeouts,
+            int minTimeout, int maxTimeout, long stallTimeout, ScannerDetail scanDetail) {
         this.probeThreads = probeThreads;
         this.parallelProbeThreads = parallelProbeThreads;
         this.parallelScanJobs = parallelScanJobs;
+        this.parallelMailScanJobs = parallelMailScanJobs;
+        this.borrowedScanJobs = borrowedScanJobs;
+        this.borrowedMailScanJobs = borrowedMailScanJobs;
         this.debugMode = debugMode;
+        this.adaptiveTimeouts = adaptiveTimeouts;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.stallTimeout = stallTimeout;
+        this.scanDetail = scanDetail;
+        validate();
     }
 
-    public int getProbeThreads() {
-        return probeThreads;
+    private void validate() {
+        check(probeThreads > 0, PROBE_THREADS, probeThreads);
+        check(parallelProbeThreads > 0, PARALLEL_PROBE_THREADS, parallelProbeThreads);
+        check(parallelScanJobs > 0, PARALLEL_SCAN_JOBS, parallelScanJobs);
+        check(parallelMailScanJobs > 0, PARALLEL_MAIL_SCAN_JOBS, parallelMailScanJobs);
+        check(borrowedScanJobs >= 0, BORROWED_SCAN_JOBS, borrowedScanJobs);
+        check(borrowedMailScanJobs >= 0, BORROWED_MAIL_SCAN_JOBS, borrowedMailScanJobs);
+        check(minTimeout > 0, MIN_TIMEOUT, minTimeout);
+        check(maxTimeout >= minTimeout, MAX_TIMEOUT, maxTimeout);
+        check(stallTimeout >= 0, STALL_TIMEOUT, stallTimeout);
     }
 
-    public void setProbeThreads(int probeThreads) {
-        this.probeThreads = probeThreads;
+    private static void check(boolean valid, String key, Object value) {
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid value " + value + " for " + key);
+        }
     }
 
-    public int getParallelProbeThreads() {
-        return parallelProbeThreads;
+    /**
+     * @return A copy of the settings with the setting changed
+     * @throws IllegalArgumentException
+     *             If the value is invalid
+     */
+    public WsConfig with(String key, Object value) {
+        Properties p = new Properties();
+        p.setProperty(key, String.valueOf(value));
+        return new WsConfig(p, this);
     }
 
-    public void setParallelProbeThreads(int parallelProbeThreads) {
-        this.parallelProbeThreads = parallelProbeThreads;
+    /**
+     * @return The key of the setting with the number of workers of the pool
+     */
+    public static String getPoolSizeKey(ScanFamily family) {
+        return family == ScanFamily.HTTPS ? PARALLEL_SCAN_JOBS : PARALLEL_MAIL_SCAN_JOBS;
+    }
+
+    /**
+     * @return The key of the setting with the number of borrowing workers of
+     *         the pool
+     */
+    public static String getMaxBorrowedKey(ScanFamily family) {
+        return family == ScanFamily.HTTPS ? BORROWED_SCAN_JOBS : BORROWED_MAIL_SCAN_JOBS;
+    }
+
+    /**
+     * Only the configured values count, the defaults of the properties are
+     * the system properties
+     */
+    private static String getValue(Properties p, String key) {
+        return p.containsKey(key) ? p.getProperty(key).trim() : null;
+    }
+
+    private static int getInteger(Properties p, String key, int previous) {
+        String value = getValue(p, key);
+        return value == null ? previous : Integer.parseInt(value);
+    }
+
+    private static long getLong(Properties p, String key, long previous) {
+        String value = getValue(p, key);
+        return value == null ? previous : Long.parseLong(value);
+    }
+
+    private static boolean getBoolean(Properties p, String key, boolean previous) {
+        String value = getValue(p, key);
+        return value == null ? previous : Boolean.parseBoolean(value);
+    }
+
+    private static ScannerDetail getScanDetail(Properties p, String key, ScannerDetail previous) {
+        String value = getValue(p, key);
+        return value == null ? previous : ScannerDetail.valueOf(value.toUpperCase());
+    }
+
+    public int getProbeThreads() {
+        return probeThreads;
+    }
+
+    public int getParallelProbeThreads() {
+        return parallelProbeThreads;
     }
 
     public int getParallelScanJobs() {
         return parallelScanJobs;
     }
 
-    public void setParallelScanJobs(int parallelScanJobs) {
-        this.parallelScanJobs = parallelScanJobs;
+    public int getParallelMailScanJobs() {
+        return parallelMailScanJobs;
+    }
+
+    public int getPoolSize(ScanFamily family) {
+        return family == ScanFamily.HTTPS ? parallelScanJobs : parallelMailScanJobs;
+    }
+
+    public int getBorrowedScanJobs() {
+        return borrowedScanJobs;
+    }
+
+    public int getBorrowedMailScanJobs() {
+        return borrowedMailScanJobs;
+    }
+
+    public int getMaxBorrowed(ScanFamily family) {
+        return family == ScanFamily.HTTPS ? borrowedScanJobs : borrowedMailScanJobs;
     }
 
     public boolean isDebugMode() {
         return debugMode;
     }
 
-    public void setDebugMode(boolean debugMode) {
-        this.debugMode = debugMode;
+    public boolean isAdaptiveTimeouts() {
+        return adaptiveTimeouts;
     }
 
+    public int getMinTimeout() {
+        return minTimeout;
+    }
+
+    public int getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public long getStallTimeout() {
+        return stallTimeout;
+    }
+
+    public ScannerDetail getScanDetail() {
+        return scanDetail;
+    }
 }
@@ -0,0 +1,50 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Delivery of a scan result to a callback url
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+@Name("de.rub.nds.siwecos.tls.Callback")
+@Label("Callback")
+@Category({ "SIWECOS", "TLS-Scanner" })
+@Description("Delivery of a scan result to a callback url")
+@StackTrace(false)
+class CallbackEvent extends Event {
+
+    @Label("Host")
+    String host;
+
+    @Label("Scan Type")
+    String scanType;
+
+    @Label("Scan Id")
+    String scanId;
+
+    @Label("Callback Url")
+    String callbackUrl;
+
+    @Label("Bytes")
+    @DataAmount
+    int bytes;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,136 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.jfr;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Emits the Java Flight Recorder events of the scanner and controls on-demand
+ * recordings. This base class does nothing and is used when the JVM has no
+ * Flight Recorder, the JFR classes are only loaded by {@link JfrSupportImpl}.
+ * The begin methods return an opaque event which has to be passed to the
+ * matching commit method.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class JfrSupport {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(JfrSupport.class.getName());
+
+    private volatile long maxRecordingDuration = 10 * 60 * 1000;
+
+    private volatile long maxRecordingSize = 100 * 1024 * 1024;
+
+    JfrSupport() {
+    }
+
+    public static JfrSupport getInstance() {
+        return JfrSupportHolder.INSTANCE;
+    }
+
+    private static class JfrSupportHolder {
+
+        private static final JfrSupport INSTANCE = create();
+
+        private static JfrSupport create() {
+            try {
+                Class<?> recorder = Class.forName("jdk.jfr.FlightRecorder");
+                if (Boolean.TRUE.equals(recorder.getMethod("isAvailable").invoke(null))) {
+                    return (JfrSupport) Class.forName("de.rub.nds.siwecos.tls.jfr.JfrSupportImpl").newInstance();
+                }
+            } catch (ReflectiveOperationException | LinkageError E) {
+                LOGGER.debug("Flight Recorder classes are not available", E);
+            }
+            LOGGER.info("Flight Recorder is not available, JFR events are disabled");
+            return new JfrSupport();
+        }
+    }
+
+    public boolean isAvailable() {
+        return false;
+    }
+
+    public Object beginScan() {
+        return null;
+    }
+
+    public void commitScan(Object event, String host, String scanType, String scanId, boolean hasError) {
+    }
+
+    public Object beginProbe() {
+        return null;
+    }
+
+    public void commitProbe(Object event, String host, String scanType, String scanId, String probe, int attempts,
+            boolean failed) {
+    }
+
+    public Object beginReportConversion() {
+        return null;
+    }
+
+    public void commitReportConversion(Object event, String host, String scanType, String scanId, int tests) {
+    }
+
+    public Object beginCallback() {
+        return null;
+    }
+
+    public void commitCallback(Object event, String host, String scanType, String scanId, String callbackUrl,
+            int bytes, boolean success) {
+    }
+
+    /**
+     * Starts a recording which is bounded by the maximum duration and size
+     *
+     * @param duration
+     *            The requested duration in milliseconds, capped at the maximum
+     *            duration
+     * @throws IllegalStateException
+     *             If the Flight Recorder is not available or a recording is
+     *             already running
+     */
+    public void startRecording(long duration) {
+        throw new IllegalStateException("Flight Recorder is not available");
+    }
+
+    /**
+     * Stops the running recording and writes it to a file
+     *
+     * @return The recording file
+     * @throws IllegalStateException
+     *             If no recording was started
+     */
+    public File stopRecording() throws IOException {
+        throw new IllegalStateException("Flight Recorder is not available");
+    }
+
+    public boolean isRecording() {
+        return false;
+    }
+
+    public long getMaxRecordingDuration() {
+        return maxRecordingDuration;
+    }
+
+    public void setMaxRecordingDuration(long maxRecordingDuration) {
+        this.maxRecordingDuration = maxRecordingDuration;
+    }
+
+    public long getMaxRecordingSize() {
+        return maxRecordingSize;
+    }
+
+    public void setMaxRecordingSize(long maxRecordingSize) {
+        this.maxRecordingSize = maxRecordingSize;
+    }
+}
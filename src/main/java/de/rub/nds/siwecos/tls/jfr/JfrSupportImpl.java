@@ -0,0 +1,181 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.jfr;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * JfrSupport backed by the Flight Recorder of the JVM
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+class JfrSupportImpl extends JfrSupport {
+
+    private Recording recording = null;
+
+    private File recordingFile = null;
+
+    JfrSupportImpl() {
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Object beginScan() {
+        ScanEvent event = new ScanEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitScan(Object event, String host, String scanType, String scanId, boolean hasError) {
+        ScanEvent scanEvent = (ScanEvent) event;
+        scanEvent.end();
+        if (scanEvent.shouldCommit()) {
+            scanEvent.host = host;
+            scanEvent.scanType = scanType;
+            scanEvent.scanId = scanId;
+            scanEvent.hasError = hasError;
+            scanEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginProbe() {
+        ProbeEvent event = new ProbeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitProbe(Object event, String host, String scanType, String scanId, String probe, int attempts,
+            boolean failed) {
+        ProbeEvent probeEvent = (ProbeEvent) event;
+        probeEvent.end();
+        if (probeEvent.shouldCommit()) {
+            probeEvent.host = host;
+            probeEvent.scanType = scanType;
+            probeEvent.scanId = scanId;
+            probeEvent.probe = probe;
+            probeEvent.attempts = attempts;
+            probeEvent.failed = failed;
+            probeEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginReportConversion() {
+        ReportConversionEvent event = new ReportConversionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitReportConversion(Object event, String host, String scanType, String scanId, int tests) {
+        ReportConversionEvent conversionEvent = (ReportConversionEvent) event;
+        conversionEvent.end();
+        if (conversionEvent.shouldCommit()) {
+            conversionEvent.host = host;
+            conversionEvent.scanType = scanType;
+            conversionEvent.scanId = scanId;
+            conversionEvent.tests = tests;
+            conversionEvent.commit();
+        }
+    }
+
+    @Override
+    public Object beginCallback() {
+        CallbackEvent event = new CallbackEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitCallback(Object event, String host, String scanType, String scanId, String callbackUrl,
+            int bytes, boolean success) {
+        CallbackEvent callbackEvent = (CallbackEvent) event;
+        callbackEvent.end();
+        if (callbackEvent.shouldCommit()) {
+            callbackEvent.host = host;
+            callbackEvent.scanType = scanType;
+            callbackEvent.scanId = scanId;
+            callbackEvent.callbackUrl = callbackUrl;
+            callbackEvent.bytes = bytes;
+            callbackEvent.success = success;
+            callbackEvent.commit();
+        }
+    }
+
+    @Override
+    public synchronized void startRecording(long duration) {
+        if (isRecording()) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        deleteRecordingFile();
+        try {
+            recording = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException E) {
+            LOGGER.warn("Could not load the profile configuration, using the defaults", E);
+            recording = new Recording();
+        }
+        recording.setName("WS-TLS-Scanner");
+        long bounded = duration <= 0 ? getMaxRecordingDuration() : Math.min(duration, getMaxRecordingDuration());
+        recording.setDuration(Duration.ofMillis(bounded));
+        recording.setMaxSize(getMaxRecordingSize());
+        recording.setToDisk(true);
+        recording.enable(ScanEvent.class);
+        recording.enable(ProbeEvent.class);
+        recording.enable(ReportConversionEvent.class);
+        recording.enable(CallbackEvent.class);
+        recording.start();
+        LOGGER.info("Started flight recording for " + bounded + "ms");
+    }
+
+    @Override
+    public synchronized File stopRecording() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording was started");
+        }
+        if (isRecording()) {
+            recording.stop();
+        }
+        if (recordingFile == null) {
+            recordingFile = File.createTempFile("ws-tls-scanner-", ".jfr");
+            recording.dump(recordingFile.toPath());
+            recording.close();
+            LOGGER.info("Wrote flight recording to " + recordingFile.getAbsolutePath());
+        }
+        return recordingFile;
+    }
+
+    @Override
+    public synchronized boolean isRecording() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    private void deleteRecordingFile() {
+        if (recordingFile != null && recordingFile.exists() && !recordingFile.delete()) {
+            LOGGER.warn("Could not delete " + recordingFile.getAbsolutePath());
+        }
+        recordingFile = null;
+    }
+}
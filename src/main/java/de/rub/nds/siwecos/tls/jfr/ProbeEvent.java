@@ -0,0 +1,48 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Execution of a probe including its retries
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+@Name("de.rub.nds.siwecos.tls.Probe")
+@Label("Probe")
+@Category({ "SIWECOS", "TLS-Scanner" })
+@Description("Execution of a probe including its retries")
+@StackTrace(false)
+class ProbeEvent extends Event {
+
+    @Label("Host")
+    String host;
+
+    @Label("Scan Type")
+    String scanType;
+
+    @Label("Scan Id")
+    String scanId;
+
+    @Label("Probe")
+    String probe;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -21,6 +21,9 @@ public class CertificateTestInfo extends TestInfo {
         this.certificate = certificate;
     }
 
+    public CertificateTestInfo() {
+    }
+
     public String getCertificate() {
         return certificate;
     }
@@ -21,6 +21,9 @@ public class CiphersuitesTestInfo extends TestInfo {
         this.ciphersuite = ciphersuite;
     }
 
+    public CiphersuitesTestInfo() {
+    }
+
     public String getCiphersuite() {
         return ciphersuite;
     }
@@ -21,6 +21,9 @@ public class DateTestInfo extends TestInfo {
         this.date = date;
     }
 
+    public DateTestInfo() {
+    }
+
     public String getDate() {
         return date;
     }
@@ -17,6 +17,9 @@ public class ErrorTestInfo extends TestInfo {
         this.errorMessage = errorMessage;
     }
 
+    public ErrorTestInfo() {
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
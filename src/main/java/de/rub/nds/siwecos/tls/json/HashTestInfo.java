@@ -21,6 +21,9 @@ public class HashTestInfo extends TestInfo {
         this.hash = hash;
     }
 
+    public HashTestInfo() {
+    }
+
     public String getHash() {
         return hash;
     }
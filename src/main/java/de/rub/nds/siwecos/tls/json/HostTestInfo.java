@@ -21,6 +21,9 @@ public class HostTestInfo extends TestInfo {
         this.host = host;
     }
 
+    public HostTestInfo() {
+    }
+
     public String getHost() {
         return host;
     }
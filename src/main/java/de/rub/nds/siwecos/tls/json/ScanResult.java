@@ -47,6 +47,9 @@ public class ScanResult {
         this.tests = tests;
     }
 
+    public ScanResult() {
+    }
+
     public String getVersion() {
         return version;
     }
@@ -43,6 +43,9 @@ public class TestResult {
         }
     }
 
+    public TestResult() {
+    }
+
     public String getName() {
         return name;
     }
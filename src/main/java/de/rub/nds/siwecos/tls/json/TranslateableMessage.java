@@ -24,6 +24,9 @@ public class TranslateableMessage {
         this.placeholders = placeholders;
     }
 
+    public TranslateableMessage() {
+    }
+
     public String getTranslationStringId() {
         return translationStringId;
     }
@@ -0,0 +1,83 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram with fixed bucket bounds. Observations only increment atomic
+ * counters, so recording is lock-free and cheap enough for the hot paths of a
+ * scan.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class Histogram {
+
+    /**
+     * Bounds for durations in milliseconds, from 5ms up to 30 minutes
+     */
+    public static final long[] DURATION_BOUNDS = new long[] { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000,
+            30000, 60000, 120000, 300000, 600000, 1800000 };
+
+    /**
+     * Bounds for queue lengths
+     */
+    public static final long[] SIZE_BOUNDS = new long[] { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000 };
+
+    private final long[] bounds;
+
+    private final AtomicLongArray buckets;
+
+    private final AtomicLong sum = new AtomicLong(0);
+
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        // the last bucket counts the observations above the highest bound
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void observe(long value) {
+        int index = 0;
+        while (index < bounds.length && value > bounds[index]) {
+            index++;
+        }
+        buckets.incrementAndGet(index);
+        sum.addAndGet(value);
+    }
+
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return The number of observations per bucket, not cumulative. The last
+     *         entry holds the observations above the highest bound.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+}
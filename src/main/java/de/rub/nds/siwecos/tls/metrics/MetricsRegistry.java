@@ -0,0 +1,280 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.metrics;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the operational metrics of the scanner and renders them in the
+ * Prometheus text exposition format. Durations are recorded in milliseconds
+ * and exposed in seconds.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class MetricsRegistry {
+
+    public static final String QUEUE_WAIT = "tlsscanner_queue_wait_seconds";
+
+    public static final String QUEUE_LENGTH = "tlsscanner_queue_length_at_submit";
+
+    public static final String SCAN_DURATION = "tlsscanner_scan_duration_seconds";
+
+    public static final String PROBE_DURATION = "tlsscanner_probe_duration_seconds";
+
+    public static final String CALLBACK_DURATION = "tlsscanner_callback_duration_seconds";
+
+    public static final String CALLBACKS = "tlsscanner_callbacks_total";
+
+    public static final String ERRORS = "tlsscanner_errors_total";
+
+    public static final String SCAN_RESULTS = "tlsscanner_scan_results_total";
+
+    public static final String WORKER_BUSY = "tlsscanner_worker_busy_seconds_total";
+
+    public static final String PROBE_RETRIES = "tlsscanner_probe_retries_total";
+
+    public static final String PROBES_REUSED = "tlsscanner_probes_reused_total";
+
+    private final Map<String, HistogramFamily> histograms = new ConcurrentSkipListMap<>();
+
+    private final Map<String, CounterFamily> counters = new ConcurrentSkipListMap<>();
+
+    MetricsRegistry() {
+        histograms.put(QUEUE_WAIT, new HistogramFamily("Time a scan job spent in the queue",
+                Histogram.DURATION_BOUNDS, 1000));
+        histograms.put(QUEUE_LENGTH, new HistogramFamily("Length of the queue when a scan job was submitted",
+                Histogram.SIZE_BOUNDS, 1));
+        histograms.put(SCAN_DURATION, new HistogramFamily("Duration of a scan per scan type",
+                Histogram.DURATION_BOUNDS, 1000));
+        histograms.put(PROBE_DURATION, new HistogramFamily("Duration of a probe including retries",
+                Histogram.DURATION_BOUNDS, 1000));
+        histograms.put(CALLBACK_DURATION, new HistogramFamily("Duration of a callback request",
+                Histogram.DURATION_BOUNDS, 1000));
+        counters.put(CALLBACKS, new CounterFamily("Callback requests by outcome"));
+        counters.put(ERRORS, new CounterFamily("Errors reported in scan results by message id"));
+        counters.put(SCAN_RESULTS, new CounterFamily("Scan results by outcome"));
+        counters.put(WORKER_BUSY, new CounterFamily("Time the workers spent executing scan jobs"));
+        counters.put(PROBE_RETRIES, new CounterFamily("Retries of probes after a transient error"));
+        counters.put(PROBES_REUSED, new CounterFamily("Probe results taken from an earlier scan of the server"));
+    }
+
+    public static MetricsRegistry getInstance() {
+        return MetricsRegistryHolder.INSTANCE;
+    }
+
+    private static class MetricsRegistryHolder {
+
+        private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    }
+
+    public void observeQueueWait(ScanFamily family, long millis) {
+        histograms.get(QUEUE_WAIT).get(label("pool", family.getId())).observe(millis);
+    }
+
+    public void observeQueueLength(ScanFamily family, int length) {
+        histograms.get(QUEUE_LENGTH).get(label("pool", family.getId())).observe(length);
+    }
+
+    public void observeScanDuration(ScanType type, long millis) {
+        histograms.get(SCAN_DURATION).get(label("type", type.name())).observe(millis);
+    }
+
+    public void observeProbeDuration(ProbeType type, long millis) {
+        histograms.get(PROBE_DURATION).get(label("probe", type.name())).observe(millis);
+    }
+
+    public void observeCallback(long millis, boolean success) {
+        histograms.get(CALLBACK_DURATION).get("").observe(millis);
+        counters.get(CALLBACKS).get(label("outcome", success ? "success" : "failure")).incrementAndGet();
+    }
+
+    public void countProbeRetry(ProbeType type) {
+        counters.get(PROBE_RETRIES).get(label("probe", type.name())).incrementAndGet();
+    }
+
+    public void countReusedProbe(ProbeType type) {
+        counters.get(PROBES_REUSED).get(label("probe", type.name())).incrementAndGet();
+    }
+
+    public void countError(String messageId) {
+        counters.get(ERRORS).get(label("id", messageId == null ? "UNKNOWN" : messageId)).incrementAndGet();
+    }
+
+    public void countScanResult(boolean error) {
+        counters.get(SCAN_RESULTS).get(label("outcome", error ? "error" : "success")).incrementAndGet();
+    }
+
+    public void addWorkerBusyTime(ScanType type, long millis) {
+        counters.get(WORKER_BUSY).get(label("type", type.name())).addAndGet(millis);
+    }
+
+    public Histogram getHistogram(String name, String labels) {
+        return histograms.get(name).get(labels);
+    }
+
+    public long getCounter(String name, String labels) {
+        return counters.get(name).get(labels).get();
+    }
+
+    /**
+     * Appends all metrics in the Prometheus text exposition format
+     */
+    public void writeTo(StringBuilder builder) {
+        for (Map.Entry<String, HistogramFamily> family : histograms.entrySet()) {
+            String name = family.getKey();
+            HistogramFamily histogramFamily = family.getValue();
+            double scale = histogramFamily.getScale();
+            builder.append("# HELP ").append(name).append(' ').append(histogramFamily.getHelp()).append('\n');
+            builder.append("# TYPE ").append(name).append(" histogram\n");
+            for (Map.Entry<String, Histogram> entry : histogramFamily.getChildren().entrySet()) {
+                String labels = entry.getKey();
+                String prefix = labels.isEmpty() ? "" : labels + ",";
+                Histogram histogram = entry.getValue();
+                long[] bounds = histogram.getBounds();
+                long[] counts = histogram.getBucketCounts();
+                long cumulative = 0;
+                for (int i = 0; i < bounds.length; i++) {
+                    cumulative += counts[i];
+                    builder.append(name).append("_bucket{").append(prefix).append("le=\"")
+                            .append(format(bounds[i] / scale)).append("\"} ").append(cumulative).append('\n');
+                }
+                cumulative += counts[bounds.length];
+                builder.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(cumulative)
+                        .append('\n');
+                builder.append(name).append("_sum").append(braces(labels)).append(' ')
+                        .append(format(histogram.getSum() / scale)).append('\n');
+                builder.append(name).append("_count").append(braces(labels)).append(' ').append(cumulative)
+                        .append('\n');
+            }
+        }
+        for (Map.Entry<String, CounterFamily> family : counters.entrySet()) {
+            String name = family.getKey();
+            CounterFamily counterFamily = family.getValue();
+            builder.append("# HELP ").append(name).append(' ').append(counterFamily.getHelp()).append('\n');
+            builder.append("# TYPE ").append(name).append(" counter\n");
+            for (Map.Entry<String, AtomicLong> entry : counterFamily.getChildren().entrySet()) {
+                long value = entry.getValue().get();
+                builder.append(name).append(braces(entry.getKey())).append(' ')
+                        .append(name.endsWith("_seconds_total") ? format(value / 1000d) : Long.toString(value))
+                        .append('\n');
+            }
+        }
+    }
+
+    public static void writeGauge(StringBuilder builder, String name, String help, long value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" gauge\n");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Appends a gauge with one sample per label set
+     */
+    public static void writeGauge(StringBuilder builder, String name, String help, Map<String, Long> samples) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" gauge\n");
+        for (Map.Entry<String, Long> sample : samples.entrySet()) {
+            builder.append(name).append(braces(sample.getKey())).append(' ').append(sample.getValue()).append('\n');
+        }
+    }
+
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static class HistogramFamily {
+
+        private final String help;
+
+        private final long[] bounds;
+
+        private final double scale;
+
+        private final ConcurrentMap<String, Histogram> children = new ConcurrentSkipListMap<>();
+
+        public HistogramFamily(String help, long[] bounds, double scale) {
+            this.help = help;
+            this.bounds = bounds;
+            this.scale = scale;
+        }
+
+        public Histogram get(String labels) {
+            Histogram histogram = children.get(labels);
+            if (histogram == null) {
+                Histogram created = new Histogram(bounds);
+                histogram = children.putIfAbsent(labels, created);
+                if (histogram == null) {
+                    histogram = created;
+                }
+            }
+            return histogram;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public double getScale() {
+            return scale;
+        }
+
+        public Map<String, Histogram> getChildren() {
+            return children;
+        }
+    }
+
+    private static class CounterFamily {
+
+        private final String help;
+
+        private final ConcurrentMap<String, AtomicLong> children = new ConcurrentSkipListMap<>();
+
+        public CounterFamily(String help) {
+            this.help = help;
+        }
+
+        public AtomicLong get(String labels) {
+            AtomicLong counter = children.get(labels);
+            if (counter == null) {
+                AtomicLong created = new AtomicLong(0);
+                counter = children.putIfAbsent(labels, created);
+                if (counter == null) {
+                    counter = created;
+                }
+            }
+            return counter;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public Map<String, AtomicLong> getChildren() {
+            return children;
+        }
+    }
+}
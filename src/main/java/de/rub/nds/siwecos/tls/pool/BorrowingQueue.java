@@ -0,0 +1,208 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Work queue of a worker pool which lends idle workers to other pools. Jobs
+ * are queued in the own queue of the pool. A worker which finds the own queue
+ * empty takes a job from the queue of another pool, as long as less than
+ * maxBorrowed workers of the pool are busy with borrowed jobs. The remaining
+ * workers stay reserved for the own jobs of the pool.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class BorrowingQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    /**
+     * How long an idle worker waits for an own job before it looks into the
+     * queues of the other pools
+     */
+    private static final long BORROW_INTERVAL = 500;
+
+    private final BlockingQueue<Runnable> queue;
+
+    private final List<BlockingQueue<Runnable>> lenders = new CopyOnWriteArrayList<>();
+
+    private final Set<Runnable> borrowedJobs = Collections.newSetFromMap(new ConcurrentHashMap<Runnable, Boolean>());
+
+    private final AtomicInteger borrowed = new AtomicInteger(0);
+
+    private final AtomicLong borrowedTotal = new AtomicLong(0);
+
+    private volatile int maxBorrowed = 0;
+
+    public BorrowingQueue(BlockingQueue<Runnable> queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * @return The own queue of the pool
+     */
+    public BlockingQueue<Runnable> getQueue() {
+        return queue;
+    }
+
+    /**
+     * Adds the queue of another pool from which jobs may be borrowed
+     */
+    public void addLender(BlockingQueue<Runnable> lender) {
+        lenders.add(lender);
+    }
+
+    /**
+     * @return The maximum number of workers busy with borrowed jobs, 0
+     *         disables borrowing
+     */
+    public int getMaxBorrowed() {
+        return maxBorrowed;
+    }
+
+    public void setMaxBorrowed(int maxBorrowed) {
+        this.maxBorrowed = maxBorrowed;
+    }
+
+    /**
+     * @return The number of workers currently busy with borrowed jobs
+     */
+    public int getBorrowed() {
+        return borrowed.get();
+    }
+
+    /**
+     * @return The number of jobs borrowed since startup
+     */
+    public long getBorrowedTotal() {
+        return borrowedTotal.get();
+    }
+
+    private Runnable borrow() {
+        if (borrowed.incrementAndGet() > maxBorrowed) {
+            borrowed.decrementAndGet();
+            return null;
+        }
+        for (BlockingQueue<Runnable> lender : lenders) {
+            Runnable job = lender.poll();
+            if (job != null) {
+                borrowedJobs.add(job);
+                borrowedTotal.incrementAndGet();
+                return job;
+            }
+        }
+        borrowed.decrementAndGet();
+        return null;
+    }
+
+    /**
+     * Called by the pool when a job finished, frees the slot of a borrowed job
+     */
+    void finished(Runnable job) {
+        if (borrowedJobs.remove(job)) {
+            borrowed.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        Runnable job = queue.poll();
+        return job != null ? job : borrow();
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        while (true) {
+            Runnable job = queue.poll(BORROW_INTERVAL, TimeUnit.MILLISECONDS);
+            if (job == null) {
+                job = borrow();
+            }
+            if (job != null) {
+                return job;
+            }
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            Runnable job = queue.poll(Math.max(0, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(BORROW_INTERVAL))),
+                    TimeUnit.NANOSECONDS);
+            if (job == null) {
+                job = borrow();
+            }
+            if (job != null || remaining <= 0) {
+                return job;
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable job) {
+        return queue.offer(job);
+    }
+
+    @Override
+    public boolean offer(Runnable job, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.offer(job, timeout, unit);
+    }
+
+    @Override
+    public void put(Runnable job) throws InterruptedException {
+        queue.put(job);
+    }
+
+    @Override
+    public Runnable peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    @Override
+    public boolean remove(Object job) {
+        return queue.remove(job);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return queue.drainTo(collection);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        return queue.drainTo(collection, maxElements);
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        return queue.iterator();
+    }
+}
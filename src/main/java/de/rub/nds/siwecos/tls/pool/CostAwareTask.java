@@ -0,0 +1,24 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+/**
+ * A task which knows its expected cost, used by the FairScanQueue to run
+ * short jobs first
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public interface CostAwareTask {
+
+    /**
+     * @return The expected duration of the task in milliseconds, 0 if unknown
+     */
+    public long getExpectedCost();
+}
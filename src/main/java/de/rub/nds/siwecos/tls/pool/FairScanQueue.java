@@ -0,0 +1,579 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work queue of the scan workers which shares the workers between the tenants
+ * by weighted fair queuing. The next job of every tenant gets a virtual finish
+ * time, which grows by the expected cost of the job divided by the weight of
+ * the tenant, and the job with the smallest finish time is dispatched first. A
+ * tenant with many queued jobs therefore only delays the other tenants by its
+ * share of the worker time.
+ * <p>
+ * The jobs of a tenant are ordered shortest expected job first, which
+ * minimizes the mean completion time. To avoid starvation of long jobs a job
+ * is ranked by its expected cost minus the time it waited times the aging
+ * rate. As all jobs age at the same pace the rank can be fixed when the job is
+ * queued: cost + agingRate * enqueuedAt. An aging rate of 0 orders strictly
+ * by cost, a large aging rate falls back to first come first served.
+ * <p>
+ * Tenants can be limited in the number of queued jobs, a job which exceeds
+ * the limit is rejected, and in the number of jobs in flight, a tenant at the
+ * limit is skipped until one of its jobs finished. The jobs in flight are
+ * reported by the {@link ScanThreadPoolExecutor}. A tenant without queued
+ * jobs and without jobs in flight loses its queue state. Its statistics are
+ * kept for a bounded number of idle tenants, the least recently active tenant
+ * is forgotten first.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class FairScanQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    private final Map<String, TenantQueue> tenants = new LinkedHashMap<>();
+
+    private final Map<String, Double> weights = new ConcurrentHashMap<>();
+
+    private volatile int maxIdleTenants = 10000;
+
+    private final Map<String, TenantCounters> idleTenants = new LinkedHashMap<String, TenantCounters>(16, 0.75f,
+            true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TenantCounters> eldest) {
+            return size() > maxIdleTenants;
+        }
+    };
+
+    private volatile int maxInFlight = 0;
+
+    private volatile int maxQueued = 0;
+
+    private volatile double agingRate = 1;
+
+    private long sequence = 0;
+
+    private double virtualTime = 0;
+
+    private int size = 0;
+
+    public static String tenantOf(Object task) {
+        if (task instanceof TenantTask && ((TenantTask) task).getTenant() != null) {
+            return ((TenantTask) task).getTenant();
+        }
+        return DEFAULT_TENANT;
+    }
+
+    public static long costOf(Object task) {
+        if (task instanceof CostAwareTask) {
+            return Math.max(0, ((CostAwareTask) task).getExpectedCost());
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        String tenant = tenantOf(task);
+        lock.lock();
+        try {
+            TenantQueue queue = getTenantQueue(tenant);
+            if (maxQueued > 0 && queue.entries.size() >= maxQueued) {
+                queue.counters.rejected++;
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            long cost = costOf(task);
+            queue.entries.add(new Entry(task, cost, cost + agingRate * now, sequence++, now));
+            size++;
+            available.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return dequeue(select());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            TenantQueue queue;
+            while ((queue = select()) == null) {
+                available.await();
+            }
+            return dequeue(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            TenantQueue queue;
+            while ((queue = select()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = available.awaitNanos(nanos);
+            }
+            return dequeue(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            TenantQueue queue = select();
+            return queue == null ? null : queue.entries.peek().task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Selects the tenant whose next job has the smallest finish time, skipping
+     * tenants which reached their in flight limit
+     */
+    private TenantQueue select() {
+        TenantQueue selected = null;
+        Iterator<Map.Entry<String, TenantQueue>> iterator = tenants.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, TenantQueue> tenant = iterator.next();
+            TenantQueue queue = tenant.getValue();
+            if (queue.isIdle()) {
+                iterator.remove();
+                idleTenants.put(tenant.getKey(), queue.counters);
+                continue;
+            }
+            Entry head = queue.entries.peek();
+            if (head == null || (maxInFlight > 0 && queue.inFlight >= maxInFlight)) {
+                continue;
+            }
+            // Jobs without an estimate count as one unit of work
+            queue.nextStart = Math.max(virtualTime, queue.lastFinish);
+            queue.nextFinish = queue.nextStart + Math.max(1, head.cost) / getWeight(tenant.getKey());
+            if (selected == null || queue.nextFinish < selected.nextFinish) {
+                selected = queue;
+            }
+        }
+        return selected;
+    }
+
+    private Runnable dequeue(TenantQueue queue) {
+        if (queue == null) {
+            return null;
+        }
+        Entry entry = queue.entries.poll();
+        size--;
+        virtualTime = Math.max(virtualTime, queue.nextStart);
+        queue.lastFinish = queue.nextFinish;
+        queue.counters.dispatched++;
+        queue.counters.totalWait += System.currentTimeMillis() - entry.enqueuedAt;
+        if (entry.task instanceof TenantFutureTask) {
+            ((TenantFutureTask) entry.task).setQueue(this);
+            queue.inFlight++;
+        }
+        return entry.task;
+    }
+
+    /**
+     * Counts a job as in flight which was handed to a worker without passing
+     * the queue
+     */
+    void started(String tenant) {
+        lock.lock();
+        try {
+            getTenantQueue(tenant).inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called when a job in flight finished, the tenant may be eligible again
+     */
+    void finished(String tenant) {
+        lock.lock();
+        try {
+            TenantQueue queue = tenants.get(tenant);
+            if (queue != null && queue.inFlight > 0) {
+                queue.inFlight--;
+            }
+            if (queue != null && queue.isIdle()) {
+                tenants.remove(tenant);
+                idleTenants.put(tenant, queue.counters);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TenantQueue getTenantQueue(String tenant) {
+        TenantQueue queue = tenants.get(tenant);
+        if (queue == null) {
+            TenantCounters counters = idleTenants.remove(tenant);
+            queue = new TenantQueue(counters == null ? new TenantCounters() : counters);
+            tenants.put(tenant, queue);
+        }
+        return queue;
+    }
+
+    public double getWeight(String tenant) {
+        Double weight = weights.get(tenant);
+        return weight == null ? 1 : weight;
+    }
+
+    public void setWeight(String tenant, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight has to be positive");
+        }
+        weights.put(tenant, weight);
+    }
+
+    /**
+     * Parses weights in the form tenant:weight,tenant:weight
+     */
+    public void setWeights(String weights) {
+        for (String weight : weights.split(",")) {
+            if (weight.trim().isEmpty()) {
+                continue;
+            }
+            int separator = weight.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid tenant weight: " + weight);
+            }
+            setWeight(weight.substring(0, separator).trim(), Double.parseDouble(weight.substring(separator + 1)
+                    .trim()));
+        }
+    }
+
+    public Map<String, Double> getWeights() {
+        return new LinkedHashMap<>(weights);
+    }
+
+    /**
+     * @return The maximum number of jobs of a tenant in flight, 0 if unlimited
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        lock.lock();
+        try {
+            this.maxInFlight = maxInFlight;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The maximum number of queued jobs of a tenant, 0 if unlimited
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * @return How many milliseconds of expected cost a job is moved forward
+     *         per millisecond it waited
+     */
+    public double getAgingRate() {
+        return agingRate;
+    }
+
+    /**
+     * Sets the aging rate, it applies to jobs queued afterwards
+     */
+    public void setAgingRate(double agingRate) {
+        if (agingRate < 0) {
+            throw new IllegalArgumentException("The aging rate must not be negative");
+        }
+        this.agingRate = agingRate;
+    }
+
+    /**
+     * @return True if a new job of the tenant would be rejected
+     */
+    public boolean isQueueFull(String tenant) {
+        lock.lock();
+        try {
+            TenantQueue queue = tenants.get(tenant);
+            return maxQueued > 0 && queue != null && queue.entries.size() >= maxQueued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The maximum number of idle tenants whose statistics are kept
+     */
+    public int getMaxIdleTenants() {
+        return maxIdleTenants;
+    }
+
+    public void setMaxIdleTenants(int maxIdleTenants) {
+        this.maxIdleTenants = maxIdleTenants;
+    }
+
+    public List<TenantQueueStats> getStats() {
+        List<TenantQueueStats> stats = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            for (Map.Entry<String, TenantQueue> tenant : tenants.entrySet()) {
+                TenantQueue queue = tenant.getValue();
+                long oldest = now;
+                long expectedCost = 0;
+                for (Entry entry : queue.entries) {
+                    oldest = Math.min(oldest, entry.enqueuedAt);
+                    expectedCost += entry.cost;
+                }
+                TenantCounters counters = queue.counters;
+                TenantQueueStats tenantStats = new TenantQueueStats(tenant.getKey(), getWeight(tenant.getKey()),
+                        queue.entries.size(), queue.inFlight, counters.dispatched, counters.rejected,
+                        counters.getMeanWait(), now - oldest);
+                tenantStats.setExpectedCost(expectedCost);
+                stats.add(tenantStats);
+            }
+            for (Map.Entry<String, TenantCounters> tenant : idleTenants.entrySet()) {
+                TenantCounters counters = tenant.getValue();
+                stats.add(new TenantQueueStats(tenant.getKey(), getWeight(tenant.getKey()), 0, 0,
+                        counters.dispatched, counters.rejected, counters.getMeanWait(), 0));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public void put(Runnable task) {
+        if (!offer(task)) {
+            throw new IllegalStateException("Queue limit of tenant " + tenantOf(task) + " reached");
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        lock.lock();
+        try {
+            for (TenantQueue queue : tenants.values()) {
+                Iterator<Entry> iterator = queue.entries.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().task == task) {
+                        iterator.remove();
+                        size--;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            for (TenantQueue queue : tenants.values()) {
+                while (drained < maxElements && !queue.entries.isEmpty()) {
+                    collection.add(queue.entries.poll().task);
+                    size--;
+                    drained++;
+                }
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return An iterator over a snapshot of the queued jobs
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        final List<Runnable> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (TenantQueue queue : tenants.values()) {
+                for (Entry entry : queue.entries) {
+                    snapshot.add(entry.task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < snapshot.size();
+            }
+
+            @Override
+            public Runnable next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot.get(index++);
+            }
+
+            @Override
+            public void remove() {
+                if (index == 0) {
+                    throw new IllegalStateException();
+                }
+                FairScanQueue.this.remove(snapshot.get(index - 1));
+            }
+        };
+    }
+
+    private static class TenantQueue {
+
+        private final PriorityQueue<Entry> entries = new PriorityQueue<>();
+
+        private final TenantCounters counters;
+
+        private double lastFinish = 0;
+
+        private double nextStart = 0;
+
+        private double nextFinish = 0;
+
+        private int inFlight = 0;
+
+        public TenantQueue(TenantCounters counters) {
+            this.counters = counters;
+        }
+
+        private boolean isIdle() {
+            return entries.isEmpty() && inFlight == 0;
+        }
+    }
+
+    /**
+     * The statistics of a tenant, they outlive the queue state of the tenant
+     */
+    private static class TenantCounters {
+
+        private long dispatched = 0;
+
+        private long rejected = 0;
+
+        private long totalWait = 0;
+
+        private long getMeanWait() {
+            return dispatched == 0 ? 0 : totalWait / dispatched;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+
+        private final Runnable task;
+
+        private final long cost;
+
+        private final double rank;
+
+        private final long sequence;
+
+        private final long enqueuedAt;
+
+        public Entry(Runnable task, long cost, double rank, long sequence, long enqueuedAt) {
+            this.task = task;
+            this.cost = cost;
+            this.rank = rank;
+            this.sequence = sequence;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = Double.compare(rank, other.rank);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimates the duration of a scan job from the past scans. The estimate is
+ * the moving average of the past scans of the same host for the scan type, or
+ * of all scans of the scan type and danger level if the host was not scanned
+ * yet. Without any past scan a default per scan type is used.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class JobCostEstimator {
+
+    /**
+     * Weight of a new duration in the moving averages
+     */
+    private static final double ALPHA = 0.3;
+
+    private volatile int maxHosts = 10000;
+
+    private final Map<String, Double> hostDurations = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > maxHosts;
+        }
+    };
+
+    private final Map<String, Double> profileDurations = new LinkedHashMap<>();
+
+    JobCostEstimator() {
+    }
+
+    public static JobCostEstimator getInstance() {
+        return JobCostEstimatorHolder.INSTANCE;
+    }
+
+    private static class JobCostEstimatorHolder {
+
+        private static final JobCostEstimator INSTANCE = new JobCostEstimator();
+    }
+
+    /**
+     * @return The expected duration of the scan job in milliseconds
+     */
+    public synchronized long estimate(ScanType type, int dangerLevel, String host) {
+        Double duration = hostDurations.get(hostKey(type, dangerLevel, host));
+        if (duration == null) {
+            duration = profileDurations.get(profileKey(type, dangerLevel));
+        }
+        return duration == null ? getDefaultDuration(type) : Math.round(duration);
+    }
+
+    /**
+     * Records the duration of a finished scan job
+     */
+    public synchronized void record(ScanType type, int dangerLevel, String host, long duration) {
+        update(hostDurations, hostKey(type, dangerLevel, host), duration);
+        update(profileDurations, profileKey(type, dangerLevel), duration);
+    }
+
+    private static void update(Map<String, Double> averages, String key, long duration) {
+        Double average = averages.get(key);
+        averages.put(key, average == null ? duration : average + ALPHA * (duration - average));
+    }
+
+    /**
+     * A higher danger level runs more probes, the durations of the same host
+     * are not comparable across danger levels
+     */
+    private static String hostKey(ScanType type, int dangerLevel, String host) {
+        return type + "|" + dangerLevel + "|" + host;
+    }
+
+    private static String profileKey(ScanType type, int dangerLevel) {
+        return type + "|" + dangerLevel;
+    }
+
+    /**
+     * @return The duration assumed for a scan type without any past scan
+     */
+    static long getDefaultDuration(ScanType type) {
+        switch (type) {
+            case TLS:
+                return 60000;
+            case MAIL:
+                return 7 * 120000;
+            default:
+                return 120000;
+        }
+    }
+
+    public int getMaxHosts() {
+        return maxHosts;
+    }
+
+    public void setMaxHosts(int maxHosts) {
+        this.maxHosts = maxHosts;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+
+/**
+ * Protocol families of the scan types, each family is executed by its own
+ * worker pool
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public enum ScanFamily {
+    HTTPS,
+    MAIL;
+
+    public static ScanFamily of(ScanType type) {
+        return type == ScanType.TLS ? HTTPS : MAIL;
+    }
+
+    /**
+     * @return The name of the family as used in metric labels and
+     *         configuration keys
+     */
+    public String getId() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker pool for the scan jobs. Submitted tasks keep their tenant, so the
+ * FairScanQueue can schedule them and count the jobs of a tenant in flight.
+ * With any other queue the executor behaves like a plain ThreadPoolExecutor.
+ * The queue may be wrapped in a BorrowingQueue to lend idle workers to the
+ * pools of other scan families. All core workers are started up front, a job
+ * which is handed to a new worker directly would bypass the in flight limits
+ * of the queue.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScanThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final FairScanQueue fairQueue;
+
+    private final BorrowingQueue borrowingQueue;
+
+    public ScanThreadPoolExecutor(int poolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> queue,
+            ThreadFactory threadFactory) {
+        super(poolSize, poolSize, keepAliveTime, unit, queue, threadFactory, new TenantRejectionHandler());
+        this.borrowingQueue = queue instanceof BorrowingQueue ? (BorrowingQueue) queue : null;
+        BlockingQueue<Runnable> ownQueue = borrowingQueue != null ? borrowingQueue.getQueue() : queue;
+        this.fairQueue = ownQueue instanceof FairScanQueue ? (FairScanQueue) ownQueue : null;
+        prestartAllCoreThreads();
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        super.setCorePoolSize(corePoolSize);
+        prestartAllCoreThreads();
+    }
+
+    /**
+     * @return The borrowing queue of the pool or null if the pool does not
+     *         borrow jobs
+     */
+    public BorrowingQueue getBorrowingQueue() {
+        return borrowingQueue;
+    }
+
+    /**
+     * @return The queue of the own jobs of the pool
+     */
+    public BlockingQueue<Runnable> getOwnQueue() {
+        return borrowingQueue != null ? borrowingQueue.getQueue() : getQueue();
+    }
+
+    /**
+     * @return The fair queue of the pool or null if another queue is used
+     */
+    public FairScanQueue getFairQueue() {
+        return fairQueue;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new TenantFutureTask<>(runnable, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new TenantFutureTask<>(callable);
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        super.beforeExecute(thread, task);
+        if (fairQueue != null && task instanceof TenantFutureTask) {
+            TenantFutureTask<?> tenantTask = (TenantFutureTask<?>) task;
+            if (tenantTask.getQueue() == null) {
+                // The task was handed to a new worker without passing the queue
+                fairQueue.started(tenantTask.getTenant());
+                tenantTask.setQueue(fairQueue);
+            }
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable throwable) {
+        super.afterExecute(task, throwable);
+        if (task instanceof TenantFutureTask) {
+            // Borrowed tasks are counted by the queue of the pool they came from
+            TenantFutureTask<?> tenantTask = (TenantFutureTask<?>) task;
+            if (tenantTask.getQueue() != null) {
+                tenantTask.getQueue().finished(tenantTask.getTenant());
+            }
+        }
+        if (borrowingQueue != null) {
+            borrowingQueue.finished(task);
+        }
+    }
+
+    private static class TenantRejectionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("The worker pool is shut down");
+            }
+            throw new RejectedExecutionException("Queue limit of tenant " + FairScanQueue.tenantOf(task)
+                    + " reached");
+        }
+    }
+}
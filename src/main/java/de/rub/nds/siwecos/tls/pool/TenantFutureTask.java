@@ -0,0 +1,63 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * FutureTask which keeps the tenant and the expected cost of the submitted
+ * task, so the FairScanQueue can schedule it and account it while it is
+ * running
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TenantFutureTask<V> extends FutureTask<V> implements TenantTask, CostAwareTask {
+
+    private final String tenant;
+
+    private final long expectedCost;
+
+    private volatile FairScanQueue queue = null;
+
+    public TenantFutureTask(Runnable runnable, V result) {
+        super(runnable, result);
+        this.tenant = FairScanQueue.tenantOf(runnable);
+        this.expectedCost = FairScanQueue.costOf(runnable);
+    }
+
+    public TenantFutureTask(Callable<V> callable) {
+        super(callable);
+        this.tenant = FairScanQueue.tenantOf(callable);
+        this.expectedCost = FairScanQueue.costOf(callable);
+    }
+
+    @Override
+    public String getTenant() {
+        return tenant;
+    }
+
+    @Override
+    public long getExpectedCost() {
+        return expectedCost;
+    }
+
+    /**
+     * @return The queue which counts the task as in flight, null if the task
+     *         was not dispatched by a FairScanQueue yet
+     */
+    FairScanQueue getQueue() {
+        return queue;
+    }
+
+    void setQueue(FairScanQueue queue) {
+        this.queue = queue;
+    }
+}
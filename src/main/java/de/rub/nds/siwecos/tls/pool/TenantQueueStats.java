@@ -0,0 +1,134 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+/**
+ * Queue statistics of a tenant
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TenantQueueStats {
+
+    private String tenant;
+
+    private double weight;
+
+    private int queued;
+
+    private int inFlight;
+
+    private long dispatched;
+
+    private long rejected;
+
+    private long averageWait;
+
+    private long oldestQueued;
+
+    private long expectedCost;
+
+    public TenantQueueStats(String tenant, double weight, int queued, int inFlight, long dispatched, long rejected,
+            long averageWait, long oldestQueued) {
+        this.tenant = tenant;
+        this.weight = weight;
+        this.queued = queued;
+        this.inFlight = inFlight;
+        this.dispatched = dispatched;
+        this.rejected = rejected;
+        this.averageWait = averageWait;
+        this.oldestQueued = oldestQueued;
+    }
+
+    public TenantQueueStats() {
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    public void setDispatched(long dispatched) {
+        this.dispatched = dispatched;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * @return The average time in milliseconds the dispatched jobs waited in
+     *         the queue
+     */
+    public long getAverageWait() {
+        return averageWait;
+    }
+
+    public void setAverageWait(long averageWait) {
+        this.averageWait = averageWait;
+    }
+
+    /**
+     * @return The time in milliseconds the oldest queued job is waiting
+     */
+    public long getOldestQueued() {
+        return oldestQueued;
+    }
+
+    public void setOldestQueued(long oldestQueued) {
+        this.oldestQueued = oldestQueued;
+    }
+
+    /**
+     * @return The sum of the expected durations of the queued jobs in
+     *         milliseconds
+     */
+    public long getExpectedCost() {
+        return expectedCost;
+    }
+
+    public void setExpectedCost(long expectedCost) {
+        this.expectedCost = expectedCost;
+    }
+}
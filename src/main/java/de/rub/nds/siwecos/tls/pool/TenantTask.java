@@ -0,0 +1,23 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+/**
+ * A task which is executed on behalf of a tenant
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public interface TenantTask {
+
+    /**
+     * @return The id of the tenant, derived from the callback urls
+     */
+    public String getTenant();
+}
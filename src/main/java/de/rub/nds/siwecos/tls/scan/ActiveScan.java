@@ -0,0 +1,223 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scan job which is currently executed by a worker. The executors of the
+ * scan report the progress of the job, the watchdog of the ScanRegistry uses
+ * it to find hanging scans.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ActiveScan {
+
+    private final long id;
+
+    private final String tenant;
+
+    private final String host;
+
+    private final Thread worker;
+
+    private final long startedAt;
+
+    private volatile String scanType;
+
+    private volatile long lastProgressAt;
+
+    private volatile boolean hung = false;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Set once the worker is done with the scan, the guarded worker thread
+     * may already run cleanup or the next job then
+     */
+    private boolean finished = false;
+
+    private final AtomicInteger handshakes = new AtomicInteger(0);
+
+    private final AtomicInteger completedProbes = new AtomicInteger(0);
+
+    private final Map<Thread, String> runningProbes = new ConcurrentHashMap<>();
+
+    private final List<WsScanJobExecutor> executors = new CopyOnWriteArrayList<>();
+
+    ActiveScan(long id, String tenant, String host, String scanType, Thread worker) {
+        this.id = id;
+        this.tenant = tenant;
+        this.host = host;
+        this.scanType = scanType;
+        this.worker = worker;
+        this.startedAt = System.currentTimeMillis();
+        this.lastProgressAt = startedAt;
+    }
+
+    public void progress() {
+        lastProgressAt = System.currentTimeMillis();
+        hung = false;
+    }
+
+    void probeStarted(String probe) {
+        runningProbes.put(Thread.currentThread(), probe);
+        progress();
+    }
+
+    void probeFinished() {
+        runningProbes.remove(Thread.currentThread());
+        completedProbes.incrementAndGet();
+        progress();
+    }
+
+    void taskFinished(boolean handshake) {
+        if (handshake) {
+            handshakes.incrementAndGet();
+        }
+        progress();
+    }
+
+    /**
+     * Registers the executor of the current port, it is shut down when the
+     * scan is cancelled
+     */
+    void addExecutor(WsScanJobExecutor executor) {
+        executors.add(executor);
+        if (cancelled) {
+            executor.cancel();
+        }
+    }
+
+    void removeExecutor(WsScanJobExecutor executor) {
+        executors.remove(executor);
+    }
+
+    /**
+     * Cancels the scan by stopping its probes and interrupting the worker.
+     * Cancelling and finishing exclude each other, a finished scan is not
+     * cancelled anymore.
+     *
+     * @return True if the scan was cancelled, false if it already finished
+     */
+    public synchronized boolean cancel() {
+        if (finished) {
+            return false;
+        }
+        cancelled = true;
+        for (WsScanJobExecutor executor : executors) {
+            executor.cancel();
+        }
+        worker.interrupt();
+        return true;
+    }
+
+    /**
+     * Marks the scan as finished by the worker, no interrupt of a
+     * cancellation reaches the worker after this returned
+     */
+    synchronized void finish() {
+        finished = true;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    void setHung(boolean hung) {
+        this.hung = hung;
+    }
+
+    /**
+     * @return The stack traces of the worker and of the threads running
+     *         probes of this scan
+     */
+    public String captureStacks() {
+        List<Thread> threads = new ArrayList<>();
+        threads.add(worker);
+        threads.addAll(runningProbes.keySet());
+        StringBuilder builder = new StringBuilder();
+        for (Thread thread : threads) {
+            builder.append('"').append(thread.getName()).append("\" ").append(thread.getState());
+            String probe = runningProbes.get(thread);
+            if (probe != null) {
+                builder.append(" (").append(probe).append(')');
+            }
+            builder.append('\n');
+            for (StackTraceElement element : thread.getStackTrace()) {
+                builder.append("\tat ").append(element).append('\n');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public String getScanType() {
+        return scanType;
+    }
+
+    public void setScanType(String scanType) {
+        this.scanType = scanType;
+        progress();
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsed() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    public long getLastProgressAt() {
+        return lastProgressAt;
+    }
+
+    public long getTimeSinceProgress() {
+        return System.currentTimeMillis() - lastProgressAt;
+    }
+
+    public List<String> getCurrentProbes() {
+        return new ArrayList<>(runningProbes.values());
+    }
+
+    public int getHandshakes() {
+        return handshakes.get();
+    }
+
+    public int getCompletedProbes() {
+        return completedProbes.get();
+    }
+
+    public boolean isHung() {
+        return hung;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.CertificateTestInfo;
+import de.rub.nds.siwecos.tls.json.CiphersuitesTestInfo;
+import de.rub.nds.siwecos.tls.json.DateTestInfo;
+import de.rub.nds.siwecos.tls.json.ErrorTestInfo;
+import de.rub.nds.siwecos.tls.json.HashTestInfo;
+import de.rub.nds.siwecos.tls.json.HostTestInfo;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.json.TestInfo;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Persists the results of finished scans per job in a local directory. A job
+ * which is submitted again, or which was interrupted by a restart, is resumed
+ * from the stored results instead of scanning the finished ports again. The
+ * checkpoints of a job are removed once its results were delivered.
+ * Checkpoints are stored per port, a single port scan which is interrupted
+ * halfway is scanned again from the start.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class CheckpointStore {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(CheckpointStore.class
+            .getName());
+
+    private static final String JOB_FILE = "job.json";
+
+    private volatile boolean enabled = true;
+
+    private volatile File directory = new File("checkpoints");
+
+    private volatile long maxAge = 24 * 60 * 60 * 1000;
+
+    private final Set<String> activeJobs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final ObjectMapper mapper;
+
+    CheckpointStore() {
+        mapper = new ObjectMapper();
+        mapper.addMixIn(TestInfo.class, TestInfoMixin.class);
+        mapper.addMixIn(ScanResult.class, ScanResultMixin.class);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static CheckpointStore getInstance() {
+        return CheckpointStoreHolder.INSTANCE;
+    }
+
+    private static class CheckpointStoreHolder {
+
+        private static final CheckpointStore INSTANCE = new CheckpointStore();
+    }
+
+    public String getJobId(ScanRequest request, ScanType type) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(type).append('|').append(request.getUrl()).append('|').append(request.getDangerLevel());
+        for (String callback : request.getCallbackurls()) {
+            builder.append('|').append(callback);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Registers the job and persists its description so it can be resumed
+     * after a restart.
+     *
+     * @param request
+     *            The request of the job
+     * @param type
+     *            The type of the job
+     * @return The id of the job or null if the job should not be checkpointed
+     */
+    public String begin(ScanRequest request, ScanType type) {
+        if (!enabled) {
+            return null;
+        }
+        String jobId = getJobId(request, type);
+        if (!activeJobs.add(jobId)) {
+            LOGGER.warn("Job " + jobId + " is already running, not checkpointing the duplicate");
+            return null;
+        }
+        File jobDirectory = new File(directory, jobId);
+        File jobFile = new File(jobDirectory, JOB_FILE);
+        if (jobFile.exists()) {
+            LOGGER.info("Resuming job " + jobId + " for " + request.getUrl() + " (" + type + ")");
+        } else {
+            try {
+                write(jobDirectory, JOB_FILE, mapper.writeValueAsString(new PendingJob(request, type, System
+                        .currentTimeMillis())));
+            } catch (IOException ex) {
+                LOGGER.warn("Could not create checkpoint for job " + jobId, ex);
+            }
+        }
+        return jobId;
+    }
+
+    /**
+     * @return The stored result of the scan or null if there is no checkpoint
+     */
+    public ScanResult load(String jobId, ScanType type) {
+        if (jobId == null) {
+            return null;
+        }
+        File file = new File(new File(directory, jobId), type.name() + ".json");
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            ScanResult result = mapper.readValue(file, ScanResult.class);
+            LOGGER.info("Loaded checkpointed " + type + " result of job " + jobId);
+            return result;
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read checkpoint " + file.getAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    public void save(String jobId, ScanType type, ScanResult result) {
+        if (jobId == null) {
+            return;
+        }
+        if (result.isHasError() && result.getErrorMessage() != null
+                && "REPORT_CONSTRUCTION".equals(result.getErrorMessage().getTranslationStringId())) {
+            return;
+        }
+        try {
+            write(new File(directory, jobId), type.name() + ".json", mapper.writeValueAsString(result));
+        } catch (IOException ex) {
+            LOGGER.warn("Could not checkpoint " + type + " result of job " + jobId, ex);
+        }
+    }
+
+    /**
+     * Removes all checkpoints of a job once its results were delivered.
+     */
+    public void finish(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+        delete(new File(directory, jobId));
+        activeJobs.remove(jobId);
+    }
+
+    /**
+     * Returns the jobs which were started but never finished, e.g. because
+     * the service was restarted. Checkpoints which are older than the maximum
+     * age are deleted.
+     */
+    public List<PendingJob> getPendingJobs() {
+        List<PendingJob> pendingJobs = new LinkedList<>();
+        File[] jobDirectories = directory.listFiles();
+        if (!enabled || jobDirectories == null) {
+            return pendingJobs;
+        }
+        for (File jobDirectory : jobDirectories) {
+            File jobFile = new File(jobDirectory, JOB_FILE);
+            if (activeJobs.contains(jobDirectory.getName())) {
+                continue;
+            }
+            if (!jobFile.exists() || System.currentTimeMillis() - jobFile.lastModified() > maxAge) {
+                LOGGER.info("Removing stale checkpoint " + jobDirectory.getName());
+                delete(jobDirectory);
+                continue;
+            }
+            try {
+                pendingJobs.add(mapper.readValue(jobFile, PendingJob.class));
+            } catch (IOException ex) {
+                LOGGER.warn("Could not read checkpoint " + jobFile.getAbsolutePath(), ex);
+                delete(jobDirectory);
+            }
+        }
+        return pendingJobs;
+    }
+
+    private void write(File jobDirectory, String name, String content) throws IOException {
+        if (!jobDirectory.isDirectory() && !jobDirectory.mkdirs()) {
+            throw new IOException("Could not create " + jobDirectory.getAbsolutePath());
+        }
+        File temp = new File(jobDirectory, name + ".tmp");
+        Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), new File(jobDirectory, name).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Could not delete " + file.getAbsolutePath());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public static class PendingJob {
+
+        private ScanRequest request;
+
+        private ScanType type;
+
+        private long startedAt;
+
+        public PendingJob(ScanRequest request, ScanType type, long startedAt) {
+            this.request = request;
+            this.type = type;
+            this.startedAt = startedAt;
+        }
+
+        public PendingJob() {
+        }
+
+        public ScanRequest getRequest() {
+            return request;
+        }
+
+        public void setRequest(ScanRequest request) {
+            this.request = request;
+        }
+
+        public ScanType getType() {
+            return type;
+        }
+
+        public void setType(ScanType type) {
+            this.type = type;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public void setStartedAt(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Only the known result types can be read back, a checkpoint file must not
+     * be able to choose an arbitrary class
+     */
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "@type")
+    @JsonSubTypes({ @JsonSubTypes.Type(value = CertificateTestInfo.class, name = "certificate"),
+            @JsonSubTypes.Type(value = CiphersuitesTestInfo.class, name = "ciphersuites"),
+            @JsonSubTypes.Type(value = DateTestInfo.class, name = "date"),
+            @JsonSubTypes.Type(value = ErrorTestInfo.class, name = "error"),
+            @JsonSubTypes.Type(value = HashTestInfo.class, name = "hash"),
+            @JsonSubTypes.Type(value = HostTestInfo.class, name = "host") })
+    private abstract static class TestInfoMixin {
+    }
+
+    private abstract static class ScanResultMixin {
+
+        @JsonIgnore
+        abstract DebugOutput getDebugOutput();
+
+        @JsonIgnore
+        abstract void setDebugOutput(DebugOutput debugOutput);
+    }
+}
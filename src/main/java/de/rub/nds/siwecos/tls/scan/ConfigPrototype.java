@@ -0,0 +1,67 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsattacker.core.config.Config;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * A TLS-Attacker Config which is built once and handed out as deep copies.
+ * Loading the default Config unmarshals its XML, the probes of a scan create
+ * dozens of Configs. The prototype is kept serialized, a copy only has to be
+ * deserialized and shares no state with the prototype or other copies.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+final class ConfigPrototype {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ConfigPrototype.class
+            .getName());
+
+    private final byte[] serialized;
+
+    private ConfigPrototype(byte[] serialized) {
+        this.serialized = serialized;
+    }
+
+    /**
+     * @return The prototype of the config or null if the config cannot be
+     *         serialized, the configs have to be built from scratch then
+     */
+    static ConfigPrototype of(Config config) {
+        if (config == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(config);
+        } catch (IOException E) {
+            LOGGER.warn("Could not serialize the config prototype, configs are built from scratch", E);
+            return null;
+        }
+        return new ConfigPrototype(bytes.toByteArray());
+    }
+
+    /**
+     * @return A new deep copy of the prototype
+     */
+    Config createCopy() {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (Config) input.readObject();
+        } catch (IOException | ClassNotFoundException E) {
+            throw new IllegalStateException("Could not copy the config prototype", E);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import java.net.BindException;
+import java.net.SocketException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node wide budget for the outbound connections of all scans. A task of a
+ * probe needs a connection permit before it connects, the permits are handed
+ * out in the order the tasks asked for them. In addition the rate of new
+ * handshakes is limited by a token bucket, whose slots are also reserved in
+ * order of arrival. A task which does not get a permit within the maximum
+ * wait time fails with a {@link LocalResourceException}.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ConnectionBudget {
+
+    private final AdjustableSemaphore connections = new AdjustableSemaphore();
+
+    private volatile int maxConnections = 0;
+
+    private volatile double handshakesPerSecond = 0;
+
+    private volatile long maxWait = 5 * 60 * 1000;
+
+    private long nextSlot = 0;
+
+    private final AtomicInteger waiting = new AtomicInteger(0);
+
+    private final AtomicLong totalWait = new AtomicLong(0);
+
+    private final AtomicLong timeouts = new AtomicLong(0);
+
+    ConnectionBudget() {
+    }
+
+    public static ConnectionBudget getInstance() {
+        return ConnectionBudgetHolder.INSTANCE;
+    }
+
+    private static class ConnectionBudgetHolder {
+
+        private static final ConnectionBudget INSTANCE = new ConnectionBudget();
+    }
+
+    /**
+     * @return True if connections or handshakes are limited
+     */
+    public boolean isEnabled() {
+        return maxConnections > 0 || handshakesPerSecond > 0;
+    }
+
+    /**
+     * Waits for a connection permit and a handshake slot
+     *
+     * @return True if a connection permit was taken, which has to be returned
+     *         with {@link #release()}
+     */
+    public boolean acquire() throws InterruptedException {
+        if (!isEnabled()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        waiting.incrementAndGet();
+        boolean permit = false;
+        try {
+            if (maxConnections > 0) {
+                if (!connections.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                    timeouts.incrementAndGet();
+                    throw new LocalResourceException("No connection permit within " + maxWait + "ms, "
+                            + maxConnections + " connections in use");
+                }
+                permit = true;
+            }
+            long delay = reserveHandshake();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            return permit;
+        } catch (InterruptedException | RuntimeException E) {
+            if (permit) {
+                connections.release();
+            }
+            throw E;
+        } finally {
+            waiting.decrementAndGet();
+            totalWait.addAndGet(System.currentTimeMillis() - start);
+        }
+    }
+
+    public void release() {
+        connections.release();
+    }
+
+    /**
+     * Reserves the next handshake slot. Up to one second worth of handshakes
+     * can be started at once after an idle period.
+     *
+     * @return The time in nanoseconds until the slot is reached
+     */
+    synchronized long reserveHandshake() {
+        double rate = handshakesPerSecond;
+        if (rate <= 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long burst = Math.max(interval, TimeUnit.SECONDS.toNanos(1));
+        if (nextSlot < now - burst + interval) {
+            nextSlot = now - burst + interval;
+        }
+        long slot = nextSlot;
+        nextSlot += interval;
+        return slot - now;
+    }
+
+    /**
+     * @return True if the failure was caused by exhausted resources of the
+     *         scanning node, like file descriptors or ephemeral ports
+     */
+    public static boolean isLocalExhaustion(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof LocalResourceException || cause instanceof BindException) {
+                return true;
+            }
+            String message = cause.getMessage();
+            if (cause instanceof SocketException && message != null
+                    && (message.contains("Too many open files") || message.contains("Cannot assign requested address")
+                    || message.contains("No buffer space available"))) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @return The maximum number of concurrent connections, 0 if unlimited
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public synchronized void setMaxConnections(int maxConnections) {
+        int current = Math.max(0, this.maxConnections);
+        int target = Math.max(0, maxConnections);
+        if (target > current) {
+            connections.release(target - current);
+        } else if (target < current) {
+            connections.reducePermits(current - target);
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return The maximum rate of new handshakes, 0 if unlimited
+     */
+    public double getHandshakesPerSecond() {
+        return handshakesPerSecond;
+    }
+
+    public void setHandshakesPerSecond(double handshakesPerSecond) {
+        this.handshakesPerSecond = handshakesPerSecond;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public int getConnectionsInUse() {
+        return maxConnections <= 0 ? 0 : Math.max(0, maxConnections - connections.availablePermits());
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return The time all tasks waited for the budget in milliseconds
+     */
+    public long getTotalWait() {
+        return totalWait.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    private static class AdjustableSemaphore extends Semaphore {
+
+        public AdjustableSemaphore() {
+            super(0, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Cheap fingerprint of a TLS endpoint, computed from the results of the first
+ * scan phase. Two ports with the same fingerprint are very likely terminated by
+ * the same TLS stack with the same configuration.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class EndpointFingerprint {
+
+    private EndpointFingerprint() {
+    }
+
+    /**
+     * Fingerprint over the certificate, the supported protocol versions, the
+     * supported cipher suites and whether the server enforces its cipher suite
+     * order.
+     *
+     * @param report
+     *            The report after the first scan phase
+     * @return The fingerprint or null if the report does not contain enough
+     *         information
+     */
+    public static String of(SiteReport report) {
+        if (report.getCertificate() == null) {
+            return null;
+        }
+        String stack = stackOf(report);
+        if (stack == null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream certificate = new ByteArrayOutputStream();
+            report.getCertificate().encode(certificate);
+            return hash(stack + "|" + toHex(certificate.toByteArray()));
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprint over the TLS configuration of the endpoint which does not
+     * depend on the requested host name, i.e. without the certificate.
+     *
+     * @param report
+     *            The report after the first scan phase
+     * @return The fingerprint or null if the report does not contain enough
+     *         information
+     */
+    public static String stackOf(SiteReport report) {
+        if (report.getVersions() == null || report.getCipherSuites() == null
+                || report.getEnforcesCipherSuiteOrdering() == null) {
+            return null;
+        }
+        SortedSet<String> versions = new TreeSet<>();
+        for (ProtocolVersion version : report.getVersions()) {
+            versions.add(version.name());
+        }
+        SortedSet<String> suites = new TreeSet<>();
+        for (CipherSuite suite : report.getCipherSuites()) {
+            suites.add(suite.name());
+        }
+        return hash(versions + "|" + suites + "|" + report.getEnforcesCipherSuiteOrdering());
+    }
+
+    private static String hash(String value) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
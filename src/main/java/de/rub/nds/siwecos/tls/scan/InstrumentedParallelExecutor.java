@@ -0,0 +1,206 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.accounting.ScanCost;
+import de.rub.nds.siwecos.tls.ws.ProbeDebugOutput;
+import de.rub.nds.tlsattacker.core.record.AbstractRecord;
+import de.rub.nds.tlsattacker.core.state.State;
+import de.rub.nds.tlsattacker.core.workflow.ParallelExecutor;
+import de.rub.nds.tlsattacker.core.workflow.WorkflowTrace;
+import de.rub.nds.tlsattacker.core.workflow.action.ReceivingAction;
+import de.rub.nds.tlsattacker.core.workflow.action.SendingAction;
+import de.rub.nds.tlsattacker.core.workflow.task.ITask;
+import de.rub.nds.tlsattacker.core.workflow.task.StateExecutionTask;
+import de.rub.nds.tlsattacker.core.workflow.task.TlsTask;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * ParallelExecutor which accounts the tasks it executes to the probe that
+ * submitted them, to the cost of the scan job and to its progress. The probe
+ * is taken from the submitting thread, see
+ * {@link #setCurrentProbe(ProbeDebugOutput)}. Each task waits for the node
+ * wide {@link ConnectionBudget} before it connects, this wait is accounted
+ * separately from the wait for a thread of the executor.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class InstrumentedParallelExecutor extends ParallelExecutor {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager
+            .getLogger(InstrumentedParallelExecutor.class.getName());
+
+    private static final ThreadLocal<ProbeDebugOutput> CURRENT_PROBE = new ThreadLocal<>();
+
+    private volatile ScanCost cost = null;
+
+    private volatile ActiveScan activeScan = null;
+
+    public InstrumentedParallelExecutor(int size, int reexecutions, ThreadFactory threadFactory) {
+        super(size, reexecutions, threadFactory);
+    }
+
+    /**
+     * Sets the probe to which the tasks submitted by the current thread are
+     * accounted, null removes it
+     */
+    public static void setCurrentProbe(ProbeDebugOutput probe) {
+        if (probe == null) {
+            CURRENT_PROBE.remove();
+        } else {
+            CURRENT_PROBE.set(probe);
+        }
+    }
+
+    @Override
+    public Future addTask(TlsTask task) {
+        ProbeDebugOutput probe = CURRENT_PROBE.get();
+        if (probe == null && cost == null && activeScan == null && !ConnectionBudget.getInstance().isEnabled()) {
+            return super.addTask(task);
+        }
+        return super.addTask(new AccountedTask(task, probe, cost, activeScan, System.currentTimeMillis()));
+    }
+
+    public ScanCost getCost() {
+        return cost;
+    }
+
+    /**
+     * @param cost
+     *            The cost of the scan job to which the CPU time and
+     *            allocations of the executed tasks are added
+     */
+    public void setCost(ScanCost cost) {
+        this.cost = cost;
+    }
+
+    public ActiveScan getActiveScan() {
+        return activeScan;
+    }
+
+    /**
+     * @param activeScan
+     *            The scan whose progress is updated by the executed tasks
+     */
+    public void setActiveScan(ActiveScan activeScan) {
+        this.activeScan = activeScan;
+    }
+
+    static long countBytes(List<AbstractRecord> records) {
+        long bytes = 0;
+        if (records != null) {
+            for (AbstractRecord record : records) {
+                if (record.getCompleteRecordBytes() != null && record.getCompleteRecordBytes().getValue() != null) {
+                    bytes += record.getCompleteRecordBytes().getValue().length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static class AccountedTask extends TlsTask {
+
+        private final TlsTask task;
+
+        private final ProbeDebugOutput probe;
+
+        private final ScanCost cost;
+
+        private final ActiveScan activeScan;
+
+        private final long submittedAt;
+
+        public AccountedTask(TlsTask task, ProbeDebugOutput probe, ScanCost cost, ActiveScan activeScan,
+                long submittedAt) {
+            super(0);
+            this.task = task;
+            this.probe = probe;
+            this.cost = cost;
+            this.activeScan = activeScan;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public ITask call() {
+            long startedAt = System.currentTimeMillis();
+            boolean permit;
+            try {
+                permit = ConnectionBudget.getInstance().acquire();
+            } catch (InterruptedException E) {
+                // The scan was cancelled
+                Thread.currentThread().interrupt();
+                return task;
+            } catch (LocalResourceException E) {
+                if (probe != null) {
+                    probe.addLocalFailure();
+                }
+                throw E;
+            }
+            long executorWait = startedAt - submittedAt;
+            long budgetWait = System.currentTimeMillis() - startedAt;
+            long[] snapshot = cost == null ? null : ScanCost.snapshot();
+            try {
+                return task.call();
+            } finally {
+                if (permit) {
+                    ConnectionBudget.getInstance().release();
+                }
+                if (probe != null || activeScan != null) {
+                    account(executorWait, budgetWait);
+                }
+                if (cost != null) {
+                    cost.addSince(snapshot);
+                }
+            }
+        }
+
+        private void account(long executorWait, long budgetWait) {
+            long sent = 0;
+            long received = 0;
+            boolean connected = false;
+            try {
+                if (task instanceof StateExecutionTask) {
+                    State state = ((StateExecutionTask) task).getState();
+                    WorkflowTrace trace = state == null ? null : state.getWorkflowTrace();
+                    if (trace != null) {
+                        connected = true;
+                        for (SendingAction action : trace.getSendingActions()) {
+                            sent += countBytes(action.getSendRecords());
+                        }
+                        for (ReceivingAction action : trace.getReceivingActions()) {
+                            received += countBytes(action.getReceivedRecords());
+                        }
+                    }
+                }
+            } catch (RuntimeException E) {
+                LOGGER.debug("Could not account task", E);
+            }
+            if (probe != null) {
+                probe.addTask(executorWait, budgetWait, connected, received > 0, sent, received);
+            }
+            if (activeScan != null) {
+                activeScan.taskFinished(received > 0);
+            }
+        }
+
+        @Override
+        public void execute() {
+            task.execute();
+        }
+
+        @Override
+        public void reset() {
+            task.reset();
+        }
+    }
+}
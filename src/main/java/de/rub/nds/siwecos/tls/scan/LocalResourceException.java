@@ -0,0 +1,23 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+/**
+ * Thrown if a connection could not be opened because the resources of the
+ * scanning node are exhausted, not because of the scanned server
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class LocalResourceException extends RuntimeException {
+
+    public LocalResourceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import java.io.EOFException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Decides which probe failures are transient and how often a failed probe is
+ * executed again.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ProbeRetryPolicy {
+
+    private volatile int maxRetries = 2;
+
+    private volatile long backoff = 1000;
+
+    ProbeRetryPolicy() {
+    }
+
+    public static ProbeRetryPolicy getInstance() {
+        return ProbeRetryPolicyHolder.INSTANCE;
+    }
+
+    private static class ProbeRetryPolicyHolder {
+
+        private static final ProbeRetryPolicy INSTANCE = new ProbeRetryPolicy();
+    }
+
+    /**
+     * A failure is considered transient if it was caused by a connection reset,
+     * a refused connection, a timeout, a prematurely closed stream or by
+     * exhausted resources of the scanning node.
+     *
+     * @param throwable
+     *            The failure of the probe
+     * @return True if the probe should be executed again
+     */
+    public boolean isTransient(Throwable throwable) {
+        if (ConnectionBudget.isLocalExhaustion(throwable)) {
+            return true;
+        }
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof SocketException || cause instanceof SocketTimeoutException
+                    || cause instanceof EOFException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    public boolean shouldRetry(Throwable throwable, int attempt) {
+        return attempt <= maxRetries && isTransient(throwable);
+    }
+
+    /**
+     * @param attempt
+     *            The number of the retry, starting at 1
+     * @return The time in milliseconds to wait before the retry
+     */
+    public long getBackoff(int attempt) {
+        return backoff * attempt;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(long backoff) {
+        this.backoff = backoff;
+    }
+}
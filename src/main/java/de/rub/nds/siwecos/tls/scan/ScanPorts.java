@@ -0,0 +1,106 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The ports which are scanned for each scan type. The well known ports are
+ * used unless they are overridden, e.g. to scan test servers on unprivileged
+ * ports.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScanPorts {
+
+    private final Map<ScanType, Integer> overrides = new EnumMap<>(ScanType.class);
+
+    ScanPorts() {
+    }
+
+    public static ScanPorts getInstance() {
+        return ScanPortsHolder.INSTANCE;
+    }
+
+    private static class ScanPortsHolder {
+
+        private static final ScanPorts INSTANCE = new ScanPorts();
+    }
+
+    public synchronized int getPort(ScanType type) {
+        Integer port = overrides.get(type);
+        return port == null ? getDefaultPort(type) : port;
+    }
+
+    public synchronized void setPort(ScanType type, int port) {
+        overrides.put(type, port);
+    }
+
+    /**
+     * Overrides the ports of several scan types
+     *
+     * @param ports
+     *            Comma separated list of type:port pairs, e.g.
+     *            "SMTP_TLS:2525,IMAP_TLS:1143"
+     */
+    public synchronized void setPorts(String ports) {
+        for (String entry : ports.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid port override: " + entry);
+            }
+            overrides.put(ScanType.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+    }
+
+    /**
+     * @return The overridden ports as comma separated list of type:port pairs
+     */
+    public synchronized String getPorts() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<ScanType, Integer> entry : overrides.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(",");
+            }
+            builder.append(entry.getKey()).append(":").append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    public synchronized void reset() {
+        overrides.clear();
+    }
+
+    static int getDefaultPort(ScanType type) {
+        switch (type) {
+            case IMAP_TLS:
+                return 143;
+            case IMAPS_TLS:
+                return 993;
+            case POP3_TLS:
+                return 110;
+            case POP3S_TLS:
+                return 995;
+            case SMTP_TLS:
+                return 25;
+            case SMTP_MSA_TLS:
+                return 587;
+            case SMTPS_TLS:
+                return 465;
+            default:
+                return 443;
+        }
+    }
+}
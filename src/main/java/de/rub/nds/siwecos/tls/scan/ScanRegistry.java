@@ -0,0 +1,154 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Registry of the scans which are currently executed by the workers. A
+ * watchdog periodically checks the registered scans and flags scans which
+ * made no progress for the stall timeout. The stacks of a flagged scan are
+ * logged and, if enabled, the scan is cancelled.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScanRegistry {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(ScanRegistry.class
+            .getName());
+
+    private final Map<Long, ActiveScan> scans = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextId = new AtomicLong(0);
+
+    private volatile boolean cancelHungScans = false;
+
+    private ScheduledExecutorService watchdog = null;
+
+    ScanRegistry() {
+    }
+
+    public static ScanRegistry getInstance() {
+        return ScanRegistryHolder.INSTANCE;
+    }
+
+    private static class ScanRegistryHolder {
+
+        private static final ScanRegistry INSTANCE = new ScanRegistry();
+    }
+
+    /**
+     * Registers a scan which is executed by the current thread
+     */
+    public ActiveScan register(String tenant, String host, String scanType) {
+        startWatchdog();
+        ActiveScan scan = new ActiveScan(nextId.incrementAndGet(), tenant, host, scanType, Thread.currentThread());
+        scans.put(scan.getId(), scan);
+        return scan;
+    }
+
+    /**
+     * Unregisters the scan of the current thread. If the scan was cancelled
+     * the interrupt of the cancellation is still pending and has to be
+     * cleared by the caller.
+     */
+    public void unregister(ActiveScan scan) {
+        scan.finish();
+        scans.remove(scan.getId());
+    }
+
+    public ActiveScan get(long id) {
+        return scans.get(id);
+    }
+
+    public List<ActiveScan> getScans() {
+        return new ArrayList<>(scans.values());
+    }
+
+    /**
+     * Flags the scans which made no progress for the stall timeout. A stall
+     * timeout of 0 disables the check.
+     */
+    public void check() {
+        long stallTimeout = getStallTimeout();
+        if (stallTimeout == 0) {
+            return;
+        }
+        for (ActiveScan scan : scans.values()) {
+            if (scan.isHung() || scan.getTimeSinceProgress() < stallTimeout) {
+                continue;
+            }
+            scan.setHung(true);
+            LOGGER.warn("Scan " + scan.getId() + " of " + scan.getHost() + " for " + scan.getScanType()
+                    + " made no progress for " + scan.getTimeSinceProgress() + "ms, running probes: "
+                    + scan.getCurrentProbes() + "\n" + scan.captureStacks());
+            if (cancelHungScans && scan.cancel()) {
+                LOGGER.warn("Cancelled hung scan " + scan.getId());
+            }
+        }
+    }
+
+    private synchronized void startWatchdog() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Watchdog"));
+        watchdog.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    check();
+                } catch (RuntimeException E) {
+                    LOGGER.warn("Watchdog check failed", E);
+                }
+            }
+        }, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return The number of running scans which are flagged as hung
+     */
+    public int getHungScans() {
+        int hung = 0;
+        for (ActiveScan scan : scans.values()) {
+            if (scan.isHung()) {
+                hung++;
+            }
+        }
+        return hung;
+    }
+
+    public long getStallTimeout() {
+        return ConfigManager.getInstance().getConfig().getStallTimeout();
+    }
+
+    public void setStallTimeout(long stallTimeout) {
+        ConfigManager.getInstance().update(WsConfig.STALL_TIMEOUT, stallTimeout);
+    }
+
+    public boolean isCancelHungScans() {
+        return cancelHungScans;
+    }
+
+    public void setCancelHungScans(boolean cancelHungScans) {
+        this.cancelHungScans = cancelHungScans;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.config.delegate.GeneralDelegate;
+import de.rub.nds.tlsattacker.core.constants.StarttlsType;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable settings of the scans of a type. The templates are built when the
+ * class is loaded and rebuilt only if the scan detail of the published
+ * settings changes, a scan only fills in its host and danger level. Every template holds a prototype
+ * of the TLS-Attacker Config, the Configs of the probes are copies of it.
+ * The ScannerConfig itself is mutable and read by the probe threads of the
+ * scan, so every scan gets its own instance.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public final class ScannerConfigTemplate {
+
+    /**
+     * Replaced as a whole when the default scan detail changes, scans which
+     * already started keep their template
+     */
+    private static volatile Map<ScanType, ScannerConfigTemplate> templates = build(getDefaultScanDetail());
+
+    private static Map<ScanType, ScannerConfigTemplate> build(ScannerDetail scanDetail) {
+        Map<ScanType, ScannerConfigTemplate> map = new EnumMap<>(ScanType.class);
+        for (ScanType type : ScanType.values()) {
+            map.put(type, new ScannerConfigTemplate(type, starttlsTypeOf(type), scanDetail));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private final ScanType type;
+
+    private final StarttlsType starttlsType;
+
+    private final ScannerDetail scanDetail;
+
+    private final ConfigPrototype prototype;
+
+    private ScannerConfigTemplate(ScanType type, StarttlsType starttlsType, ScannerDetail scanDetail) {
+        this.type = type;
+        this.starttlsType = starttlsType;
+        this.scanDetail = scanDetail;
+        this.prototype = ConfigPrototype.of(Config.createConfig());
+    }
+
+    public static ScannerConfigTemplate of(ScanType type) {
+        ScannerConfigTemplate template = templates.get(type);
+        ScannerDetail scanDetail = getDefaultScanDetail();
+        if (template.getScanDetail() != scanDetail) {
+            template = rebuild(scanDetail).get(type);
+        }
+        return template;
+    }
+
+    private static synchronized Map<ScanType, ScannerConfigTemplate> rebuild(ScannerDetail scanDetail) {
+        if (templates.get(ScanType.TLS).getScanDetail() != scanDetail) {
+            templates = build(scanDetail);
+        }
+        return templates;
+    }
+
+    public static ScannerDetail getDefaultScanDetail() {
+        return ConfigManager.getInstance().getConfig().getScanDetail();
+    }
+
+    public static void setDefaultScanDetail(ScannerDetail scanDetail) {
+        ConfigManager.getInstance().update(WsConfig.SCAN_DETAIL, scanDetail);
+    }
+
+    /**
+     * @return The STARTTLS dialog of the type or null if the handshake starts
+     *         right away
+     */
+    static StarttlsType starttlsTypeOf(ScanType type) {
+        switch (type) {
+            case IMAP_TLS:
+                return StarttlsType.IMAP;
+            case POP3_TLS:
+                return StarttlsType.POP3;
+            case SMTP_TLS:
+            case SMTP_MSA_TLS:
+                return StarttlsType.SMTP;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates the config of a single scan
+     *
+     * @param host
+     *            The host without port
+     * @param port
+     *            The port to scan
+     * @param dangerLevel
+     *            The danger level of the request
+     * @return A new config, which is not shared with other scans
+     */
+    public WsScannerConfig create(String host, int port, int dangerLevel) {
+        WsScannerConfig scannerConfig = new WsScannerConfig(new GeneralDelegate(), prototype);
+        scannerConfig.setDangerLevel(dangerLevel);
+        scannerConfig.setScanDetail(scanDetail);
+        scannerConfig.setNoProgressbar(true);
+        if (starttlsType != null) {
+            scannerConfig.getStarttlsDelegate().setStarttlsType(starttlsType);
+        }
+        scannerConfig.getClientDelegate().setHost(host + ":" + port);
+        return scannerConfig;
+    }
+
+    public ScanType getType() {
+        return type;
+    }
+
+    public StarttlsType getStarttlsType() {
+        return starttlsType;
+    }
+
+    public boolean isStarttls() {
+        return starttlsType != null && starttlsType != StarttlsType.NONE;
+    }
+
+    public ScannerDetail getScanDetail() {
+        return scanDetail;
+    }
+
+    /**
+     * @return The prototype of the Configs or null if they are built from
+     *         scratch
+     */
+    ConfigPrototype getPrototype() {
+        return prototype;
+    }
+}
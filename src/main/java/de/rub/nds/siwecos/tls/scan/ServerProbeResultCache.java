@@ -0,0 +1,167 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import de.rub.nds.tlsscanner.report.result.ProbeResult;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Node wide cache for the results of server wide probes. Virtual hosts which
+ * resolve to the same IP and port and are served by the same TLS stack share
+ * these results, host specific probes like the certificate or the cipher
+ * suites are still executed for every host. Results are only shared between
+ * scans with the same scan detail. Entries expire after a TTL and the number
+ * of entries is bounded.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ServerProbeResultCache {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager
+            .getLogger(ServerProbeResultCache.class.getName());
+
+    private volatile boolean enabled = true;
+
+    private volatile long ttl = 60 * 60 * 1000;
+
+    private volatile int maxEntries = 10000;
+
+    private final Map<String, CachedResult> cache;
+
+    ServerProbeResultCache() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public static ServerProbeResultCache getInstance() {
+        return ServerProbeResultCacheHolder.INSTANCE;
+    }
+
+    private static class ServerProbeResultCacheHolder {
+
+        private static final ServerProbeResultCache INSTANCE = new ServerProbeResultCache();
+    }
+
+    /**
+     * @param host
+     *            The scanned host in the form host:port
+     * @param report
+     *            The report after the first scan phase
+     * @param scanDetail
+     *            The scan detail of the scan, the probes test more thoroughly
+     *            with a higher detail
+     * @return The cache key for the server or null if the server cannot be
+     *         identified
+     */
+    public String getKey(String host, SiteReport report, ScannerDetail scanDetail) {
+        if (!enabled) {
+            return null;
+        }
+        String stack = EndpointFingerprint.stackOf(report);
+        int separator = host.lastIndexOf(':');
+        if (stack == null || separator < 0) {
+            return null;
+        }
+        try {
+            String ip = InetAddress.getByName(host.substring(0, separator)).getHostAddress();
+            return ip + ":" + host.substring(separator + 1) + "|" + stack + "|" + scanDetail;
+        } catch (UnknownHostException ex) {
+            LOGGER.debug("Could not resolve " + host, ex);
+            return null;
+        }
+    }
+
+    public ProbeResult get(String key, ProbeType type) {
+        if (key == null || !enabled || !SharedProbeResults.SERVER_WIDE_PROBES.contains(type)) {
+            return null;
+        }
+        CachedResult cached = cache.get(key + "|" + type);
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.getCreatedAt() > ttl) {
+            cache.remove(key + "|" + type);
+            return null;
+        }
+        return cached.getResult();
+    }
+
+    public void put(String key, ProbeType type, ProbeResult result) {
+        if (key == null || result == null || !enabled || !SharedProbeResults.SERVER_WIDE_PROBES.contains(type)) {
+            return;
+        }
+        cache.put(key + "|" + type, new CachedResult(result, System.currentTimeMillis()));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    private static class CachedResult {
+
+        private final ProbeResult result;
+
+        private final long createdAt;
+
+        public CachedResult(ProbeResult result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+
+        public ProbeResult getResult() {
+            return result;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.report.result.ProbeResult;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Results of server wide probes which are shared between the scans of one job.
+ * The MAIL scan uses this to avoid running the same server wide probes on every
+ * port of an endpoint which serves all ports from the same TLS stack.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class SharedProbeResults {
+
+    /**
+     * Probes whose result depends on the TLS implementation of the server and
+     * not on the service behind the port
+     */
+    public static final Set<ProbeType> SERVER_WIDE_PROBES = Collections.unmodifiableSet(EnumSet.of(
+            ProbeType.HEARTBLEED, ProbeType.PADDING_ORACLE, ProbeType.BLEICHENBACHER, ProbeType.EARLY_CCS));
+
+    private final Map<String, ProbeResult> results = new ConcurrentHashMap<>();
+
+    public ProbeResult get(String fingerprint, ProbeType type) {
+        if (fingerprint == null || !SERVER_WIDE_PROBES.contains(type)) {
+            return null;
+        }
+        return results.get(fingerprint + "|" + type);
+    }
+
+    public void put(String fingerprint, ProbeType type, ProbeResult result) {
+        if (fingerprint == null || result == null || !SERVER_WIDE_PROBES.contains(type)) {
+            return;
+        }
+        results.put(fingerprint + "|" + type, result);
+    }
+
+    public int size() {
+        return results.size();
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Derives connection timeouts per target from the measured round trip time.
+ * The round trip time is measured with a few TCP connects before the probes
+ * start, for STARTTLS targets the delay until the server greeting arrives is
+ * measured as well. Learned values are kept in a bounded LRU cache so
+ * subsequent scans of the same target do not have to measure again. Failed
+ * measurements are cached for a shorter time, so unreachable targets do not
+ * pay for another connect on every scan.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TimeoutManager {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(TimeoutManager.class
+            .getName());
+
+    private volatile int rttMultiplier = 8;
+
+    private volatile int rttSamples = 3;
+
+    private volatile long cacheTtl = 24 * 60 * 60 * 1000;
+
+    private volatile long failureTtl = 5 * 60 * 1000;
+
+    /**
+     * Upper bound for the wait on a STARTTLS greeting, tarpits would otherwise
+     * delay every scan by the maximum timeout
+     */
+    private volatile int greetingTimeout = 2000;
+
+    private volatile int cacheSize = 10000;
+
+    private final Map<String, LearnedTimeout> cache;
+
+    TimeoutManager() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<String, LearnedTimeout>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LearnedTimeout> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public static TimeoutManager getInstance() {
+        return TimeoutManagerHolder.INSTANCE;
+    }
+
+    private static class TimeoutManagerHolder {
+
+        private static final TimeoutManager INSTANCE = new TimeoutManager();
+    }
+
+    /**
+     * Returns the connection timeout which should be used for the target or
+     * null if the library default should be kept.
+     *
+     * @param host
+     *            Hostname of the target
+     * @param port
+     *            Port of the target
+     * @param readGreeting
+     *            True if the server sends a greeting before TLS starts
+     *            (STARTTLS)
+     * @return The timeout in milliseconds or null
+     */
+    public Integer getTimeout(String host, int port, boolean readGreeting) {
+        if (!isAdaptiveTimeouts()) {
+            return null;
+        }
+        String key = host + ":" + port;
+        LearnedTimeout learned = cache.get(key);
+        if (learned == null || isExpired(learned)) {
+            learned = measure(host, port, readGreeting);
+            if (learned == null) {
+                LOGGER.debug("Could not measure RTT of " + key + ", keeping default timeout");
+                cache.put(key, LearnedTimeout.failed(System.currentTimeMillis()));
+                return null;
+            }
+            cache.put(key, learned);
+        } else if (learned.isFailed()) {
+            return null;
+        }
+        int timeout = deriveTimeout(learned.getRtt(), learned.getGreetingDelay());
+        LOGGER.debug("Using timeout of " + timeout + "ms for " + key + " (rtt=" + learned.getRtt() + "ms, greeting="
+                + learned.getGreetingDelay() + "ms)");
+        return timeout;
+    }
+
+    private boolean isExpired(LearnedTimeout learned) {
+        long age = System.currentTimeMillis() - learned.getLearnedAt();
+        return age > (learned.isFailed() ? failureTtl : cacheTtl);
+    }
+
+    /**
+     * Measures the median TCP connect time of the target and optionally the
+     * delay of the server greeting.
+     *
+     * @param host
+     *            Hostname of the target
+     * @param port
+     *            Port of the target
+     * @param readGreeting
+     *            True if the greeting delay should be measured
+     * @return The measurement or null if the target could not be reached
+     */
+    public LearnedTimeout measure(String host, int port, boolean readGreeting) {
+        long[] rtts = new long[Math.max(1, rttSamples)];
+        long greetingDelay = 0;
+        for (int i = 0; i < rtts.length; i++) {
+            try (Socket socket = new Socket()) {
+                long start = System.nanoTime();
+                socket.connect(new InetSocketAddress(host, port), getMaxTimeout());
+                rtts[i] = (System.nanoTime() - start) / 1000000;
+                if (readGreeting && i == 0) {
+                    greetingDelay = measureGreeting(socket, start) - rtts[i];
+                }
+            } catch (IOException ex) {
+                LOGGER.debug("RTT measurement of " + host + ":" + port + " failed", ex);
+                return null;
+            }
+        }
+        Arrays.sort(rtts);
+        return new LearnedTimeout(rtts[rtts.length / 2], Math.max(0, greetingDelay), System.currentTimeMillis());
+    }
+
+    private long measureGreeting(Socket socket, long start) throws IOException {
+        int timeout = Math.min(getMaxTimeout(), greetingTimeout);
+        socket.setSoTimeout(timeout);
+        try {
+            InputStream in = socket.getInputStream();
+            int read;
+            do {
+                read = in.read();
+            } while (read != -1 && read != '\n');
+        } catch (SocketTimeoutException ex) {
+            LOGGER.debug("Server did not send a greeting within " + timeout + "ms");
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    public int deriveTimeout(long rtt, long greetingDelay) {
+        long timeout = rtt * rttMultiplier + 100;
+        if (greetingDelay > 0) {
+            timeout = Math.max(timeout, greetingDelay + greetingDelay / 2 + rtt);
+        }
+        // Both bounds from the same snapshot
+        WsConfig config = ConfigManager.getInstance().getConfig();
+        return (int) Math.min(config.getMaxTimeout(), Math.max(config.getMinTimeout(), timeout));
+    }
+
+    public int getCachedEntries() {
+        return cache.size();
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    public boolean isAdaptiveTimeouts() {
+        return ConfigManager.getInstance().getConfig().isAdaptiveTimeouts();
+    }
+
+    public void setAdaptiveTimeouts(boolean adaptiveTimeouts) {
+        ConfigManager.getInstance().update(WsConfig.ADAPTIVE_TIMEOUTS, adaptiveTimeouts);
+    }
+
+    public int getMinTimeout() {
+        return ConfigManager.getInstance().getConfig().getMinTimeout();
+    }
+
+    public void setMinTimeout(int minTimeout) {
+        ConfigManager.getInstance().update(WsConfig.MIN_TIMEOUT, minTimeout);
+    }
+
+    public int getMaxTimeout() {
+        return ConfigManager.getInstance().getConfig().getMaxTimeout();
+    }
+
+    public void setMaxTimeout(int maxTimeout) {
+        ConfigManager.getInstance().update(WsConfig.MAX_TIMEOUT, maxTimeout);
+    }
+
+    public int getRttMultiplier() {
+        return rttMultiplier;
+    }
+
+    public void setRttMultiplier(int rttMultiplier) {
+        this.rttMultiplier = rttMultiplier;
+    }
+
+    public int getRttSamples() {
+        return rttSamples;
+    }
+
+    public void setRttSamples(int rttSamples) {
+        this.rttSamples = rttSamples;
+    }
+
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public long getFailureTtl() {
+        return failureTtl;
+    }
+
+    public void setFailureTtl(long failureTtl) {
+        this.failureTtl = failureTtl;
+    }
+
+    public int getGreetingTimeout() {
+        return greetingTimeout;
+    }
+
+    public void setGreetingTimeout(int greetingTimeout) {
+        this.greetingTimeout = greetingTimeout;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public static class LearnedTimeout {
+
+        private final long rtt;
+
+        private final long greetingDelay;
+
+        private final long learnedAt;
+
+        public LearnedTimeout(long rtt, long greetingDelay, long learnedAt) {
+            this.rtt = rtt;
+            this.greetingDelay = greetingDelay;
+            this.learnedAt = learnedAt;
+        }
+
+        /**
+         * @return A marker for a target which could not be measured
+         */
+        public static LearnedTimeout failed(long learnedAt) {
+            return new LearnedTimeout(-1, 0, learnedAt);
+        }
+
+        public boolean isFailed() {
+            return rtt < 0;
+        }
+
+        public long getRtt() {
+            return rtt;
+        }
+
+        public long getGreetingDelay() {
+            return greetingDelay;
+        }
+
+        public long getLearnedAt() {
+            return learnedAt;
+        }
+    }
+}
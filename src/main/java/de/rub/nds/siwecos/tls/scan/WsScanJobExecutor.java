@@ -0,0 +1,374 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.accounting.ScanCost;
+import de.rub.nds.siwecos.tls.jfr.JfrSupport;
+import de.rub.nds.siwecos.tls.metrics.MetricsRegistry;
+import de.rub.nds.siwecos.tls.ws.ProbeDebugOutput;
+import de.rub.nds.tlsattacker.core.config.delegate.ClientDelegate;
+import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
+import de.rub.nds.tlsscanner.ScanJob;
+import de.rub.nds.tlsscanner.ScanJobExecutor;
+import de.rub.nds.tlsscanner.config.ScannerConfig;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.probe.TlsProbe;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import de.rub.nds.tlsscanner.report.after.AfterProbe;
+import de.rub.nds.tlsscanner.report.result.ProbeResult;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * ScanJobExecutor which isolates the probes from each other. A probe which
+ * fails with a transient error is executed again according to the
+ * ProbeRetryPolicy, a probe which still fails is recorded and does not affect
+ * the results of the other probes.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class WsScanJobExecutor extends ScanJobExecutor {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(WsScanJobExecutor.class
+            .getName());
+
+    private final ThreadPoolExecutor executor;
+
+    private final ProbeRetryPolicy retryPolicy;
+
+    private final Map<ProbeType, Throwable> failedProbes = new ConcurrentHashMap<>();
+
+    private final List<ProbeDebugOutput> probeOutputs = Collections
+            .synchronizedList(new LinkedList<ProbeDebugOutput>());
+
+    private volatile String scanId;
+
+    private String scanType = null;
+
+    private volatile String host = null;
+
+    private volatile ScanCost cost = null;
+
+    private volatile ActiveScan activeScan = null;
+
+    private SharedProbeResults sharedResults = null;
+
+    private ServerProbeResultCache serverCache = null;
+
+    public WsScanJobExecutor(int threadCount, String prefix) {
+        this(threadCount, prefix, ProbeRetryPolicy.getInstance());
+    }
+
+    public WsScanJobExecutor(int threadCount, String prefix, ProbeRetryPolicy retryPolicy) {
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 1, TimeUnit.MINUTES,
+                new LinkedBlockingDeque<Runnable>(), new NamedThreadFactory(prefix));
+        this.scanId = prefix;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public SiteReport execute(ScannerConfig config, ScanJob scanJob) {
+        host = ((ClientDelegate) config.getDelegate(ClientDelegate.class)).getHost();
+        ActiveScan scan = activeScan;
+        if (scan != null) {
+            scan.addExecutor(this);
+        }
+        try {
+            return executeProbes(config, scanJob);
+        } finally {
+            if (scan != null) {
+                scan.removeExecutor(this);
+            }
+        }
+    }
+
+    private SiteReport executeProbes(ScannerConfig config, ScanJob scanJob) {
+        List<ProbeType> probeTypes = new LinkedList<>();
+        Map<TlsProbe, Future<ProbeResult>> futureResults = new LinkedHashMap<>();
+        for (TlsProbe probe : scanJob.getPhaseOneTestList()) {
+            if (probe.getDanger() <= config.getDangerLevel()) {
+                probeTypes.add(probe.getType());
+                futureResults.put(probe, executor.submit(new ProbeTask(probe)));
+            }
+        }
+        for (TlsProbe probe : scanJob.getPhaseTwoTestList()) {
+            if (probe.getDanger() <= config.getDangerLevel()) {
+                probeTypes.add(probe.getType());
+            }
+        }
+        ClientDelegate clientDelegate = (ClientDelegate) config.getDelegate(ClientDelegate.class);
+        SiteReport report = new SiteReport(clientDelegate.getHost(), probeTypes, config.isNoColor());
+        report.setServerIsAlive(Boolean.TRUE);
+        report.setSupportsSslTls(Boolean.TRUE);
+        mergeResults(futureResults, report, null, null);
+        String fingerprint = sharedResults == null ? null : EndpointFingerprint.of(report);
+        String serverKey = serverCache == null ? null : serverCache.getKey(clientDelegate.getHost(), report,
+                config.getScanDetail());
+
+        futureResults = new LinkedHashMap<>();
+        for (TlsProbe probe : scanJob.getPhaseTwoTestList()) {
+            if (probe.getDanger() <= config.getDangerLevel()) {
+                try {
+                    if (probe.canBeExecuted(report)) {
+                        ProbeResult sharedResult = getSharedResult(fingerprint, serverKey, probe.getType());
+                        if (sharedResult != null) {
+                            LOGGER.info("Reusing " + probe.getType() + " result for " + clientDelegate.getHost());
+                            sharedResult.merge(report);
+                            ProbeDebugOutput output = new ProbeDebugOutput(null, probe.getType().name());
+                            output.setReused(true);
+                            probeOutputs.add(output);
+                            MetricsRegistry.getInstance().countReusedProbe(probe.getType());
+                        } else {
+                            probe.adjustConfig(report);
+                            futureResults.put(probe, executor.submit(new ProbeTask(probe)));
+                        }
+                    } else {
+                        ProbeResult result = probe.getCouldNotExecuteResult();
+                        if (result != null) {
+                            result.merge(report);
+                        }
+                    }
+                } catch (RuntimeException E) {
+                    probeFailed(probe.getType(), E);
+                }
+            }
+        }
+        mergeResults(futureResults, report, fingerprint, serverKey);
+        for (AfterProbe afterProbe : scanJob.getAfterProbes()) {
+            try {
+                afterProbe.analyze(report);
+            } catch (RuntimeException E) {
+                LOGGER.warn("Could not analyze " + afterProbe.getClass().getSimpleName() + " for "
+                        + clientDelegate.getHost(), E);
+            }
+        }
+        if (!failedProbes.isEmpty()) {
+            LOGGER.warn("Finished scan for: " + clientDelegate.getHost() + " with failed probes: "
+                    + failedProbes.keySet());
+        } else {
+            LOGGER.info("Finished scan for: " + clientDelegate.getHost());
+        }
+        return report;
+    }
+
+    private ProbeResult getSharedResult(String fingerprint, String serverKey, ProbeType type) {
+        ProbeResult result = null;
+        if (sharedResults != null) {
+            result = sharedResults.get(fingerprint, type);
+        }
+        if (result == null && serverCache != null) {
+            result = serverCache.get(serverKey, type);
+        }
+        return result;
+    }
+
+    private void mergeResults(Map<TlsProbe, Future<ProbeResult>> futureResults, SiteReport report,
+            String fingerprint, String serverKey) {
+        for (Map.Entry<TlsProbe, Future<ProbeResult>> entry : futureResults.entrySet()) {
+            ProbeType type = entry.getKey().getType();
+            try {
+                ProbeResult result = entry.getValue().get();
+                if (result != null) {
+                    result.merge(report);
+                    if (sharedResults != null) {
+                        sharedResults.put(fingerprint, type, result);
+                    }
+                    if (serverCache != null) {
+                        serverCache.put(serverKey, type, result);
+                    }
+                }
+            } catch (InterruptedException E) {
+                entry.getValue().cancel(true);
+                probeFailed(type, E);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException E) {
+                probeFailed(type, E.getCause());
+            } catch (RuntimeException E) {
+                probeFailed(type, E);
+            }
+        }
+    }
+
+    private void probeFailed(ProbeType type, Throwable throwable) {
+        LOGGER.warn("Probe " + type + " failed", throwable);
+        failedProbes.put(type, throwable);
+    }
+
+    /**
+     * @return The probes which failed permanently, with the reason of the last
+     *         failure
+     */
+    public Map<ProbeType, Throwable> getFailedProbes() {
+        return Collections.unmodifiableMap(failedProbes);
+    }
+
+    public SharedProbeResults getSharedResults() {
+        return sharedResults;
+    }
+
+    public void setSharedResults(SharedProbeResults sharedResults) {
+        this.sharedResults = sharedResults;
+    }
+
+    public ServerProbeResultCache getServerCache() {
+        return serverCache;
+    }
+
+    public void setServerCache(ServerProbeResultCache serverCache) {
+        this.serverCache = serverCache;
+    }
+
+    /**
+     * @return The timing and network accounting of every executed probe
+     */
+    public List<ProbeDebugOutput> getProbeOutputs() {
+        synchronized (probeOutputs) {
+            return new LinkedList<>(probeOutputs);
+        }
+    }
+
+    public String getScanType() {
+        return scanType;
+    }
+
+    /**
+     * @param scanType
+     *            The scan type which is reported in the probe events
+     */
+    public void setScanType(String scanType) {
+        this.scanType = scanType;
+    }
+
+    public String getScanId() {
+        return scanId;
+    }
+
+    /**
+     * @param scanId
+     *            The id of the scan in the probe events, the thread prefix by
+     *            default
+     */
+    public void setScanId(String scanId) {
+        this.scanId = scanId;
+    }
+
+    public ScanCost getCost() {
+        return cost;
+    }
+
+    /**
+     * @param cost
+     *            The cost of the scan job to which the CPU time and
+     *            allocations of the probe threads are added
+     */
+    public void setCost(ScanCost cost) {
+        this.cost = cost;
+    }
+
+    public ActiveScan getActiveScan() {
+        return activeScan;
+    }
+
+    /**
+     * @param activeScan
+     *            The scan whose progress is updated by the probes
+     */
+    public void setActiveScan(ActiveScan activeScan) {
+        this.activeScan = activeScan;
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stops the scan by interrupting the running probes and discarding the
+     * queued ones
+     */
+    public void cancel() {
+        executor.shutdownNow();
+    }
+
+    private class ProbeTask implements Callable<ProbeResult> {
+
+        private final TlsProbe probe;
+
+        public ProbeTask(TlsProbe probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public ProbeResult call() throws Exception {
+            ProbeDebugOutput output = new ProbeDebugOutput(null, probe.getType().name());
+            probeOutputs.add(output);
+            InstrumentedParallelExecutor.setCurrentProbe(output);
+            int attempt = 0;
+            boolean failed = true;
+            long start = System.currentTimeMillis();
+            output.setStartedAt(start);
+            Object event = JfrSupport.getInstance().beginProbe();
+            ScanCost probeCost = cost;
+            long[] snapshot = probeCost == null ? null : ScanCost.snapshot();
+            ActiveScan scan = activeScan;
+            if (scan != null) {
+                scan.probeStarted(probe.getType().name());
+            }
+            try {
+                while (true) {
+                    output.setAttempts(attempt + 1);
+                    int localFailures = output.getLocalFailures();
+                    try {
+                        ProbeResult result = probe.call();
+                        if (output.getLocalFailures() > localFailures) {
+                            throw new LocalResourceException((output.getLocalFailures() - localFailures)
+                                    + " connections of the probe failed, the scanning node ran out of resources");
+                        }
+                        failed = false;
+                        return result;
+                    } catch (Exception E) {
+                        attempt++;
+                        if (!retryPolicy.shouldRetry(E, attempt)) {
+                            throw E;
+                        }
+                        MetricsRegistry.getInstance().countProbeRetry(probe.getType());
+                        LOGGER.info("Probe " + probe.getType() + " failed with a transient error, retry " + attempt
+                                + "/" + retryPolicy.getMaxRetries() + ": " + E.getMessage());
+                        Thread.sleep(retryPolicy.getBackoff(attempt));
+                    }
+                }
+            } finally {
+                long end = System.currentTimeMillis();
+                output.setFinishedAt(end);
+                MetricsRegistry.getInstance().observeProbeDuration(probe.getType(), end - start);
+                JfrSupport.getInstance().commitProbe(event, host, scanType, scanId, probe.getType().name(),
+                        output.getAttempts(), failed);
+                InstrumentedParallelExecutor.setCurrentProbe(null);
+                if (probeCost != null) {
+                    probeCost.addSince(snapshot);
+                }
+                if (scan != null) {
+                    scan.probeFinished();
+                }
+            }
+        }
+    }
+}
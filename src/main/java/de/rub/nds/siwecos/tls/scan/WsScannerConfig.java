@@ -0,0 +1,60 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.config.delegate.GeneralDelegate;
+import de.rub.nds.tlsscanner.config.ScannerConfig;
+
+/**
+ * ScannerConfig which applies a per target connection timeout to every Config
+ * the probes create. The Configs are copies of the prototype of the
+ * {@link ScannerConfigTemplate}, only the delegates of the scan are applied
+ * to a copy.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class WsScannerConfig extends ScannerConfig {
+
+    private Integer connectionTimeout = null;
+
+    private final ConfigPrototype prototype;
+
+    public WsScannerConfig(GeneralDelegate delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param prototype
+     *            The prototype of the created Configs, null builds every
+     *            Config from scratch
+     */
+    WsScannerConfig(GeneralDelegate delegate, ConfigPrototype prototype) {
+        super(delegate);
+        this.prototype = prototype;
+    }
+
+    public Integer getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Integer connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    @Override
+    public Config createConfig() {
+        Config config = prototype == null ? super.createConfig() : createConfig(prototype.createCopy());
+        if (connectionTimeout != null) {
+            config.getDefaultClientConnection().setTimeout(connectionTimeout);
+        }
+        return config;
+    }
+}
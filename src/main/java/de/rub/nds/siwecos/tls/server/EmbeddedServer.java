@@ -0,0 +1,129 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.server;
+
+import com.sun.net.httpserver.HttpServer;
+import de.rub.nds.siwecos.tls.ApplicationConfig;
+import de.rub.nds.siwecos.tls.warmup.WarmUp;
+import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.glassfish.jersey.jdkhttp.JdkHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+
+/**
+ * Serves the resources of the {@link ApplicationConfig} on the HTTP server of
+ * the JDK, without a servlet container. The resources are registered
+ * explicitly, so there is no annotation scanning of the class path, and the
+ * server listens as soon as the configuration is loaded and Jersey is
+ * initialized. The node is ready once the warm-up finished.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class EmbeddedServer {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(EmbeddedServer.class
+            .getName());
+
+    private final ServerConfig config;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private volatile long startedAt;
+
+    private volatile long timeToReady = -1;
+
+    public EmbeddedServer(ServerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Loads the configuration, starts the worker pools and starts serving
+     * requests. The warm-up runs in the background, see {@link #awaitReady()}.
+     */
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        startedAt = System.currentTimeMillis();
+        // Runs the static initializer, i.e. reads config.txt, starts the
+        // worker pools and the warm-up
+        ApplicationConfig application = new ApplicationConfig();
+        long configured = System.currentTimeMillis();
+        ResourceConfig resourceConfig = createResourceConfig(application);
+        URI uri = URI.create("http://" + config.getHost() + ":" + config.getPort() + "/");
+        server = JdkHttpServerFactory.createHttpServer(uri, resourceConfig, false);
+        long initialized = System.currentTimeMillis();
+        executor = Executors.newFixedThreadPool(config.getHttpThreads(), new NamedThreadFactory("Http"));
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Listening on http://" + config.getHost() + ":" + getPort() + "/ after "
+                + (System.currentTimeMillis() - startedAt) + "ms (configuration " + (configured - startedAt)
+                + "ms, Jersey " + (initialized - configured) + "ms)");
+    }
+
+    /**
+     * Waits until the warm-up finished and logs the time to ready
+     */
+    public void awaitReady() throws InterruptedException {
+        WarmUp.getInstance().await(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        timeToReady = System.currentTimeMillis() - startedAt;
+        LOGGER.info("Ready after " + timeToReady + "ms including a warm-up of " + WarmUp.getInstance().getDuration()
+                + "ms, " + ManagementFactory.getRuntimeMXBean().getUptime() + "ms after the start of the JVM");
+    }
+
+    /**
+     * @return The resources of the webservice without WADL, which is not part
+     *         of the API and only costs startup time
+     */
+    static ResourceConfig createResourceConfig(ApplicationConfig application) {
+        ResourceConfig resourceConfig = ResourceConfig.forApplication(application);
+        resourceConfig.property(ServerProperties.WADL_FEATURE_DISABLE, true);
+        return resourceConfig;
+    }
+
+    /**
+     * Stops accepting requests, scans which are queued or running are not
+     * affected
+     *
+     * @param delay
+     *            Seconds to wait for requests which are being handled
+     */
+    public synchronized void stop(int delay) {
+        if (server == null) {
+            return;
+        }
+        server.stop(delay);
+        executor.shutdown();
+        server = null;
+    }
+
+    /**
+     * @return The port the server listens on, useful if port 0 was configured
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Milliseconds from the start until the server accepted requests
+     *         and finished the warm-up, -1 if it was not started
+     */
+    public long getTimeToReady() {
+        return timeToReady;
+    }
+}
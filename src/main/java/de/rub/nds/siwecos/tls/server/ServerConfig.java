@@ -0,0 +1,70 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.server;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/**
+ * Command line options of the embedded server
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+@Parameters(commandDescription = "Serves the webservice on an embedded HTTP server")
+public class ServerConfig {
+
+    @Parameter(names = "-host", description = "Address the server listens on")
+    private String host = "0.0.0.0";
+
+    @Parameter(names = "-port", description = "Port the server listens on, 0 picks a free port")
+    private int port = 8080;
+
+    @Parameter(names = "-httpThreads", description = "Number of threads which handle requests, the scans run in "
+            + "the worker pools")
+    private int httpThreads = 8;
+
+    @Parameter(names = "-help", help = true, description = "Prints the usage")
+    private boolean help = false;
+
+    public ServerConfig() {
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getHttpThreads() {
+        return httpThreads;
+    }
+
+    public void setHttpThreads(int httpThreads) {
+        this.httpThreads = httpThreads;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public void setHelp(boolean help) {
+        this.help = help;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.warmup;
+
+import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.scan.ScannerConfigTemplate;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import java.io.IOException;
+import java.security.Security;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * Prepares a freshly started node for its first scans. The crypto providers
+ * are registered, the config templates are built, the default configuration
+ * and constant tables of TLS-Attacker are loaded and a few scans are run
+ * against a local {@link WarmUpServer}, so the class loading and the
+ * compilation of the handshake code do not slow down the first real scans.
+ * The node reports ready once the warm-up finished, a failed warm-up only
+ * costs time.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class WarmUp {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(WarmUp.class.getName());
+
+    private volatile boolean enabled = true;
+
+    private volatile int scans = 3;
+
+    private volatile long duration = -1;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    WarmUp() {
+    }
+
+    public static WarmUp getInstance() {
+        return WarmUpHolder.INSTANCE;
+    }
+
+    private static class WarmUpHolder {
+
+        private static final WarmUp INSTANCE = new WarmUp();
+    }
+
+    /**
+     * Runs the warm-up in a background thread, the node is ready right away
+     * if the warm-up is disabled
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        }, "WarmUp");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            registerProviders();
+            if (enabled) {
+                LOGGER.info("Warming up with " + scans + " scans");
+                // Builds the templates and loads the default config and the
+                // constant tables
+                for (ScanType type : ScanType.values()) {
+                    ScannerConfigTemplate.of(type).create("localhost", 443, 0).createConfig();
+                }
+                CipherSuite.values();
+                scan();
+            }
+        } catch (IOException | RuntimeException E) {
+            LOGGER.warn("Warm-up failed, the first scans may be slower", E);
+        } finally {
+            duration = System.currentTimeMillis() - start;
+            finished.countDown();
+            LOGGER.info("Ready for scans after a warm-up of " + duration + "ms");
+        }
+    }
+
+    /**
+     * Registers BouncyCastle once, instead of creating the provider for every
+     * scan
+     */
+    public static void registerProviders() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private void scan() throws IOException {
+        try (WarmUpServer server = new WarmUpServer()) {
+            server.start();
+            for (int i = 0; i < scans; i++) {
+                long start = System.currentTimeMillis();
+                ScanRequest request = new ScanRequest("localhost", 0, new String[0]);
+                TlsScannerCallback callback = new TlsScannerCallback(request, ScanType.TLS, new DebugOutput(0,
+                        System.currentTimeMillis()));
+                ScanResult result = callback.getScanResult(ScanType.TLS, "warmup", request, null, server.getPort());
+                LOGGER.info("Warm-up scan " + (i + 1) + " of " + scans + " took "
+                        + (System.currentTimeMillis() - start) + "ms" + (result.isHasError() ? " and failed" : ""));
+            }
+        }
+    }
+
+    /**
+     * @return True once the warm-up finished or if it is disabled
+     */
+    public boolean isReady() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * Waits until the warm-up finished
+     *
+     * @return True if the warm-up finished in time
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /**
+     * @return The duration of the warm-up in milliseconds, -1 while it is
+     *         running
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getScans() {
+        return scans;
+    }
+
+    public void setScans(int scans) {
+        this.scans = scans;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import org.apache.logging.log4j.LogManager;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * TLS server on an ephemeral loopback port for the synthetic scans of the
+ * warm-up. It uses the default protocol versions and cipher suites of the JVM
+ * and a self signed certificate which only exists in memory.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class WarmUpServer implements Closeable {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(WarmUpServer.class
+            .getName());
+
+    private static final char[] PASSWORD = "warmup".toCharArray();
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService handlers;
+
+    private SSLContext context;
+
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        try {
+            context = SSLContext.getInstance("TLS");
+            KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            factory.init(createKeyStore(), PASSWORD);
+            context.init(factory.getKeyManagers(), null, null);
+        } catch (GeneralSecurityException E) {
+            throw new IOException("Could not create the TLS context of the warm-up server", E);
+        }
+        final ServerSocket listener = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        serverSocket = listener;
+        handlers = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "WarmUpServer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        handlers.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept(listener);
+            }
+        });
+    }
+
+    private static KeyStore createKeyStore() throws GeneralSecurityException, IOException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=localhost");
+        Date notBefore = new Date(System.currentTimeMillis() - 24L * 60 * 60 * 1000);
+        Date notAfter = new Date(System.currentTimeMillis() + 24L * 60 * 60 * 1000);
+        X509v3CertificateBuilder builder = new X509v3CertificateBuilder(name, BigInteger.valueOf(
+                System.currentTimeMillis()), notBefore, notAfter, name, SubjectPublicKeyInfo.getInstance(keyPair
+                .getPublic().getEncoded()));
+        X509Certificate certificate;
+        try {
+            certificate = new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder(
+                    "SHA256withRSA").build(keyPair.getPrivate())));
+        } catch (OperatorCreationException E) {
+            throw new GeneralSecurityException("Could not sign the warm-up certificate", E);
+        }
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("warmup", keyPair.getPrivate(), PASSWORD, new X509Certificate[] { certificate });
+        return keyStore;
+    }
+
+    private void accept(ServerSocket listener) {
+        while (!listener.isClosed()) {
+            try {
+                final Socket socket = listener.accept();
+                handlers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            } catch (IOException E) {
+                if (!listener.isClosed()) {
+                    LOGGER.debug("Could not accept a warm-up connection", E);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket plainSocket = socket;
+                SSLSocket tlsSocket = (SSLSocket) context.getSocketFactory().createSocket(plainSocket, "localhost",
+                        plainSocket.getPort(), true)) {
+            tlsSocket.setSoTimeout(10000);
+            tlsSocket.setUseClientMode(false);
+            tlsSocket.startHandshake();
+            InputStream in = tlsSocket.getInputStream();
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) >= 0) {
+                // Discard the application data
+            }
+        } catch (IOException E) {
+            // Most probes send invalid messages on purpose
+            LOGGER.debug("Warm-up connection failed", E);
+        }
+    }
+
+    public synchronized int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverSocket == null) {
+            return;
+        }
+        serverSocket.close();
+        handlers.shutdownNow();
+        serverSocket = null;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+import de.rub.nds.siwecos.tls.accounting.TenantCost;
+import de.rub.nds.siwecos.tls.accounting.TenantCostRegistry;
+import de.rub.nds.siwecos.tls.jfr.JfrSupport;
+import de.rub.nds.siwecos.tls.pool.FairScanQueue;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.TenantQueueStats;
+import de.rub.nds.siwecos.tls.scan.ActiveScan;
+import de.rub.nds.siwecos.tls.scan.ScanRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Administrative endpoints for the running scans, the tenant queues, on-demand
+ * flight recordings and the cost of the tenants
+ *
+ * @author Robert Merget - robert.merget@rub.de
+ */
+@Path("/admin")
+public class AdminWS {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(AdminWS.class.getName());
+
+    @GET
+    @Path("/scans")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getScans() {
+        return Response.status(Response.Status.OK).entity(ScanRegistry.getInstance().getScans())
+                .type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    @GET
+    @Path("/scans/{id}/stacks")
+    public Response getScanStacks(@PathParam("id") long id) {
+        ActiveScan scan = ScanRegistry.getInstance().get(id);
+        if (scan == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Unknown scan").type(MediaType.TEXT_PLAIN_TYPE)
+                    .build();
+        }
+        return Response.status(Response.Status.OK).entity(scan.captureStacks()).type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+
+    @POST
+    @Path("/scans/{id}/cancel")
+    public Response cancelScan(@PathParam("id") long id) {
+        ActiveScan scan = ScanRegistry.getInstance().get(id);
+        if (scan == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Unknown scan").type(MediaType.TEXT_PLAIN_TYPE)
+                    .build();
+        }
+        if (!scan.cancel()) {
+            return Response.status(Response.Status.CONFLICT).entity("Scan " + id + " already finished")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        LOGGER.info("Cancelled scan " + id + " of " + scan.getHost());
+        return Response.status(Response.Status.OK).entity("Cancelled scan " + id).type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+
+    @GET
+    @Path("/tenants")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getTenants() {
+        return Response.status(Response.Status.OK).entity(TenantCostRegistry.getInstance().getAll())
+                .type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    @GET
+    @Path("/tenants/{tenant}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getTenant(@PathParam("tenant") String tenant) {
+        TenantCost cost = TenantCostRegistry.getInstance().get(tenant);
+        if (cost == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("Unknown tenant")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        return Response.status(Response.Status.OK).entity(cost).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    @POST
+    @Path("/tenants/reset")
+    public Response resetTenants() {
+        TenantCostRegistry.getInstance().clear();
+        LOGGER.info("Reset the tenant costs");
+        return Response.status(Response.Status.OK).entity("Reset tenant costs").type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+
+    @GET
+    @Path("/queue")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getQueue() {
+        Map<String, List<TenantQueueStats>> stats = new LinkedHashMap<>();
+        for (ScanFamily family : ScanFamily.values()) {
+            FairScanQueue queue = PoolManager.getInstance().getPool(family).getFairQueue();
+            if (queue != null) {
+                stats.put(family.getId(), queue.getStats());
+            }
+        }
+        if (stats.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND).entity("The redis queue has no tenant statistics")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        return Response.status(Response.Status.OK).entity(stats).type(MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    @GET
+    @Path("/recording")
+    public Response getRecording() {
+        JfrSupport jfr = JfrSupport.getInstance();
+        String state;
+        if (!jfr.isAvailable()) {
+            state = "Flight Recorder is not available";
+        } else if (jfr.isRecording()) {
+            state = "Recording";
+        } else {
+            state = "Not recording";
+        }
+        return Response.status(Response.Status.OK).entity(state).type(MediaType.TEXT_PLAIN_TYPE).build();
+    }
+
+    @POST
+    @Path("/recording/start")
+    public Response startRecording(@QueryParam("duration") @DefaultValue("0") long duration) {
+        JfrSupport jfr = JfrSupport.getInstance();
+        if (!jfr.isAvailable()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Flight Recorder is not available")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        try {
+            jfr.startRecording(duration);
+        } catch (IllegalStateException E) {
+            return Response.status(Response.Status.CONFLICT).entity(E.getMessage()).type(MediaType.TEXT_PLAIN_TYPE)
+                    .build();
+        }
+        LOGGER.info("Started flight recording");
+        return Response.status(Response.Status.OK).entity("Started recording").type(MediaType.TEXT_PLAIN_TYPE)
+                .build();
+    }
+
+    @POST
+    @Path("/recording/stop")
+    public Response stopRecording() {
+        JfrSupport jfr = JfrSupport.getInstance();
+        if (!jfr.isAvailable()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Flight Recorder is not available")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        try {
+            File recording = jfr.stopRecording();
+            return Response.status(Response.Status.OK).entity(recording)
+                    .type(MediaType.APPLICATION_OCTET_STREAM_TYPE)
+                    .header("Content-Disposition", "attachment; filename=\"" + recording.getName() + "\"").build();
+        } catch (IllegalStateException E) {
+            return Response.status(Response.Status.CONFLICT).entity(E.getMessage()).type(MediaType.TEXT_PLAIN_TYPE)
+                    .build();
+        } catch (IOException E) {
+            LOGGER.error("Could not write flight recording", E);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Could not write recording")
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+    }
+}
@@ -9,6 +9,10 @@
  */
 package de.rub.nds.siwecos.tls.ws;
 
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
 public class DebugOutput {
 
     private Integer initialQueueLenght;
@@ -25,11 +29,27 @@ public class DebugOutput {
 
     private Long scanFinisedAt;
 
+    private final List<ProbeDebugOutput> probes = Collections.synchronizedList(new LinkedList<ProbeDebugOutput>());
+
     public DebugOutput(Integer initialQueueLenght, long enteredQueueAt) {
         this.initialQueueLenght = initialQueueLenght;
         this.enteredQueueAt = enteredQueueAt;
     }
 
+    /**
+     * Copies the queue and timing information of the job, but not the probes.
+     * Every port of a MAIL scan gets its own copy for its probes.
+     */
+    public DebugOutput(DebugOutput other) {
+        this.initialQueueLenght = other.initialQueueLenght;
+        this.finalQueueSize = other.finalQueueSize;
+        this.timeInQueue = other.timeInQueue;
+        this.enteredQueueAt = other.enteredQueueAt;
+        this.leftQueueAt = other.leftQueueAt;
+        this.scanStartedAt = other.scanStartedAt;
+        this.scanFinisedAt = other.scanFinisedAt;
+    }
+
     public Integer getInitialQueueLenght() {
         return initialQueueLenght;
     }
@@ -86,4 +106,14 @@ public class DebugOutput {
         this.scanFinisedAt = scanFinisedAt;
     }
 
+    public List<ProbeDebugOutput> getProbes() {
+        synchronized (probes) {
+            return new LinkedList<>(probes);
+        }
+    }
+
+    public void addProbes(List<ProbeDebugOutput> probes) {
+        this.probes.addAll(probes);
+    }
+
 }
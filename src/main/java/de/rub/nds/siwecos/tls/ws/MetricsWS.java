@@ -0,0 +1,76 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+import de.rub.nds.siwecos.tls.metrics.MetricsRegistry;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
+import de.rub.nds.siwecos.tls.scan.ConnectionBudget;
+import de.rub.nds.siwecos.tls.scan.ScanRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+
+/**
+ * Exposes the metrics of the scanner in the Prometheus text format
+ *
+ * @author Robert Merget - robert.merget@rub.de
+ */
+@Path("/metrics")
+public class MetricsWS {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GET
+    public Response getMetrics() {
+        Map<String, Long> queueLength = new LinkedHashMap<>();
+        Map<String, Long> active = new LinkedHashMap<>();
+        Map<String, Long> workers = new LinkedHashMap<>();
+        Map<String, Long> completed = new LinkedHashMap<>();
+        Map<String, Long> borrowed = new LinkedHashMap<>();
+        Map<String, Long> borrowedTotal = new LinkedHashMap<>();
+        for (ScanFamily family : ScanFamily.values()) {
+            ScanThreadPoolExecutor service = PoolManager.getInstance().getPool(family);
+            String labels = MetricsRegistry.label("pool", family.getId());
+            queueLength.put(labels, (long) service.getOwnQueue().size());
+            active.put(labels, (long) service.getActiveCount());
+            workers.put(labels, (long) service.getMaximumPoolSize());
+            completed.put(labels, service.getCompletedTaskCount());
+            borrowed.put(labels, (long) service.getBorrowingQueue().getBorrowed());
+            borrowedTotal.put(labels, service.getBorrowingQueue().getBorrowedTotal());
+        }
+        StringBuilder builder = new StringBuilder();
+        MetricsRegistry.writeGauge(builder, "tlsscanner_queue_length", "Scan jobs waiting in the queue", queueLength);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_workers_active", "Workers currently executing a scan job",
+                active);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_workers", "Size of the worker pool", workers);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_jobs_completed", "Scan jobs completed since startup",
+                completed);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_workers_borrowed",
+                "Workers currently executing a job borrowed from another pool", borrowed);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_jobs_borrowed", "Jobs borrowed from other pools since startup",
+                borrowedTotal);
+        MetricsRegistry.writeGauge(builder, "tlsscanner_scans_running", "Scans registered as running",
+                ScanRegistry.getInstance().getScans().size());
+        MetricsRegistry.writeGauge(builder, "tlsscanner_scans_hung", "Running scans flagged as hung",
+                ScanRegistry.getInstance().getHungScans());
+        ConnectionBudget budget = ConnectionBudget.getInstance();
+        MetricsRegistry.writeGauge(builder, "tlsscanner_connections_in_use", "Connection permits of the budget in use",
+                budget.getConnectionsInUse());
+        MetricsRegistry.writeGauge(builder, "tlsscanner_connections_waiting",
+                "Tasks waiting for a connection permit or handshake slot", budget.getWaiting());
+        MetricsRegistry.writeGauge(builder, "tlsscanner_connection_budget_timeouts",
+                "Tasks which got no connection permit within the maximum wait time", budget.getTimeouts());
+        MetricsRegistry.getInstance().writeTo(builder);
+        return Response.status(Response.Status.OK).entity(builder.toString()).type(CONTENT_TYPE).build();
+    }
+}
@@ -14,10 +14,20 @@
  */
 package de.rub.nds.siwecos.tls.ws;
 
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.pool.BorrowingQueue;
+import de.rub.nds.siwecos.tls.pool.FairScanQueue;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
 import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
 import java.security.Security;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
@@ -34,40 +44,54 @@ public class PoolManager {
 
     protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(PoolManager.class.getName());
 
-    private ThreadPoolExecutor service;
-
-    private int parallelProbeThreads = 64;
-
-    private int probeThreads = 9;
+    private final Map<ScanFamily, ScanThreadPoolExecutor> pools = new EnumMap<>(ScanFamily.class);
 
     private PoolManager() {
         LOGGER.info("Initializing PoolManager...");
         LOGGER.info("Adding BC as a Security Provider");
         Security.addProvider(new BouncyCastleProvider());
-        LOGGER.info("Starting thread pool");
+        LOGGER.info("Starting thread pools");
 
         String redisHost = System.getenv("REDIS_HOST");
         String redisDb = System.getenv("REDIS_DB");
-        BlockingQueue<Runnable> blockingQueue;
+        RedissonClient redisson = null;
 
         if (redisHost == null || redisDb == null) {
             LOGGER.error("Could not find REDIS server, falling back to local queue");
-            blockingQueue = new LinkedBlockingDeque<>();
         } else {
             LOGGER.info("Initializing connection to redis:" + redisHost + "/" + redisDb);
             Config config = new Config();
             config.useClusterServers().addNodeAddress(redisHost);
             try {
-                RedissonClient redisson = Redisson.create();
-                blockingQueue = redisson.getBlockingDeque(redisDb);
+                redisson = Redisson.create();
                 System.out.println("Established connection to redis :)");
             } catch (Exception E) {
                 LOGGER.error("Connection to redis failed", E);
                 LOGGER.error("Falling back to normal queue");
-                blockingQueue = new LinkedBlockingDeque<>();
             }
         }
-        service = new ThreadPoolExecutor(10, 10, 10, TimeUnit.MINUTES, blockingQueue, new NamedThreadFactory("Worker"));
+        WsConfig wsConfig = ConfigManager.getInstance().getConfig();
+        for (ScanFamily family : ScanFamily.values()) {
+            BlockingQueue<Runnable> blockingQueue;
+            if (redisson != null) {
+                // The https queue keeps the name of the former shared queue
+                blockingQueue = redisson.getBlockingDeque(family == ScanFamily.HTTPS ? redisDb : redisDb + "-"
+                        + family.getId());
+            } else {
+                blockingQueue = new FairScanQueue();
+            }
+            BorrowingQueue borrowingQueue = new BorrowingQueue(blockingQueue);
+            borrowingQueue.setMaxBorrowed(wsConfig.getMaxBorrowed(family));
+            pools.put(family, new ScanThreadPoolExecutor(wsConfig.getPoolSize(family), 10, TimeUnit.MINUTES,
+                    borrowingQueue, new NamedThreadFactory("Worker-" + family.getId())));
+        }
+        for (ScanThreadPoolExecutor pool : pools.values()) {
+            for (ScanThreadPoolExecutor lender : pools.values()) {
+                if (lender != pool) {
+                    pool.getBorrowingQueue().addLender(lender.getOwnQueue());
+                }
+            }
+        }
         LOGGER.info("PoolManager Inialized successfully");
     }
 
@@ -80,32 +104,99 @@ public class PoolManager {
         private static final PoolManager INSTANCE = new PoolManager();
     }
 
-    public ThreadPoolExecutor getService() {
-        return service;
+    /**
+     * @return The worker pool which executes scans of the type
+     */
+    public ScanThreadPoolExecutor getService(ScanType type) {
+        return pools.get(ScanFamily.of(type));
     }
 
-    public void setPoolSize(int poolsize) {
-        boolean increasing = poolsize > service.getPoolSize();
-        service.setCorePoolSize(poolsize);
-        service.setMaximumPoolSize(poolsize);
+    public ScanThreadPoolExecutor getPool(ScanFamily family) {
+        return pools.get(family);
+    }
+
+    /**
+     * @return The number of jobs waiting in the queues of all pools
+     */
+    public int getQueuedJobs() {
+        int queued = 0;
+        for (ScanThreadPoolExecutor pool : pools.values()) {
+            queued += pool.getOwnQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * @return The per tenant queues of the workers, empty if the redis queue
+     *         is used
+     */
+    public List<FairScanQueue> getFairQueues() {
+        List<FairScanQueue> queues = new LinkedList<>();
+        for (ScanThreadPoolExecutor pool : pools.values()) {
+            if (pool.getFairQueue() != null) {
+                queues.add(pool.getFairQueue());
+            }
+        }
+        return queues;
+    }
+
+    /**
+     * Changes the number of workers of the pool in the published settings,
+     * see {@link ConfigManager#update(String, Object)}
+     *
+     * @throws IllegalArgumentException
+     *             If the size is not positive
+     */
+    public void setPoolSize(ScanFamily family, int poolsize) {
+        ConfigManager.getInstance().update(WsConfig.getPoolSizeKey(family), poolsize);
+    }
+
+    /**
+     * Resizes the pool to the published settings, only called by the
+     * {@link ConfigManager}
+     */
+    public void resizePool(ScanFamily family, int poolsize) {
+        ThreadPoolExecutor service = pools.get(family);
+        boolean increasing = poolsize >= service.getMaximumPoolSize();
+        if (poolsize > service.getMaximumPoolSize()) {
+            service.setMaximumPoolSize(poolsize);
+            service.setCorePoolSize(poolsize);
+        } else {
+            service.setCorePoolSize(poolsize);
+            service.setMaximumPoolSize(poolsize);
+        }
         if (!increasing) {
-            LOGGER.warn("You decreased the Threadpool Size! Changes take effect once all Tasks are completed or you restart the service!");
+            // Idle workers are stopped right away, busy workers after their current scan
+            LOGGER.info("Decreased the " + family.getId() + " pool to " + poolsize
+                    + " workers, surplus workers stop after their current scan");
         }
     }
 
+    /**
+     * Sets how many workers of the pool may execute jobs borrowed from the
+     * other pools while the own queue is empty
+     */
+    public void setMaxBorrowed(ScanFamily family, int maxBorrowed) {
+        ConfigManager.getInstance().update(WsConfig.getMaxBorrowedKey(family), maxBorrowed);
+    }
+
+    public int getMaxBorrowed(ScanFamily family) {
+        return ConfigManager.getInstance().getConfig().getMaxBorrowed(family);
+    }
+
     public int getParallelProbeThreads() {
-        return parallelProbeThreads;
+        return ConfigManager.getInstance().getConfig().getParallelProbeThreads();
     }
 
     public void setParallelProbeThreads(int parallelProbeThreads) {
-        this.parallelProbeThreads = parallelProbeThreads;
+        ConfigManager.getInstance().update(WsConfig.PARALLEL_PROBE_THREADS, parallelProbeThreads);
     }
 
     public int getProbeThreads() {
-        return probeThreads;
+        return ConfigManager.getInstance().getConfig().getProbeThreads();
     }
 
     public void setProbeThreads(int probeThreads) {
-        this.probeThreads = probeThreads;
+        ConfigManager.getInstance().update(WsConfig.PROBE_THREADS, probeThreads);
     }
 }
@@ -0,0 +1,375 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+import de.rub.nds.siwecos.tls.metrics.Histogram;
+import de.rub.nds.siwecos.tls.metrics.MetricsRegistry;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
+import de.rub.nds.siwecos.tls.scan.ConnectionBudget;
+import de.rub.nds.tlsattacker.core.workflow.NamedThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Adjusts the sizes of the worker pools and the number of parallel probe
+ * threads to the load. The controller grows a pool additively while jobs wait
+ * longer than the target wait time and shrinks it multiplicatively when the
+ * machine is saturated, i.e. the CPU is busy, too many sockets are open or
+ * the scanning node runs out of local resources too often. Failures of the
+ * targets do not count, unreachable hosts are no sign of an overloaded node.
+ * Idle pools are shrunk slowly. All sizes stay within the bounds set by the
+ * operator.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class PoolSizeController {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(PoolSizeController.class
+            .getName());
+
+    private volatile boolean enabled = false;
+
+    private volatile long interval = 30000;
+
+    private volatile int minPoolSize = 2;
+
+    private volatile int maxPoolSize = 50;
+
+    private volatile int growStep = 2;
+
+    private volatile long targetWait = 10000;
+
+    private volatile double maxCpu = 0.85;
+
+    private volatile int maxSockets = 0;
+
+    private volatile double maxErrorRate = 0.25;
+
+    private volatile int minParallelProbeThreads = 8;
+
+    /**
+     * The configured parallel probe threads before the controller reduced
+     * them, 0 if they are not reduced
+     */
+    private int reducedProbeThreads = 0;
+
+    /**
+     * The parallel probe threads the controller set last, -1 if it did not
+     * change them
+     */
+    private int lastProbeThreads = -1;
+
+    private final Map<ScanFamily, long[]> lastWaits = new EnumMap<>(ScanFamily.class);
+
+    private long lastScans = 0;
+
+    private long lastFailures = 0;
+
+    private ScheduledExecutorService scheduler = null;
+
+    PoolSizeController() {
+    }
+
+    public static PoolSizeController getInstance() {
+        return PoolSizeControllerHolder.INSTANCE;
+    }
+
+    private static class PoolSizeControllerHolder {
+
+        private static final PoolSizeController INSTANCE = new PoolSizeController();
+    }
+
+    /**
+     * Starts the periodic adjustment if the controller is enabled
+     */
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("PoolSizeController"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    adjust();
+                } catch (RuntimeException E) {
+                    LOGGER.warn("Could not adjust the pool sizes", E);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void adjust() {
+        double cpu = getCpuLoad();
+        int sockets = getOpenSockets();
+        int socketLimit = getSocketLimit();
+        double errorRate = getLocalFailureRate();
+        boolean saturated = cpu > maxCpu || (socketLimit > 0 && sockets > socketLimit) || errorRate > maxErrorRate;
+        for (ScanFamily family : ScanFamily.values()) {
+            ScanThreadPoolExecutor pool = PoolManager.getInstance().getPool(family);
+            int queued = pool.getOwnQueue().size();
+            int size = pool.getMaximumPoolSize();
+            int newSize = decide(size, queued, pool.getActiveCount(), getAverageWait(family, queued), saturated);
+            if (newSize != size) {
+                LOGGER.info("Resizing " + family.getId() + " pool from " + size + " to " + newSize + " (queued: "
+                        + queued + ", cpu: " + cpu + ", sockets: " + sockets + ", local failure rate: " + errorRate
+                        + ")");
+                PoolManager.getInstance().setPoolSize(family, newSize);
+            }
+        }
+        if (socketLimit > 0) {
+            adjustProbeThreads(sockets > socketLimit);
+        }
+    }
+
+    /**
+     * @return The new size of a pool
+     */
+    int decide(int size, int queued, int active, long averageWait, boolean saturated) {
+        int newSize = size;
+        if (saturated) {
+            newSize = size * 3 / 4;
+        } else if (queued > 0 && averageWait > targetWait) {
+            newSize = size + growStep;
+        } else if (queued == 0 && active < size / 2) {
+            newSize = size - 1;
+        }
+        return Math.max(minPoolSize, Math.min(maxPoolSize, newSize));
+    }
+
+    private void adjustProbeThreads(boolean socketPressure) {
+        int threads = PoolManager.getInstance().getParallelProbeThreads();
+        int newThreads = decideProbeThreads(threads, socketPressure);
+        if (newThreads != threads) {
+            LOGGER.info("Changing parallel probe threads from " + threads + " to " + newThreads);
+            PoolManager.getInstance().setParallelProbeThreads(newThreads);
+        }
+    }
+
+    /**
+     * Halves the parallel probe threads of new scans while too many sockets
+     * are open and restores them slowly afterwards, but never above the value
+     * they were reduced from. A value set by the operator or the
+     * configuration file in the meantime is kept and becomes the new bound.
+     *
+     * @param threads
+     *            The parallel probe threads of the published settings
+     * @return The new number of parallel probe threads
+     */
+    synchronized int decideProbeThreads(int threads, boolean socketPressure) {
+        if (lastProbeThreads != -1 && threads != lastProbeThreads) {
+            reducedProbeThreads = 0;
+            lastProbeThreads = -1;
+        }
+        int newThreads = threads;
+        if (socketPressure) {
+            newThreads = Math.min(threads, Math.max(minParallelProbeThreads, threads / 2));
+            if (newThreads < threads && reducedProbeThreads == 0) {
+                reducedProbeThreads = threads;
+            }
+        } else if (reducedProbeThreads > 0) {
+            newThreads = Math.min(reducedProbeThreads, threads + Math.max(1, threads / 4));
+        }
+        if (newThreads == threads) {
+            return threads;
+        }
+        if (newThreads == reducedProbeThreads) {
+            // Restored, the configured value is in effect again
+            reducedProbeThreads = 0;
+            lastProbeThreads = -1;
+        } else {
+            lastProbeThreads = newThreads;
+        }
+        return newThreads;
+    }
+
+    /**
+     * @return The average queue wait of the jobs started since the last
+     *         adjustment. If no job started but jobs are queued they waited at
+     *         least the whole interval.
+     */
+    private long getAverageWait(ScanFamily family, int queued) {
+        Histogram histogram = MetricsRegistry.getInstance().getHistogram(MetricsRegistry.QUEUE_WAIT,
+                MetricsRegistry.label("pool", family.getId()));
+        long[] current = new long[] { histogram.getSum(), histogram.getCount() };
+        long[] last = lastWaits.put(family, current);
+        if (last == null) {
+            last = new long[] { 0, 0 };
+        }
+        long started = current[1] - last[1];
+        if (started == 0) {
+            return queued > 0 ? interval : 0;
+        }
+        return (current[0] - last[0]) / started;
+    }
+
+    /**
+     * @return The failures of the scanning node since the last adjustment per
+     *         finished scan, i.e. the tests which failed with
+     *         LOCAL_RESOURCES_EXHAUSTED and the connection permits which were
+     *         not granted in time
+     */
+    private double getLocalFailureRate() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        long scans = registry.getCounter(MetricsRegistry.SCAN_RESULTS, MetricsRegistry.label("outcome", "error"))
+                + registry.getCounter(MetricsRegistry.SCAN_RESULTS, MetricsRegistry.label("outcome", "success"));
+        long failures = registry.getCounter(MetricsRegistry.ERRORS,
+                MetricsRegistry.label("id", "LOCAL_RESOURCES_EXHAUSTED"))
+                + ConnectionBudget.getInstance().getTimeouts();
+        long newScans = scans - lastScans;
+        long newFailures = failures - lastFailures;
+        lastScans = scans;
+        lastFailures = failures;
+        return newScans == 0 ? 0 : (double) newFailures / newScans;
+    }
+
+    private double getCpuLoad() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) bean).getSystemCpuLoad();
+            if (load >= 0) {
+                return load;
+            }
+        }
+        double average = bean.getSystemLoadAverage();
+        return average < 0 ? 0 : average / bean.getAvailableProcessors();
+    }
+
+    /**
+     * @return The number of open sockets of the process, or of open file
+     *         descriptors if the sockets cannot be told apart
+     */
+    private int getOpenSockets() {
+        File[] descriptors = new File("/proc/self/fd").listFiles();
+        if (descriptors != null) {
+            int sockets = 0;
+            for (File descriptor : descriptors) {
+                try {
+                    if (Files.readSymbolicLink(descriptor.toPath()).toString().startsWith("socket:")) {
+                        sockets++;
+                    }
+                } catch (IOException | UnsupportedOperationException E) {
+                    // The descriptor was closed in the meantime
+                }
+            }
+            return sockets;
+        }
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return (int) ((com.sun.management.UnixOperatingSystemMXBean) bean).getOpenFileDescriptorCount();
+        }
+        return 0;
+    }
+
+    /**
+     * @return The configured socket limit or 80% of the file descriptor limit
+     */
+    private int getSocketLimit() {
+        if (maxSockets > 0) {
+            return maxSockets;
+        }
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            long limit = ((com.sun.management.UnixOperatingSystemMXBean) bean).getMaxFileDescriptorCount();
+            return (int) Math.min(Integer.MAX_VALUE, limit * 4 / 5);
+        }
+        return 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getGrowStep() {
+        return growStep;
+    }
+
+    public void setGrowStep(int growStep) {
+        this.growStep = growStep;
+    }
+
+    public long getTargetWait() {
+        return targetWait;
+    }
+
+    public void setTargetWait(long targetWait) {
+        this.targetWait = targetWait;
+    }
+
+    public double getMaxCpu() {
+        return maxCpu;
+    }
+
+    public void setMaxCpu(double maxCpu) {
+        this.maxCpu = maxCpu;
+    }
+
+    public int getMaxSockets() {
+        return maxSockets;
+    }
+
+    public void setMaxSockets(int maxSockets) {
+        this.maxSockets = maxSockets;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public void setMaxErrorRate(double maxErrorRate) {
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    public int getMinParallelProbeThreads() {
+        return minParallelProbeThreads;
+    }
+
+    public void setMinParallelProbeThreads(int minParallelProbeThreads) {
+        this.minParallelProbeThreads = minParallelProbeThreads;
+    }
+}
@@ -13,10 +13,20 @@ public class PoolsizeChangeRequest {
 
     private int size;
 
+    /**
+     * The scan family of the pool, all pools are changed if it is not set
+     */
+    private String pool;
+
     public PoolsizeChangeRequest(int size) {
         this.size = size;
     }
 
+    public PoolsizeChangeRequest(int size, String pool) {
+        this.size = size;
+        this.pool = pool;
+    }
+
     public PoolsizeChangeRequest() {
     }
 
@@ -27,4 +37,12 @@ public class PoolsizeChangeRequest {
     public void setSize(int size) {
         this.size = size;
     }
+
+    public String getPool() {
+        return pool;
+    }
+
+    public void setPool(String pool) {
+        this.pool = pool;
+    }
 }
@@ -0,0 +1,191 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+/**
+ * Timing and network accounting of a single probe
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ProbeDebugOutput {
+
+    private String scanType;
+
+    private String probe;
+
+    private Long startedAt;
+
+    private Long finishedAt;
+
+    private int attempts;
+
+    private boolean reused;
+
+    private int connections;
+
+    private int handshakes;
+
+    private long bytesSent;
+
+    private long bytesReceived;
+
+    private long timeWaitingForExecutor;
+
+    private long timeWaitingForConnectionBudget;
+
+    private int localFailures;
+
+    public ProbeDebugOutput(String scanType, String probe) {
+        this.scanType = scanType;
+        this.probe = probe;
+    }
+
+    public ProbeDebugOutput() {
+    }
+
+    /**
+     * Accounts a task which was executed by the ParallelExecutor on behalf of
+     * the probe
+     *
+     * @param executorWait
+     *            The time the task waited for a thread of the ParallelExecutor
+     * @param budgetWait
+     *            The time the task waited for the connection budget
+     */
+    public synchronized void addTask(long executorWait, long budgetWait, boolean connected, boolean handshake,
+            long sent, long received) {
+        timeWaitingForExecutor += executorWait;
+        timeWaitingForConnectionBudget += budgetWait;
+        if (connected) {
+            connections++;
+        }
+        if (handshake) {
+            handshakes++;
+        }
+        bytesSent += sent;
+        bytesReceived += received;
+    }
+
+    /**
+     * Counts a connection which failed because the resources of the scanning
+     * node were exhausted
+     */
+    public synchronized void addLocalFailure() {
+        localFailures++;
+    }
+
+    public synchronized int getLocalFailures() {
+        return localFailures;
+    }
+
+    public synchronized void setLocalFailures(int localFailures) {
+        this.localFailures = localFailures;
+    }
+
+    public synchronized String getScanType() {
+        return scanType;
+    }
+
+    public synchronized void setScanType(String scanType) {
+        this.scanType = scanType;
+    }
+
+    public synchronized String getProbe() {
+        return probe;
+    }
+
+    public synchronized void setProbe(String probe) {
+        this.probe = probe;
+    }
+
+    public synchronized Long getStartedAt() {
+        return startedAt;
+    }
+
+    public synchronized void setStartedAt(Long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public synchronized Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized void setFinishedAt(Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    public synchronized void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return True if the result of the probe was taken from an earlier scan of
+     *         the same server instead of executing the probe
+     */
+    public synchronized boolean isReused() {
+        return reused;
+    }
+
+    public synchronized void setReused(boolean reused) {
+        this.reused = reused;
+    }
+
+    public synchronized int getConnections() {
+        return connections;
+    }
+
+    public synchronized void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public synchronized int getHandshakes() {
+        return handshakes;
+    }
+
+    public synchronized void setHandshakes(int handshakes) {
+        this.handshakes = handshakes;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized void setBytesSent(long bytesSent) {
+        this.bytesSent = bytesSent;
+    }
+
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public synchronized void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+
+    public synchronized long getTimeWaitingForExecutor() {
+        return timeWaitingForExecutor;
+    }
+
+    public synchronized void setTimeWaitingForExecutor(long timeWaitingForExecutor) {
+        this.timeWaitingForExecutor = timeWaitingForExecutor;
+    }
+
+    public synchronized long getTimeWaitingForConnectionBudget() {
+        return timeWaitingForConnectionBudget;
+    }
+
+    public synchronized void setTimeWaitingForConnectionBudget(long timeWaitingForConnectionBudget) {
+        this.timeWaitingForConnectionBudget = timeWaitingForConnectionBudget;
+    }
+}
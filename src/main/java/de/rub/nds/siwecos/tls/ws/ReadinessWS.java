@@ -0,0 +1,35 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+import de.rub.nds.siwecos.tls.warmup.WarmUp;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Readiness probe for load balancers and orchestrators, the node is ready
+ * once the warm-up finished
+ *
+ * @author Robert Merget - robert.merget@rub.de
+ */
+@Path("/ready")
+public class ReadinessWS {
+
+    @GET
+    public Response isReady() {
+        if (WarmUp.getInstance().isReady()) {
+            return Response.status(Response.Status.OK).entity("Ready").type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Warming up")
+                .type(MediaType.TEXT_PLAIN_TYPE).build();
+    }
+}
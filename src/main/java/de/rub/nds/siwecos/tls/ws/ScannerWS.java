@@ -11,8 +11,14 @@ package de.rub.nds.siwecos.tls.ws;
 
 import de.rub.nds.siwecos.tls.DebugManager;
 import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.constants.ScanType;
 import static de.rub.nds.siwecos.tls.constants.ScanType.*;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
 import java.net.URISyntaxException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -44,17 +50,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanHttps(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan HTTPS of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, TLS, new DebugOutput(PoolManager.getInstance().getService()
-                        .getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, TLS);
     }
 
     @POST
@@ -62,17 +58,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanSmtp(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan SMTP(STARTTLS) of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, SMTP_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, SMTP_TLS);
     }
 
     @POST
@@ -80,17 +66,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanSmtpMsa(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan SMTP(MSA) of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, SMTP_MSA_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, SMTP_MSA_TLS);
     }
 
     @POST
@@ -98,17 +74,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanSmtps(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan SMTP of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, SMTPS_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, SMTPS_TLS);
     }
 
     @POST
@@ -116,17 +82,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanPop3(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan POP3(STARTTLS) of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, POP3_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, POP3_TLS);
     }
 
     @POST
@@ -134,17 +90,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanPop3s(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan POP3S of: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, POP3S_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, POP3S_TLS);
     }
 
     @POST
@@ -152,17 +98,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanImap(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan IMAP(STARTTLS): " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, IMAP_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, IMAP_TLS);
     }
 
     @POST
@@ -170,17 +106,7 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanImaps(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan IMAPS: " + request.getUrl());
-        if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
-            LOGGER.warn("No callback urls provided");
-            return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
-                    .type(MediaType.TEXT_PLAIN_TYPE).build();
-        }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, IMAPS_TLS, new DebugOutput(PoolManager.getInstance()
-                        .getService().getQueue().size(), System.currentTimeMillis())));
-        return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
+        return submit(request, IMAPS_TLS);
     }
 
     @POST
@@ -188,16 +114,24 @@ public class ScannerWS {
     @Consumes(MediaType.APPLICATION_JSON)
     public Response scanMail(ScanRequest request) throws URISyntaxException {
         LOGGER.info("Received a request to scan Mail: " + request.getUrl());
+        return submit(request, MAIL);
+    }
+
+    private Response submit(ScanRequest request, ScanType type) {
         if (request.getCallbackurls() == null || request.getCallbackurls().length == 0) {
             LOGGER.warn("No callback urls provided");
             return Response.status(Response.Status.BAD_REQUEST).entity("No callback urls provided")
                     .type(MediaType.TEXT_PLAIN_TYPE).build();
         }
-        PoolManager
-                .getInstance()
-                .getService()
-                .submit(new TlsScannerCallback(request, MAIL, new DebugOutput(PoolManager.getInstance().getService()
-                        .getQueue().size(), System.currentTimeMillis())));
+        ScanThreadPoolExecutor service = PoolManager.getInstance().getService(type);
+        try {
+            service.submit(new TlsScannerCallback(request, type, new DebugOutput(service.getOwnQueue().size(), System
+                    .currentTimeMillis())));
+        } catch (RejectedExecutionException E) {
+            LOGGER.warn("Rejected scan of " + request.getUrl() + ": " + E.getMessage());
+            return Response.status(Response.Status.TOO_MANY_REQUESTS).entity(E.getMessage())
+                    .type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
         return Response.status(Response.Status.OK).entity("Success").type(MediaType.TEXT_PLAIN_TYPE).build();
     }
 
@@ -205,8 +139,26 @@ public class ScannerWS {
     @Path("/poolconfig")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response changePoolSize(PoolsizeChangeRequest poolsizeChangeRequest) throws URISyntaxException {
-        LOGGER.info("Changed Poolsize to: " + poolsizeChangeRequest.getSize());
-        PoolManager.getInstance().setPoolSize(poolsizeChangeRequest.getSize());
+        List<ScanFamily> families = new LinkedList<>();
+        for (ScanFamily family : ScanFamily.values()) {
+            String pool = poolsizeChangeRequest.getPool();
+            if (pool == null || family.getId().equalsIgnoreCase(pool)) {
+                families.add(family);
+            }
+        }
+        if (families.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Unknown pool " + poolsizeChangeRequest.getPool()).type(MediaType.TEXT_PLAIN_TYPE).build();
+        }
+        for (ScanFamily family : families) {
+            try {
+                PoolManager.getInstance().setPoolSize(family, poolsizeChangeRequest.getSize());
+            } catch (IllegalArgumentException E) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(E.getMessage())
+                        .type(MediaType.TEXT_PLAIN_TYPE).build();
+            }
+            LOGGER.info("Changed Poolsize of " + family.getId() + " to: " + poolsizeChangeRequest.getSize());
+        }
         return Response.status(Response.Status.OK).entity("Poolsize Changed to " + poolsizeChangeRequest.getSize())
                 .type(MediaType.TEXT_PLAIN_TYPE).build();
     }
@@ -215,7 +167,7 @@ public class ScannerWS {
     @Path("/taskpool")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response getTaskPoolSize() throws URISyntaxException {
-        long poolsize = PoolManager.getInstance().getService().getQueue().size();
+        long poolsize = PoolManager.getInstance().getQueuedJobs();
         LOGGER.info("Returning requested task pool size: " + poolsize);
         return Response.status(Response.Status.OK).entity("Current Tasks in queue: " + poolsize)
                 .type(MediaType.TEXT_PLAIN_TYPE).build();
@@ -225,8 +177,7 @@ public class ScannerWS {
     @Path("/toggleDebug")
     @Consumes(MediaType.APPLICATION_JSON)
     public Response getToggleDebug() throws URISyntaxException {
-        DebugManager.getInstance().setDebugEnabled(!DebugManager.getInstance().isDebugEnabled());
-        if (DebugManager.getInstance().isDebugEnabled()) {
+        if (DebugManager.getInstance().toggleDebugEnabled()) {
             LOGGER.info("Switched DebugMode on");
             return Response.status(Response.Status.OK).entity("Switched DebugMode on").type(MediaType.TEXT_PLAIN_TYPE)
                     .build();
@@ -0,0 +1,188 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls;
+
+import de.rub.nds.siwecos.tls.benchmark.server.Behavior;
+import de.rub.nds.siwecos.tls.benchmark.server.LoopbackTlsServer;
+import de.rub.nds.siwecos.tls.benchmark.server.PathologicalServer;
+import de.rub.nds.siwecos.tls.benchmark.server.ServerProfile;
+import de.rub.nds.siwecos.tls.benchmark.server.StarttlsProtocol;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.scan.ScanPorts;
+import de.rub.nds.siwecos.tls.scan.ServerProbeResultCache;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import de.rub.nds.tlsattacker.util.tests.IntegrationTests;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Runs many failing and succeeding scans against local servers and checks
+ * that the threads, file descriptors and heap of the scans are released
+ * afterwards. The number of scans can be set with soak.failingScans and
+ * soak.succeedingScans.
+ *
+ * @author robert
+ */
+@Category(IntegrationTests.class)
+public class ScanResourceSoakTest {
+
+    private static final int PARALLEL_SCANS = 8;
+
+    private static final int THREAD_TOLERANCE = 5;
+
+    private static final int DESCRIPTOR_TOLERANCE = 20;
+
+    private static final long HEAP_TOLERANCE = 64 * 1024 * 1024;
+
+    private LoopbackTlsServer healthy;
+
+    private PathologicalServer resetting;
+
+    private int closedPort;
+
+    @Before
+    public void setUp() throws Exception {
+        CheckpointStore.getInstance().setEnabled(false);
+        ServerProbeResultCache.getInstance().setEnabled(false);
+        healthy = new LoopbackTlsServer("healthy", StarttlsProtocol.NONE, ServerProfile.MODERN);
+        healthy.start();
+        resetting = new PathologicalServer("resetting", Behavior.RESET_MID_HANDSHAKE, healthy, 0);
+        resetting.start();
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        resetting.close();
+        healthy.close();
+        ScanPorts.getInstance().reset();
+    }
+
+    @Test
+    public void testScanResourcesAreReleased() throws Exception {
+        int failingScans = Integer.getInteger("soak.failingScans", 2000);
+        int succeedingScans = Integer.getInteger("soak.succeedingScans", 100);
+        // Warm up, so lazily started threads and caches do not count
+        scan(closedPort, PARALLEL_SCANS);
+        scan(healthy.getPort(), PARALLEL_SCANS);
+        Thread.sleep(2000);
+        int threads = getScannerThreads();
+        long descriptors = getOpenFileDescriptors();
+        long heap = getUsedHeap();
+
+        scan(closedPort, failingScans / 2);
+        scan(resetting.getPort(), failingScans - failingScans / 2);
+        scan(healthy.getPort(), succeedingScans);
+
+        int threadsAfter = settledThreadCount(threads + THREAD_TOLERANCE);
+        assertTrue("Threads leaked: " + threads + " before, " + threadsAfter + " after",
+                threadsAfter <= threads + THREAD_TOLERANCE);
+        if (descriptors >= 0) {
+            long descriptorsAfter = getOpenFileDescriptors();
+            assertTrue("File descriptors leaked: " + descriptors + " before, " + descriptorsAfter + " after",
+                    descriptorsAfter <= descriptors + DESCRIPTOR_TOLERANCE);
+        }
+        long heapAfter = getUsedHeap();
+        assertTrue("Heap retained: " + heap + " bytes before, " + heapAfter + " after",
+                heapAfter <= heap + HEAP_TOLERANCE);
+    }
+
+    private void scan(int port, int scans) throws Exception {
+        ScanPorts.getInstance().setPort(ScanType.TLS, port);
+        ExecutorService workers = Executors.newFixedThreadPool(PARALLEL_SCANS);
+        try {
+            List<Future<?>> futures = new LinkedList<>();
+            for (int i = 0; i < scans; i++) {
+                futures.add(workers.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        ScanRequest request = new ScanRequest("localhost", 0, new String[0]);
+                        TlsScannerCallback callback = new TlsScannerCallback(request, ScanType.TLS,
+                                new DebugOutput(0, System.currentTimeMillis()));
+                        assertNotNull(callback.getScanResult(ScanType.TLS, "soak", request));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Waits up to 30 seconds until the number of live threads is at most the
+     * expected number, the executors of finished scans need a moment to
+     * terminate their threads
+     */
+    private int settledThreadCount(int expected) throws InterruptedException {
+        int count = getScannerThreads();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (count > expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(500);
+            count = getScannerThreads();
+        }
+        return count;
+    }
+
+    /**
+     * @return The live threads without the idle handler threads of the test
+     *         servers
+     */
+    private int getScannerThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (!thread.getName().startsWith(healthy.getName() + "-")
+                    && !thread.getName().startsWith(resetting.getName() + "-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The open file descriptors of the process or -1 if they cannot be
+     *         counted
+     */
+    private static long getOpenFileDescriptors() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return ((com.sun.management.UnixOperatingSystemMXBean) bean).getOpenFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    private static long getUsedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
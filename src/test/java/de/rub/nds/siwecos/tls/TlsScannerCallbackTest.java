@@ -13,6 +13,7 @@ package de.rub.nds.siwecos.tls;
 
 import de.rub.nds.siwecos.tls.constants.ScanType;
 import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.json.TestResult;
 import de.rub.nds.tlsattacker.attacks.constants.DrownVulnerabilityType;
 import de.rub.nds.tlsattacker.attacks.constants.EarlyCcsVulnerabilityType;
 import de.rub.nds.tlsattacker.core.constants.CipherSuite;
@@ -39,15 +40,19 @@ import de.rub.nds.tlsscanner.report.result.bleichenbacher.BleichenbacherTestResu
 import de.rub.nds.tlsscanner.report.result.hpkp.HpkpPin;
 import de.rub.nds.tlsscanner.report.result.paddingoracle.PaddingOracleCipherSuiteFingerprint;
 import de.rub.nds.tlsscanner.report.result.statistics.RandomEvaluationResult;
+import java.net.SocketException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.bouncycastle.crypto.tls.Certificate;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import static org.junit.Assert.*;
 
 /**
  *
@@ -198,4 +203,27 @@ public class TlsScannerCallbackTest {
         System.out.println(instance.scanResultToJson(reportToScanResult));
     }
 
+    /**
+     * Test of reportToScanResult method with a failed probe, of class
+     * TlsScannerCallback.
+     */
+    @Test
+    public void testReportToScanResultWithFailedProbe() {
+        List<ProbeType> probeList = new LinkedList<>();
+        probeList.add(ProbeType.CERTIFICATE);
+        SiteReport report = new SiteReport("somehost.de", probeList, false);
+        report.setServerIsAlive(Boolean.TRUE);
+        report.setSupportsSslTls(Boolean.TRUE);
+        Map<ProbeType, Throwable> failedProbes = new HashMap<>();
+        failedProbes.put(ProbeType.CERTIFICATE, new SocketException("Connection reset"));
+        TlsScannerCallback instance = new TlsScannerCallback(null, null, null);
+        ScanResult result = instance.reportToScanResult(report, ScanType.TLS, failedProbes);
+        assertFalse(result.isHasError());
+        assertEquals(4, result.getTests().size());
+        for (TestResult test : result.getTests()) {
+            assertTrue(test.isHasError());
+            assertEquals("PROBE_FAILED", test.getErrorMessage().getTranslationStringId());
+        }
+    }
+
 }
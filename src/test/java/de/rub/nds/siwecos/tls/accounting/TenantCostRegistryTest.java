@@ -0,0 +1,65 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.accounting;
+
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class TenantCostRegistryTest {
+
+    @Test
+    public void testScanCostMeasuresCurrentThread() {
+        ScanCost cost = new ScanCost();
+        long[] snapshot = ScanCost.snapshot();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            builder.append(i);
+        }
+        cost.addSince(snapshot);
+        assertTrue(builder.length() > 0);
+        assertTrue(cost.getCpuTime() >= 0);
+        assertTrue(cost.getAllocatedBytes() >= 0);
+    }
+
+    @Test
+    public void testAddRollsUpPerTenant() {
+        TenantCostRegistry registry = new TenantCostRegistry();
+        registry.add("a", new ScanCost(), 100);
+        registry.add("a", new ScanCost(), 50);
+        registry.add("b", new ScanCost(), 10);
+        assertEquals(2, registry.get("a").getJobs());
+        assertEquals(150, registry.get("a").getWallTimeMillis());
+        assertEquals(1, registry.get("b").getJobs());
+        assertNull(registry.get("c"));
+        List<TenantCost> all = registry.getAll();
+        assertEquals(2, all.size());
+        registry.clear();
+        assertTrue(registry.getAll().isEmpty());
+    }
+
+    @Test
+    public void testIdleTenantsAreEvicted() {
+        TenantCostRegistry registry = new TenantCostRegistry();
+        registry.setMaxTenants(2);
+        registry.add("a", new ScanCost(), 1);
+        registry.add("b", new ScanCost(), 1);
+        registry.add("a", new ScanCost(), 1);
+        registry.add("c", new ScanCost(), 1);
+        assertEquals(2, registry.size());
+        assertEquals(2, registry.get("a").getJobs());
+        assertNull(registry.get("b"));
+        assertNotNull(registry.get("c"));
+    }
+}
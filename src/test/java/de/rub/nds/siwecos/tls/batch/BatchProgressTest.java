@@ -0,0 +1,71 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class BatchProgressTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(Files.createTempDirectory("batch").toFile(), "output.checkpoint");
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() {
+        BatchProgress progress = new BatchProgress(file);
+        progress.complete(2);
+        progress.complete(4);
+        assertEquals(0, progress.getCompletedLines());
+        assertEquals(2, progress.getCompletedAboveCount());
+        assertFalse(progress.isCompleted(1));
+        assertTrue(progress.isCompleted(2));
+
+        progress.complete(1);
+        assertEquals(2, progress.getCompletedLines());
+        assertEquals(1, progress.getCompletedAboveCount());
+        progress.complete(3);
+        assertEquals(4, progress.getCompletedLines());
+        assertEquals(0, progress.getCompletedAboveCount());
+        progress.complete(3);
+        assertEquals(4, progress.getCompletedLines());
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        BatchProgress progress = new BatchProgress(file);
+        assertFalse(progress.load());
+        progress.complete(1);
+        progress.complete(2);
+        progress.complete(5);
+        progress.save();
+
+        BatchProgress resumed = new BatchProgress(file);
+        assertTrue(resumed.load());
+        assertEquals(2, resumed.getCompletedLines());
+        assertTrue(resumed.isCompleted(5));
+        assertFalse(resumed.isCompleted(3));
+        assertFalse(resumed.isCompleted(4));
+        resumed.complete(3);
+        resumed.complete(4);
+        assertEquals(5, resumed.getCompletedLines());
+    }
+}
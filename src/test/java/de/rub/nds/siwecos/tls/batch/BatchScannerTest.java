@@ -0,0 +1,76 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class BatchScannerTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(Files.createTempDirectory("batch").toFile(), "output.ndjson");
+    }
+
+    @Test
+    public void testPartialLineIsRemoved() throws IOException {
+        write("{\"line\":1}\n{\"line\":2}\n{\"li");
+        BatchScanner.truncatePartialLine(file);
+        assertEquals("{\"line\":1}\n{\"line\":2}\n", read());
+    }
+
+    @Test
+    public void testLongPartialLineIsRemoved() throws IOException {
+        StringBuilder partial = new StringBuilder("{\"line\":2,\"result\":\"");
+        for (int i = 0; i < 20000; i++) {
+            partial.append('a');
+        }
+        write("{\"line\":1}\n" + partial);
+        BatchScanner.truncatePartialLine(file);
+        assertEquals("{\"line\":1}\n", read());
+    }
+
+    @Test
+    public void testCompleteOutputIsKept() throws IOException {
+        write("{\"line\":1}\n");
+        BatchScanner.truncatePartialLine(file);
+        assertEquals("{\"line\":1}\n", read());
+    }
+
+    @Test
+    public void testOutputWithoutCompleteLine() throws IOException {
+        write("{\"li");
+        BatchScanner.truncatePartialLine(file);
+        assertEquals("", read());
+        assertTrue(file.delete());
+        // A missing output is created by the batch
+        BatchScanner.truncatePartialLine(file);
+        assertFalse(file.exists());
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
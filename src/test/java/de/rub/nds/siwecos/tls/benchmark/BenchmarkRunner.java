@@ -0,0 +1,135 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler and compares the results
+ * with the stored baseline. The run fails if the throughput of a benchmark
+ * dropped or its allocations per operation grew by more than the threshold.
+ *
+ * System properties:
+ * <ul>
+ * <li>benchmark.include: regular expression of the benchmarks to run</li>
+ * <li>benchmark.baseline: file of the baseline, default
+ * src/test/benchmarks/baseline.properties</li>
+ * <li>benchmark.threshold: allowed relative regression, default 0.1</li>
+ * <li>benchmark.saveBaseline: stores the results as the new baseline</li>
+ * </ul>
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class BenchmarkRunner {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName() + ".*");
+        File baselineFile = new File(System.getProperty("benchmark.baseline",
+                "src/test/benchmarks/baseline.properties"));
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "0.1"));
+        File resultFile = new File("target/benchmarks/results.json");
+        resultFile.getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder().include(include).addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON).result(resultFile.getPath()).build();
+        Properties current = toProperties(new Runner(options).run());
+
+        if (Boolean.getBoolean("benchmark.saveBaseline")) {
+            baselineFile.getAbsoluteFile().getParentFile().mkdirs();
+            try (OutputStream out = new FileOutputStream(baselineFile)) {
+                current.store(out, "Benchmark baseline, throughput in ops/s and allocation in bytes/op");
+            }
+            System.out.println("Stored baseline in " + baselineFile);
+            return;
+        }
+        if (!baselineFile.exists()) {
+            System.out.println("No baseline in " + baselineFile + ", run with -Dbenchmark.saveBaseline=true to store"
+                    + " one");
+            return;
+        }
+        Properties baseline = new Properties();
+        try (InputStream in = new FileInputStream(baselineFile)) {
+            baseline.load(in);
+        }
+        if (compare(baseline, current, threshold) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return The throughput and allocation of every benchmark and fixture
+     */
+    static Properties toProperties(Collection<RunResult> results) {
+        Properties properties = new Properties();
+        for (RunResult result : results) {
+            String key = result.getParams().getBenchmark();
+            for (String param : result.getParams().getParamsKeys()) {
+                key += ":" + result.getParams().getParam(param);
+            }
+            properties.setProperty(key + ".score", Double.toString(result.getPrimaryResult().getScore()));
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith(ALLOCATION)) {
+                    properties.setProperty(key + ".alloc", Double.toString(secondary.getValue().getScore()));
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Prints the change of every value against the baseline
+     *
+     * @return The number of regressions beyond the threshold
+     */
+    static int compare(Properties baseline, Properties current, double threshold) {
+        int regressions = 0;
+        for (Map.Entry<Object, Object> entry : new TreeMap<>(current).entrySet()) {
+            String key = (String) entry.getKey();
+            String before = baseline.getProperty(key);
+            if (before == null) {
+                System.out.println(key + ": " + entry.getValue() + " (no baseline)");
+                continue;
+            }
+            double oldValue = Double.parseDouble(before);
+            double newValue = Double.parseDouble((String) entry.getValue());
+            double change = oldValue == 0 ? 0 : (newValue - oldValue) / oldValue;
+            // Less throughput or more allocations are worse
+            boolean regression = key.endsWith(".score") ? change < -threshold : change > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.println(String.format("%s: %.2f -> %.2f (%+.1f%%)%s", key, oldValue, newValue, change * 100,
+                    regression ? " REGRESSION" : ""));
+        }
+        return regressions;
+    }
+}
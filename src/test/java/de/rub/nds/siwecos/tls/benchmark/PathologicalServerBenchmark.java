@@ -0,0 +1,143 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.benchmark.server.Behavior;
+import de.rub.nds.siwecos.tls.benchmark.server.LoopbackTlsServer;
+import de.rub.nds.siwecos.tls.benchmark.server.PathologicalServer;
+import de.rub.nds.siwecos.tls.benchmark.server.ServerProfile;
+import de.rub.nds.siwecos.tls.benchmark.server.StarttlsProtocol;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.scan.ScanPorts;
+import de.rub.nds.siwecos.tls.scan.ServerProbeResultCache;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Measures how long a worker is held by getScanResult when the scanned server
+ * misbehaves. Every behavior is simulated for every scan type and the hold
+ * times are compared with the stored baseline, so changes of timeouts and
+ * deadlines can be checked for tail latency regressions.
+ *
+ * System properties:
+ * <ul>
+ * <li>benchmark.iterations: scans per behavior and scan type, default 3</li>
+ * <li>benchmark.types: comma separated scan types, default TLS,SMTP_TLS</li>
+ * <li>benchmark.behaviors: comma separated behaviors, default all</li>
+ * <li>benchmark.delay: greeting delay in milliseconds, default 5000</li>
+ * <li>benchmark.trickleDelay: delay between trickled bytes in milliseconds,
+ * default 10</li>
+ * <li>benchmark.baseline: file of the baseline, default
+ * src/test/benchmarks/pathological.properties</li>
+ * <li>benchmark.threshold: allowed relative regression, default 0.1</li>
+ * <li>benchmark.saveBaseline: stores the results as the new baseline</li>
+ * </ul>
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class PathologicalServerBenchmark {
+
+    private PathologicalServerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("benchmark.iterations", 3);
+        long delay = Long.getLong("benchmark.delay", 5000);
+        long trickleDelay = Long.getLong("benchmark.trickleDelay", 10);
+        List<ScanType> types = new LinkedList<>();
+        for (String type : System.getProperty("benchmark.types", "TLS,SMTP_TLS").split(",")) {
+            types.add(ScanType.valueOf(type.trim()));
+        }
+        List<Behavior> behaviors = new LinkedList<>();
+        if (System.getProperty("benchmark.behaviors") == null) {
+            for (Behavior behavior : Behavior.values()) {
+                behaviors.add(behavior);
+            }
+        } else {
+            for (String behavior : System.getProperty("benchmark.behaviors").split(",")) {
+                behaviors.add(Behavior.valueOf(behavior.trim()));
+            }
+        }
+        File baselineFile = new File(System.getProperty("benchmark.baseline",
+                "src/test/benchmarks/pathological.properties"));
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "0.1"));
+        CheckpointStore.getInstance().setEnabled(false);
+        ServerProbeResultCache.getInstance().setEnabled(false);
+
+        Properties current = new Properties();
+        for (ScanType type : types) {
+            try (LoopbackTlsServer backend = new LoopbackTlsServer(type.name(), StarttlsProtocol.of(type),
+                    ServerProfile.MODERN)) {
+                backend.start();
+                for (Behavior behavior : behaviors) {
+                    long behaviorDelay = behavior == Behavior.TRICKLE ? trickleDelay : delay;
+                    try (PathologicalServer server = new PathologicalServer(type + "-" + behavior, behavior,
+                            backend, behaviorDelay)) {
+                        server.start();
+                        ScanPorts.getInstance().setPort(type, server.getPort());
+                        measure(type, behavior, iterations, current);
+                    }
+                }
+            }
+        }
+
+        if (Boolean.getBoolean("benchmark.saveBaseline")) {
+            baselineFile.getAbsoluteFile().getParentFile().mkdirs();
+            try (OutputStream out = new FileOutputStream(baselineFile)) {
+                current.store(out, "Worker hold times of getScanResult in ms");
+            }
+            System.out.println("Stored baseline in " + baselineFile);
+        } else if (baselineFile.exists()) {
+            Properties baseline = new Properties();
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+            if (BenchmarkRunner.compare(baseline, current, threshold) > 0) {
+                System.exit(1);
+            }
+        }
+        // The worker pools are not daemon threads
+        System.exit(0);
+    }
+
+    private static void measure(ScanType type, Behavior behavior, int iterations, Properties results)
+            throws IOException {
+        List<Long> holdTimes = new LinkedList<>();
+        int failed = 0;
+        for (int i = 0; i < iterations; i++) {
+            ScanRequest request = new ScanRequest("localhost", 0, new String[0]);
+            TlsScannerCallback callback = new TlsScannerCallback(request, type, new DebugOutput(0,
+                    System.currentTimeMillis()));
+            long start = System.currentTimeMillis();
+            ScanResult result = callback.getScanResult(type, "benchmark", request);
+            holdTimes.add(System.currentTimeMillis() - start);
+            if (result.isHasError()) {
+                failed++;
+            }
+        }
+        Percentiles percentiles = new Percentiles(holdTimes);
+        System.out.println(type + " " + behavior + ": " + percentiles + " failed=" + failed);
+        String key = type + "." + behavior;
+        results.setProperty(key + ".holdTimeP50", Long.toString(percentiles.get(50)));
+        results.setProperty(key + ".holdTimeMax", Long.toString(percentiles.getMax()));
+    }
+}
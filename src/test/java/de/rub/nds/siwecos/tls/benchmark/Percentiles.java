@@ -0,0 +1,56 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exact percentiles of a set of measured durations
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class Percentiles {
+
+    private final List<Long> values;
+
+    public Percentiles(Collection<Long> values) {
+        this.values = new ArrayList<>(values);
+        Collections.sort(this.values);
+    }
+
+    /**
+     * @param percentile
+     *            Between 0 and 100
+     * @return The nearest rank percentile or 0 without values
+     */
+    public long get(double percentile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * values.size());
+        return values.get(Math.max(0, Math.min(values.size() - 1, rank - 1)));
+    }
+
+    public long getMax() {
+        return values.isEmpty() ? 0 : values.get(values.size() - 1);
+    }
+
+    public int getCount() {
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        return "p50=" + get(50) + "ms p90=" + get(90) + "ms p99=" + get(99) + "ms max=" + getMax() + "ms";
+    }
+}
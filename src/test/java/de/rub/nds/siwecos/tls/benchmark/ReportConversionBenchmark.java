@@ -0,0 +1,99 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.CollectedScanResult;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the conversion of a SiteReport into the result of the
+ * webservice and its serialization, which run once per scan type at the end
+ * of every scan.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportConversionBenchmark {
+
+    @Param({ "full", "allCipherSuites", "longChain" })
+    public String fixture;
+
+    private TlsScannerCallback callback;
+
+    private SiteReport report;
+
+    private ScanResult scanResult;
+
+    private CollectedScanResult collectedScanResult;
+
+    @Setup
+    public void setUp() throws Exception {
+        callback = new TlsScannerCallback(null, null, null);
+        report = ReportFixtures.create(fixture);
+        scanResult = callback.reportToScanResult(report, ScanType.TLS);
+        collectedScanResult = collect();
+    }
+
+    @Benchmark
+    public ScanResult reportToScanResult() {
+        return callback.reportToScanResult(report, ScanType.TLS);
+    }
+
+    @Benchmark
+    public String scanResultToJson() {
+        return callback.scanResultToJson(scanResult);
+    }
+
+    @Benchmark
+    public String collectedScanResultToJson() {
+        return callback.scanResultToJson(collectedScanResult);
+    }
+
+    /**
+     * Converts the report for every mail service and serializes the result,
+     * like the end of a mail scan
+     */
+    @Benchmark
+    public String mailScanResult() {
+        return callback.scanResultToJson(collect());
+    }
+
+    private CollectedScanResult collect() {
+        List<ScanResult> scanResultList = new LinkedList<>();
+        for (ScanType type : ScanType.values()) {
+            if (type != ScanType.MAIL && type != ScanType.TLS) {
+                scanResultList.add(callback.reportToScanResult(report, type));
+            }
+        }
+        return new CollectedScanResult(ScanType.MAIL.name(), false, null, 0, scanResultList);
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import de.rub.nds.tlsattacker.attacks.constants.DrownVulnerabilityType;
+import de.rub.nds.tlsattacker.attacks.constants.EarlyCcsVulnerabilityType;
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.CompressionMethod;
+import de.rub.nds.tlsattacker.core.constants.ExtensionType;
+import de.rub.nds.tlsattacker.core.constants.NamedGroup;
+import de.rub.nds.tlsattacker.core.constants.TokenBindingKeyParameters;
+import de.rub.nds.tlsattacker.core.constants.TokenBindingVersion;
+import de.rub.nds.tlsattacker.core.https.header.HttpsHeader;
+import de.rub.nds.tlsscanner.constants.CheckPatternType;
+import de.rub.nds.tlsscanner.constants.GcmPattern;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.probe.certificate.CertificateChain;
+import de.rub.nds.tlsscanner.probe.mac.ByteCheckStatus;
+import de.rub.nds.tlsscanner.probe.mac.CheckPattern;
+import de.rub.nds.tlsscanner.probe.padding.IdentifierResponse;
+import de.rub.nds.tlsscanner.probe.padding.KnownPaddingOracleVulnerability;
+import de.rub.nds.tlsscanner.probe.padding.PaddingOracleStrength;
+import de.rub.nds.tlsscanner.probe.stats.ExtractedValueContainer;
+import de.rub.nds.tlsscanner.report.PerformanceData;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import de.rub.nds.tlsscanner.report.result.bleichenbacher.BleichenbacherTestResult;
+import de.rub.nds.tlsscanner.report.result.hpkp.HpkpPin;
+import de.rub.nds.tlsscanner.report.result.paddingoracle.PaddingOracleCipherSuiteFingerprint;
+import de.rub.nds.tlsscanner.report.result.statistics.RandomEvaluationResult;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.crypto.tls.Certificate;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * SiteReports of increasing size for the benchmarks of the report conversion.
+ * The full report sets every property which is evaluated by the conversion,
+ * like the report behind resources/fullreport.json.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ReportFixtures {
+
+    public static final String HOST = "somehost.de";
+
+    /**
+     * Cipher suites of a typical modern server
+     */
+    private static final List<CipherSuite> TYPICAL_CIPHER_SUITES = Arrays.asList(
+            CipherSuite.TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384, CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256,
+            CipherSuite.TLS_ECDHE_RSA_WITH_CHACHA20_POLY1305_SHA256, CipherSuite.TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA384,
+            CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256, CipherSuite.TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA,
+            CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA, CipherSuite.TLS_DHE_RSA_WITH_AES_256_GCM_SHA384,
+            CipherSuite.TLS_DHE_RSA_WITH_AES_128_GCM_SHA256, CipherSuite.TLS_RSA_WITH_AES_256_GCM_SHA384,
+            CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256, CipherSuite.TLS_RSA_WITH_AES_256_CBC_SHA,
+            CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA, CipherSuite.TLS_RSA_WITH_3DES_EDE_CBC_SHA);
+
+    private ReportFixtures() {
+    }
+
+    /**
+     * @param fixture
+     *            full, allCipherSuites or longChain
+     */
+    public static SiteReport create(String fixture) throws GeneralSecurityException, OperatorCreationException {
+        switch (fixture) {
+            case "full":
+                return fullReport(new HashSet<>(TYPICAL_CIPHER_SUITES), certificateChain(3));
+            case "allCipherSuites":
+                return fullReport(new HashSet<>(Arrays.asList(CipherSuite.values())), certificateChain(3));
+            case "longChain":
+                return fullReport(new HashSet<>(TYPICAL_CIPHER_SUITES), certificateChain(10));
+            default:
+                throw new IllegalArgumentException("Unknown fixture " + fixture);
+        }
+    }
+
+    public static SiteReport fullReport(Set<CipherSuite> cipherSuites, Certificate certificate) {
+        List<ProbeType> probeList = new LinkedList<>(Arrays.asList(ProbeType.values()));
+        SiteReport report = new SiteReport(HOST, probeList, false);
+        report.setServerIsAlive(Boolean.TRUE);
+        report.setSpeaksHttps(Boolean.TRUE);
+        report.setSupportsSslTls(Boolean.TRUE);
+        report.setAlpnIntolerance(Boolean.FALSE);
+        report.setBleichenbacherTestResultList(new LinkedList<BleichenbacherTestResult>());
+        report.setBleichenbacherVulnerable(Boolean.TRUE);
+        report.setBreachVulnerable(true);
+        report.setCertificate(certificate);
+        report.setCertificateExpired(false);
+        report.setCertificateHasWeakHashAlgorithm(false);
+        report.setCertificateHasWeakSignAlgorithm(false);
+        report.setCertificateIsTrusted(true);
+        report.setCertificateKeyIsBlacklisted(false);
+        report.setCertificateMachtesDomainName(true);
+        report.setCertificateNotYetValid(false);
+        report.setCertificateChain(new CertificateChain(certificate, HOST));
+        report.setCipherSuiteIntolerance(Boolean.FALSE);
+        report.setCipherSuiteLengthIntolerance512(Boolean.FALSE);
+        report.setCipherSuites(cipherSuites);
+        report.setClientHelloLengthIntolerance(Boolean.FALSE);
+        report.setCompressionIntolerance(false);
+        report.setCrimeVulnerable(true);
+        report.setCve20162107Vulnerable(true);
+        report.setDhPubkeyReuse(true);
+        report.setDrownVulnerable(DrownVulnerabilityType.FULL);
+        report.setEarlyCcsVulnerable(EarlyCcsVulnerabilityType.VULN_EXPLOITABLE);
+        report.setEcPubkeyReuse(Boolean.TRUE);
+        report.setEmptyLastExtensionIntolerance(false);
+        report.setEnforcesCipherSuiteOrdering(false);
+        report.setExtensionIntolerance(Boolean.FALSE);
+        report.setExtractedValueContainerList(new LinkedList<ExtractedValueContainer>());
+        report.setFreakVulnerable(true);
+        report.setGcmCheck(false);
+        report.setGcmPattern(GcmPattern.REPEATING);
+        report.setGcmReuse(Boolean.TRUE);
+        report.setHeaderList(new LinkedList<HttpsHeader>());
+        report.setHeartbleedVulnerable(Boolean.TRUE);
+        report.setHpkpMaxAge(15);
+        report.setHstsMaxAge(16l);
+        report.setIgnoresCipherSuiteOffering(false);
+        report.setIgnoresOfferedNamedGroups(Boolean.FALSE);
+        report.setIgnoresOfferedSignatureAndHashAlgorithms(Boolean.FALSE);
+        report.setInvalidCurveEphermaralVulnerable(Boolean.TRUE);
+        report.setInvalidCurveVulnerable(true);
+        report.setKnownVulnerability(new KnownPaddingOracleVulnerability("cve", "name", "longname",
+                PaddingOracleStrength.STRONG, true, new LinkedList<CipherSuite>(), new LinkedList<CipherSuite>(), "",
+                new LinkedList<String>(), new LinkedList<IdentifierResponse>(), true));
+        report.setLogjamVulnerable(true);
+        report.setMacCheckPatterAppData(new CheckPattern(CheckPatternType.NONE, true, new ByteCheckStatus[1]));
+        report.setMacCheckPatternFinished(new CheckPattern(CheckPatternType.NONE, true, new ByteCheckStatus[1]));
+        report.setMaxLengthClientHelloIntolerant(false);
+        report.setNamedGroupIntolerant(Boolean.FALSE);
+        report.setNamedSignatureAndHashAlgorithmIntolerance(Boolean.FALSE);
+        report.setNormalHpkpPins(new LinkedList<HpkpPin>());
+        report.setOnlySecondCiphersuiteByteEvaluated(false);
+        report.setPaddingOracleShakyEvalResultList(new LinkedList<PaddingOracleCipherSuiteFingerprint>());
+        report.setPaddingOracleTestResultList(new LinkedList<PaddingOracleCipherSuiteFingerprint>());
+        report.setPaddingOracleVulnerable(Boolean.TRUE);
+        report.setPerformanceList(new LinkedList<PerformanceData>());
+        report.setPoodleVulnerable(true);
+        report.setPrefersPfsCiphers(Boolean.TRUE);
+        report.setRandomEvaluationResult(RandomEvaluationResult.NOT_RANDOM);
+        report.setReflectsCipherSuiteOffering(false);
+        report.setReportOnlyHpkpPins(new LinkedList<HpkpPin>());
+        report.setRequiresSni(false);
+        report.setSessionTicketGetsRotated(false);
+        report.setSessionTicketLengthHint(1l);
+        report.setSupportedCompressionMethods(new LinkedList<>(Arrays.asList(CompressionMethod.NULL)));
+        report.setSupportedExtensions(new LinkedList<ExtensionType>());
+        report.setSupportedNamedGroups(new LinkedList<NamedGroup>());
+        report.setSupportedSignatureAndHashAlgorithms(new LinkedList());
+        report.setSupportedTls13CipherSuites(new LinkedList<>(cipherSuites));
+        report.setSupportedTls13Groups(new LinkedList<NamedGroup>());
+        report.setSupportedTokenBindingKeyParameters(new LinkedList<TokenBindingKeyParameters>());
+        report.setSupportedTokenBindingVersion(new LinkedList<TokenBindingVersion>());
+        report.setSupportsAeadCiphers(true);
+        report.setSupportsAes(true);
+        report.setSupportsAnonCiphers(true);
+        report.setSupportsAria(false);
+        report.setSupportsBlockCiphers(true);
+        report.setSupportsCamellia(false);
+        report.setSupportsChacha(true);
+        report.setSupportsClientSideInsecureRenegotiation(true);
+        report.setSupportsClientSideSecureRenegotiation(false);
+        report.setSupportsDesCiphers(true);
+        report.setSupportsDh(true);
+        report.setSupportsExportCiphers(true);
+        report.setSupportsNullCiphers(Boolean.TRUE);
+        report.setSupportsRc4Ciphers(true);
+        report.setSupportsRc2Ciphers(true);
+        report.setSweet32Vulnerable(Boolean.TRUE);
+        report.setSupportsSsl2(true);
+        report.setSupportsSsl3(true);
+        report.setSupportsTls13(true);
+        report.setTlsPoodleVulnerable(Boolean.TRUE);
+        return report;
+    }
+
+    /**
+     * Creates a chain from a leaf certificate for the host up to a self
+     * signed root, every certificate is signed by the next one
+     */
+    public static Certificate certificateChain(int length) throws GeneralSecurityException,
+            OperatorCreationException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair[] keys = new KeyPair[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = generator.generateKeyPair();
+        }
+        org.bouncycastle.asn1.x509.Certificate[] chain = new org.bouncycastle.asn1.x509.Certificate[length];
+        Date notBefore = new Date(System.currentTimeMillis() - 24L * 60 * 60 * 1000);
+        Date notAfter = new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000);
+        for (int i = 0; i < length; i++) {
+            int issuer = Math.min(i + 1, length - 1);
+            X509v3CertificateBuilder builder = new X509v3CertificateBuilder(name(issuer, length),
+                    BigInteger.valueOf(i + 1), notBefore, notAfter, name(i, length),
+                    SubjectPublicKeyInfo.getInstance(keys[i].getPublic().getEncoded()));
+            chain[i] = builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keys[issuer].getPrivate()))
+                    .toASN1Structure();
+        }
+        return new Certificate(chain);
+    }
+
+    private static X500Name name(int index, int length) {
+        if (index == 0) {
+            return new X500Name("CN=" + HOST);
+        } else if (index == length - 1) {
+            return new X500Name("CN=Benchmark Root CA");
+        }
+        return new X500Name("CN=Benchmark Intermediate CA " + index);
+    }
+}
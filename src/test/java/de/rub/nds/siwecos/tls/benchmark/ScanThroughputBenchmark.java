@@ -0,0 +1,206 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark;
+
+import de.rub.nds.siwecos.tls.TlsScannerCallback;
+import de.rub.nds.siwecos.tls.benchmark.server.LoopbackServer;
+import de.rub.nds.siwecos.tls.benchmark.server.LoopbackTlsServer;
+import de.rub.nds.siwecos.tls.benchmark.server.ServerProfile;
+import de.rub.nds.siwecos.tls.benchmark.server.StarttlsProtocol;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.metrics.MetricsRegistry;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.pool.ScanThreadPoolExecutor;
+import de.rub.nds.siwecos.tls.scan.CheckpointStore;
+import de.rub.nds.siwecos.tls.scan.ScanPorts;
+import de.rub.nds.siwecos.tls.scan.ServerProbeResultCache;
+import de.rub.nds.siwecos.tls.ws.DebugOutput;
+import de.rub.nds.siwecos.tls.ws.PoolManager;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * End to end benchmark of the scan throughput. Starts a loopback test server
+ * for every scan type, points the scan ports at them and submits the scans
+ * through the PoolManager like the webservice does. Runs offline, so executor
+ * and scheduling changes can be compared on a single machine.
+ *
+ * System properties:
+ * <ul>
+ * <li>benchmark.scans: number of scans, default 20</li>
+ * <li>benchmark.types: comma separated scan types, default TLS,MAIL</li>
+ * <li>benchmark.profile: MODERN, LEGACY or VULNERABLE, default MODERN</li>
+ * <li>benchmark.dangerLevel: danger level of the scans, default 0</li>
+ * <li>benchmark.poolSize: size of the worker pools, default unchanged</li>
+ * <li>benchmark.serverCache: keep the server probe result cache, default
+ * false</li>
+ * </ul>
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class ScanThroughputBenchmark {
+
+    private ScanThroughputBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int scans = Integer.getInteger("benchmark.scans", 20);
+        int dangerLevel = Integer.getInteger("benchmark.dangerLevel", 0);
+        ServerProfile profile = ServerProfile.valueOf(System.getProperty("benchmark.profile", "MODERN"));
+        List<ScanType> types = new LinkedList<>();
+        for (String type : System.getProperty("benchmark.types", "TLS,MAIL").split(",")) {
+            types.add(ScanType.valueOf(type.trim()));
+        }
+        CheckpointStore.getInstance().setEnabled(false);
+        ServerProbeResultCache.getInstance().setEnabled(Boolean.getBoolean("benchmark.serverCache"));
+        if (Integer.getInteger("benchmark.poolSize") != null) {
+            for (ScanFamily family : ScanFamily.values()) {
+                PoolManager.getInstance().setPoolSize(family, Integer.getInteger("benchmark.poolSize"));
+            }
+        }
+
+        List<LoopbackServer> servers = startServers(profile);
+        try {
+            Properties results = run(scans, types, dangerLevel, servers);
+            results.setProperty("profile", profile.name());
+            File file = new File("target/benchmarks/scan-throughput.properties");
+            file.getParentFile().mkdirs();
+            try (OutputStream out = new FileOutputStream(file)) {
+                results.store(out, "Scan throughput benchmark");
+            }
+            System.out.println("Results written to " + file);
+        } finally {
+            for (LoopbackServer server : servers) {
+                server.close();
+            }
+        }
+        // The worker pools are not daemon threads
+        System.exit(0);
+    }
+
+    /**
+     * Starts a server for every scan type except MAIL and points the port of
+     * the scan type at it
+     */
+    static List<LoopbackServer> startServers(ServerProfile profile) throws IOException {
+        List<LoopbackServer> servers = new LinkedList<>();
+        for (ScanType type : ScanType.values()) {
+            if (type == ScanType.MAIL) {
+                continue;
+            }
+            LoopbackTlsServer server = new LoopbackTlsServer(type.name(), StarttlsProtocol.of(type), profile);
+            server.start();
+            ScanPorts.getInstance().setPort(type, server.getPort());
+            servers.add(server);
+        }
+        return servers;
+    }
+
+    private static Properties run(int scans, List<ScanType> types, int dangerLevel, List<LoopbackServer> servers)
+            throws InterruptedException, ExecutionException {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long errorsBefore = metrics.getCounter(MetricsRegistry.SCAN_RESULTS, MetricsRegistry.label("outcome", "error"));
+        int serverThreadsBefore = getServerThreads(servers);
+        long threadsBefore = ManagementFactory.getThreadMXBean().getTotalStartedThreadCount();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+
+        long start = System.currentTimeMillis();
+        List<DebugOutput> outputs = new LinkedList<>();
+        List<Future<?>> futures = new LinkedList<>();
+        for (int i = 0; i < scans; i++) {
+            ScanType type = types.get(i % types.size());
+            ScanRequest request = new ScanRequest("localhost", dangerLevel, new String[0]);
+            ScanThreadPoolExecutor service = PoolManager.getInstance().getService(type);
+            DebugOutput output = new DebugOutput(service.getOwnQueue().size(), System.currentTimeMillis());
+            outputs.add(output);
+            futures.add(service.submit(new TlsScannerCallback(request, type, output)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long duration = System.currentTimeMillis() - start;
+
+        List<Long> scanTimes = new LinkedList<>();
+        List<Long> queueTimes = new LinkedList<>();
+        for (DebugOutput output : outputs) {
+            if (output.getScanFinisedAt() != null) {
+                scanTimes.add(output.getScanFinisedAt() - output.getScanStartedAt());
+            }
+            if (output.getTimeInQueue() != null) {
+                queueTimes.add(output.getTimeInQueue());
+            }
+        }
+        Percentiles scanTime = new Percentiles(scanTimes);
+        Percentiles queueTime = new Percentiles(queueTimes);
+        long threads = ManagementFactory.getThreadMXBean().getTotalStartedThreadCount() - threadsBefore
+                - (getServerThreads(servers) - serverThreadsBefore);
+        long errors = metrics.getCounter(MetricsRegistry.SCAN_RESULTS, MetricsRegistry.label("outcome", "error"))
+                - errorsBefore;
+        double scansPerSecond = scans * 1000.0 / Math.max(1, duration);
+
+        System.out.println("Scans:            " + scans + " (" + types + ")");
+        System.out.println("Duration:         " + duration + "ms");
+        System.out.println("Scans per second: " + String.format("%.3f", scansPerSecond));
+        System.out.println("Scan time:        " + scanTime);
+        System.out.println("Queue time:       " + queueTime);
+        System.out.println("Failed results:   " + errors);
+        System.out.println("Threads created:  " + threads);
+        System.out.println("Peak heap:        " + getPeakHeap() / (1024 * 1024) + "MB");
+
+        Properties results = new Properties();
+        results.setProperty("scans", Integer.toString(scans));
+        results.setProperty("types", types.toString());
+        results.setProperty("durationMs", Long.toString(duration));
+        results.setProperty("scansPerSecond", Double.toString(scansPerSecond));
+        results.setProperty("scanTimeP50Ms", Long.toString(scanTime.get(50)));
+        results.setProperty("scanTimeP99Ms", Long.toString(scanTime.get(99)));
+        results.setProperty("queueTimeP50Ms", Long.toString(queueTime.get(50)));
+        results.setProperty("queueTimeP99Ms", Long.toString(queueTime.get(99)));
+        results.setProperty("failedResults", Long.toString(errors));
+        results.setProperty("threadsCreated", Long.toString(threads));
+        results.setProperty("peakHeapBytes", Long.toString(getPeakHeap()));
+        return results;
+    }
+
+    private static int getServerThreads(List<LoopbackServer> servers) {
+        int threads = 0;
+        for (LoopbackServer server : servers) {
+            threads += server.getThreadsCreated();
+        }
+        return threads;
+    }
+
+    /**
+     * @return The sum of the peak usages of the heap memory pools, an upper
+     *         bound of the peak heap usage
+     */
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
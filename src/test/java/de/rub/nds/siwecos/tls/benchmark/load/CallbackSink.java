@@ -0,0 +1,92 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server which receives the callbacks of the scanner. Every
+ * request gets its own callback url /callback/&lt;id&gt;, so the arrival can be
+ * matched to the request.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class CallbackSink implements Closeable {
+
+    public interface Listener {
+
+        /**
+         * Called for every callback
+         *
+         * @param id
+         *            The id in the callback url
+         * @param arrivedAt
+         *            The time the callback was received completely
+         * @param body
+         *            The scan result
+         */
+        void received(String id, long arrivedAt, String body);
+    }
+
+    private static final String PATH = "/callback/";
+
+    private final HttpServer server;
+
+    private final String host;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    public CallbackSink(String host, int port, final Listener listener) throws IOException {
+        this.host = host;
+        server = HttpServer.create(new InetSocketAddress(host, port), 200);
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = read(exchange.getRequestBody());
+                long arrivedAt = System.currentTimeMillis();
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                listener.received(exchange.getRequestURI().getPath().substring(PATH.length()), arrivedAt, body);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public String getCallbackUrl(String id) {
+        return "http://" + host + ":" + server.getAddress().getPort() + PATH + id;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.load;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.rub.nds.siwecos.tls.benchmark.Percentiles;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a file of scan requests against a running webservice and records
+ * when the results arrive at the embedded callback sink. Requests are sent
+ * either at a fixed rate (open loop) or with a fixed number of scans in
+ * flight (closed loop). For every request the time until the webservice
+ * accepted it, the queue wait and scan time reported in the debug output and
+ * the callback delivery time are measured. The queue wait and scan time are
+ * only available if the debug mode of the webservice is enabled.
+ *
+ * Usage: LoadGenerator &lt;request file&gt; with the system properties
+ * <ul>
+ * <li>load.target: base url of the webservice, default
+ * http://127.0.0.1:8080/</li>
+ * <li>load.rate: requests per second, if not set the concurrency is used</li>
+ * <li>load.concurrency: scans in flight, default 4</li>
+ * <li>load.repeat: how often the file is replayed, default 1</li>
+ * <li>load.callbackHost: address the webservice reaches the sink with,
+ * default 127.0.0.1</li>
+ * <li>load.callbackPort: port of the sink, default random</li>
+ * <li>load.timeout: seconds to wait for outstanding callbacks, default
+ * 1800</li>
+ * </ul>
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class LoadGenerator implements CallbackSink.Listener {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final String target;
+
+    private final List<Sample> samples = new ArrayList<>();
+
+    private final Semaphore inFlight;
+
+    private final AtomicInteger outstanding = new AtomicInteger(0);
+
+    private CallbackSink sink;
+
+    public LoadGenerator(String target, int concurrency) {
+        this.target = target.endsWith("/") ? target : target + "/";
+        this.inFlight = new Semaphore(concurrency);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.out.println("Usage: LoadGenerator <file with one request as JSON per line>");
+            return;
+        }
+        double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+        LoadGenerator generator = new LoadGenerator(System.getProperty("load.target", "http://127.0.0.1:8080/"),
+                Integer.getInteger("load.concurrency", 4));
+        List<LoadRequest> requests = generator.readRequests(new File(args[0]));
+        int repeat = Integer.getInteger("load.repeat", 1);
+        try (CallbackSink sink = new CallbackSink(System.getProperty("load.callbackHost", "127.0.0.1"),
+                Integer.getInteger("load.callbackPort", 0), generator)) {
+            generator.sink = sink;
+            generator.run(requests, repeat, rate);
+            if (!generator.await(Long.getLong("load.timeout", 1800))) {
+                System.out.println("Timed out waiting for " + generator.outstanding.get() + " callbacks");
+            }
+        }
+        generator.report(new File("target/benchmarks/load.csv"));
+    }
+
+    List<LoadRequest> readRequests(File file) throws IOException {
+        List<LoadRequest> requests = new LinkedList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty() && !line.trim().startsWith("#")) {
+                requests.add(mapper.readValue(line, LoadRequest.class));
+            }
+        }
+        return requests;
+    }
+
+    private void run(List<LoadRequest> requests, int repeat, double rate) throws InterruptedException {
+        ExecutorService senders = Executors.newFixedThreadPool(rate > 0 ? 16 : inFlight.availablePermits());
+        long start = System.nanoTime();
+        int index = 0;
+        for (int i = 0; i < repeat; i++) {
+            for (final LoadRequest request : requests) {
+                if (rate > 0) {
+                    long due = start + (long) (index * TimeUnit.SECONDS.toNanos(1) / rate);
+                    long delay = due - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                } else {
+                    inFlight.acquire();
+                }
+                final Sample sample = newSample(request);
+                senders.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(sample);
+                    }
+                });
+                index++;
+            }
+        }
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    private synchronized Sample newSample(LoadRequest request) {
+        Sample sample = new Sample(samples.size(), request);
+        samples.add(sample);
+        outstanding.incrementAndGet();
+        return sample;
+    }
+
+    private synchronized Sample getSample(String id) {
+        try {
+            int index = Integer.parseInt(id);
+            return index < samples.size() ? samples.get(index) : null;
+        } catch (NumberFormatException E) {
+            return null;
+        }
+    }
+
+    private void send(Sample sample) {
+        LoadRequest request = sample.request;
+        ScanRequest scanRequest = new ScanRequest(request.getUrl(), request.getDangerLevel(),
+                new String[] { sink.getCallbackUrl(Integer.toString(sample.id)) });
+        sample.sentAt = System.currentTimeMillis();
+        try {
+            byte[] body = mapper.writeValueAsString(scanRequest).getBytes(StandardCharsets.UTF_8);
+            HttpURLConnection http = (HttpURLConnection) new URL(target + request.getEndpoint()).openConnection();
+            http.setConnectTimeout(10000);
+            http.setRequestMethod("POST");
+            http.setDoOutput(true);
+            http.setFixedLengthStreamingMode(body.length);
+            http.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            try (OutputStream os = http.getOutputStream()) {
+                os.write(body);
+            }
+            sample.status = http.getResponseCode();
+            http.disconnect();
+        } catch (IOException E) {
+            sample.status = -1;
+        }
+        sample.acceptedAt = System.currentTimeMillis();
+        if (sample.status != 200) {
+            done();
+        }
+    }
+
+    @Override
+    public void received(String id, long arrivedAt, String body) {
+        Sample sample = getSample(id);
+        if (sample == null || sample.arrivedAt != 0) {
+            return;
+        }
+        sample.arrivedAt = arrivedAt;
+        try {
+            JsonNode result = mapper.readTree(body);
+            sample.hasError = result.path("hasError").asText().equals("true");
+            // A mail scan contains a result with its own debug output per
+            // service, the first start and the last finish count
+            for (JsonNode debugOutput : result.findValues("debugOutput")) {
+                sample.queueTime = Math.max(sample.queueTime, debugOutput.path("timeInQueue").asLong());
+                long started = debugOutput.path("scanStartedAt").asLong();
+                long finished = debugOutput.path("scanFinisedAt").asLong();
+                if (started > 0 && (sample.scanStartedAt == 0 || started < sample.scanStartedAt)) {
+                    sample.scanStartedAt = started;
+                }
+                sample.scanFinishedAt = Math.max(sample.scanFinishedAt, finished);
+            }
+        } catch (IOException E) {
+            sample.hasError = true;
+        }
+        done();
+    }
+
+    private void done() {
+        inFlight.release();
+        synchronized (outstanding) {
+            outstanding.decrementAndGet();
+            outstanding.notifyAll();
+        }
+    }
+
+    private boolean await(long seconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        synchronized (outstanding) {
+            while (outstanding.get() > 0) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                outstanding.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    private synchronized void report(File file) throws IOException {
+        List<Long> accept = new LinkedList<>();
+        List<Long> queue = new LinkedList<>();
+        List<Long> scan = new LinkedList<>();
+        List<Long> delivery = new LinkedList<>();
+        List<Long> total = new LinkedList<>();
+        int rejected = 0;
+        int missing = 0;
+        int failed = 0;
+        for (Sample sample : samples) {
+            if (sample.status != 200) {
+                rejected++;
+                continue;
+            }
+            accept.add(sample.acceptedAt - sample.sentAt);
+            if (sample.arrivedAt == 0) {
+                missing++;
+                continue;
+            }
+            if (sample.hasError) {
+                failed++;
+            }
+            total.add(sample.arrivedAt - sample.sentAt);
+            if (sample.scanFinishedAt > 0) {
+                queue.add(sample.queueTime);
+                scan.add(sample.scanFinishedAt - sample.scanStartedAt);
+                delivery.add(sample.arrivedAt - sample.scanFinishedAt);
+            }
+        }
+        System.out.println("Requests:          " + samples.size() + " (rejected: " + rejected + ", no callback: "
+                + missing + ", failed scans: " + failed + ")");
+        System.out.println("Accept time:       " + new Percentiles(accept));
+        System.out.println("Queue wait:        " + new Percentiles(queue));
+        System.out.println("Scan time:         " + new Percentiles(scan));
+        System.out.println("Callback delivery: " + new Percentiles(delivery));
+        System.out.println("End to end:        " + new Percentiles(total));
+        if (queue.isEmpty() && !total.isEmpty()) {
+            System.out.println("The results contain no debug output, enable tlsscanner.debugMode for the queue wait"
+                    + " and scan time");
+        }
+        file.getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("id,endpoint,url,status,acceptMs,queueMs,scanMs,deliveryMs,totalMs,hasError");
+            for (Sample sample : samples) {
+                boolean arrived = sample.arrivedAt > 0;
+                boolean debug = sample.scanFinishedAt > 0;
+                writer.println(sample.id + "," + sample.request.getEndpoint() + "," + sample.request.getUrl() + ","
+                        + sample.status + "," + (sample.acceptedAt - sample.sentAt) + ","
+                        + (debug ? sample.queueTime : "") + ","
+                        + (debug ? sample.scanFinishedAt - sample.scanStartedAt : "") + ","
+                        + (debug ? sample.arrivedAt - sample.scanFinishedAt : "") + ","
+                        + (arrived ? sample.arrivedAt - sample.sentAt : "") + "," + sample.hasError);
+            }
+        }
+        System.out.println("Samples written to " + file);
+    }
+
+    /**
+     * Timings of a single request, all times in milliseconds since the epoch
+     */
+    private static class Sample {
+
+        private final int id;
+
+        private final LoadRequest request;
+
+        private volatile long sentAt;
+
+        private volatile long acceptedAt;
+
+        private volatile int status;
+
+        private volatile long arrivedAt;
+
+        private volatile long queueTime;
+
+        private volatile long scanStartedAt;
+
+        private volatile long scanFinishedAt;
+
+        private volatile boolean hasError;
+
+        public Sample(int id, LoadRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.load;
+
+/**
+ * One line of the request file of the load generator, e.g.
+ * {"endpoint":"tls","url":"example.com","dangerLevel":0}. The callback urls
+ * are always replaced by the callback sink.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class LoadRequest {
+
+    private String endpoint = "tls";
+
+    private String url;
+
+    private int dangerLevel;
+
+    public LoadRequest() {
+    }
+
+    public LoadRequest(String endpoint, String url, int dangerLevel) {
+        this.endpoint = endpoint;
+        this.url = url;
+        this.dangerLevel = dangerLevel;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getDangerLevel() {
+        return dangerLevel;
+    }
+
+    public void setDangerLevel(int dangerLevel) {
+        this.dangerLevel = dangerLevel;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+/**
+ * Misbehavior of a pathological test server
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public enum Behavior {
+    /**
+     * Passes everything through without delay, the reference for the other
+     * behaviors
+     */
+    HEALTHY,
+    /**
+     * Accepts the connection but never sends a byte, neither a greeting nor a
+     * ServerHello
+     */
+    SILENT,
+    /**
+     * Delays the first bytes of the server, i.e. the greeting of a STARTTLS
+     * server or the ServerHello
+     */
+    DELAYED_GREETING,
+    /**
+     * Resets the connection as soon as the ClientHello arrives
+     */
+    RESET_MID_HANDSHAKE,
+    /**
+     * Sends the answers of the server one byte at a time
+     */
+    TRICKLE;
+}
@@ -0,0 +1,151 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Server on an ephemeral loopback port which handles every connection in its
+ * own thread. The threads are counted, so benchmarks can tell them apart from
+ * the threads of the scanner.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public abstract class LoopbackServer implements Closeable {
+
+    protected static final org.apache.logging.log4j.Logger LOGGER = LogManager.getLogger(LoopbackServer.class
+            .getName());
+
+    private final String name;
+
+    private final AtomicInteger threadsCreated = new AtomicInteger(0);
+
+    private final AtomicInteger connections = new AtomicInteger(0);
+
+    private final Set<Socket> openSockets = Collections.synchronizedSet(new HashSet<Socket>());
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService handlers;
+
+    public LoopbackServer(String name) {
+        this.name = name;
+    }
+
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        handlers = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + threadsCreated.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        handlers.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                openSockets.add(socket);
+                handlers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            handle(socket);
+                        } catch (IOException E) {
+                            LOGGER.debug("Connection of " + name + " failed", E);
+                        } finally {
+                            openSockets.remove(socket);
+                            try {
+                                socket.close();
+                            } catch (IOException E) {
+                                LOGGER.debug("Could not close connection of " + name, E);
+                            }
+                        }
+                    }
+                });
+            } catch (IOException E) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.warn("Could not accept connection of " + name, E);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves a connection, the socket is closed afterwards
+     */
+    protected abstract void handle(Socket socket) throws IOException;
+
+    /**
+     * Runs a task of a connection in a thread of the server
+     */
+    protected void execute(Runnable task) {
+        handlers.execute(task);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of threads the server created to accept and handle
+     *         connections
+     */
+    public int getThreadsCreated() {
+        return threadsCreated.get();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverSocket == null) {
+            return;
+        }
+        serverSocket.close();
+        synchronized (openSockets) {
+            for (Socket socket : openSockets) {
+                socket.close();
+            }
+        }
+        handlers.shutdownNow();
+    }
+}
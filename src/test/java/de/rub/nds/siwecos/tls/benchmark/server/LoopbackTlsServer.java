@@ -0,0 +1,147 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * TLS test server on loopback. Depending on the protocol the handshake starts
+ * right away or after a SMTP, IMAP or POP3 STARTTLS dialog. After the
+ * handshake the server reads until the client closes the connection.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class LoopbackTlsServer extends LoopbackServer {
+
+    private final StarttlsProtocol protocol;
+
+    private final ServerProfile profile;
+
+    private SSLContext context;
+
+    private String[] protocols;
+
+    private String[] cipherSuites;
+
+    public LoopbackTlsServer(String name, StarttlsProtocol protocol, ServerProfile profile) {
+        super(name);
+        this.protocol = protocol;
+        this.profile = profile;
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        if (context == null) {
+            if (profile != ServerProfile.MODERN) {
+                // Allow the legacy versions and suites the JVM disables by
+                // default, this has to happen before JSSE is initialized
+                Security.setProperty("jdk.tls.disabledAlgorithms", "");
+                Security.setProperty("jdk.tls.legacyAlgorithms", "");
+            }
+            if (profile.isUnsafeRenegotiation()) {
+                System.setProperty("sun.security.ssl.allowUnsafeRenegotiation", "true");
+                System.setProperty("sun.security.ssl.allowLegacyHelloMessages", "true");
+            }
+            try {
+                context = SSLContext.getInstance("TLS");
+                context.init(TestCertificate.createKeyManagers("localhost", 2048), null, null);
+            } catch (GeneralSecurityException E) {
+                throw new IOException("Could not create the TLS context of " + getName(), E);
+            }
+            SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket();
+            protocols = supported(profile.getProtocols(), socket.getSupportedProtocols());
+            cipherSuites = supported(profile.getCipherSuites(), socket.getSupportedCipherSuites());
+            socket.close();
+            if (protocols.length == 0 || cipherSuites.length == 0) {
+                throw new IOException("The JVM supports no protocol version or cipher suite of " + profile);
+            }
+        }
+        super.start();
+    }
+
+    private static String[] supported(String[] wanted, String[] supported) {
+        List<String> result = new LinkedList<>(Arrays.asList(wanted));
+        result.retainAll(Arrays.asList(supported));
+        return result.toArray(new String[result.size()]);
+    }
+
+    @Override
+    protected void handle(Socket socket) throws IOException {
+        socket.setSoTimeout(30000);
+        if (protocol != StarttlsProtocol.NONE && !starttls(socket)) {
+            return;
+        }
+        try (SSLSocket tlsSocket = (SSLSocket) context.getSocketFactory().createSocket(socket, "localhost",
+                socket.getPort(), true)) {
+            tlsSocket.setUseClientMode(false);
+            tlsSocket.setEnabledProtocols(protocols);
+            tlsSocket.setEnabledCipherSuites(cipherSuites);
+            tlsSocket.startHandshake();
+            InputStream in = tlsSocket.getInputStream();
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) >= 0) {
+                // Discard the application data
+            }
+        }
+    }
+
+    /**
+     * Speaks the plain text dialog until the client sends STARTTLS
+     *
+     * @return True if the handshake should start
+     */
+    private boolean starttls(Socket socket) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        // Not buffered, no byte of the handshake may be read into a buffer
+        InputStream in = socket.getInputStream();
+        out.write(protocol.getGreeting().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String command;
+        while ((command = readLine(in)) != null) {
+            out.write(protocol.answer(command).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            if (protocol.isStarttls(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int read;
+        while ((read = in.read()) >= 0) {
+            if (read == '\n') {
+                return builder.toString().trim();
+            }
+            builder.append((char) read);
+        }
+        return builder.length() == 0 ? null : builder.toString().trim();
+    }
+
+    public StarttlsProtocol getProtocol() {
+        return protocol;
+    }
+
+    public ServerProfile getProfile() {
+        return profile;
+    }
+}
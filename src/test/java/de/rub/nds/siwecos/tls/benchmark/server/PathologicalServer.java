@@ -0,0 +1,145 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Badly behaving server on loopback. Except for the silent behavior the
+ * connections are relayed to a healthy backend server, so the client gets a
+ * real greeting and handshake, just delayed, trickled or cut off.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class PathologicalServer extends LoopbackServer {
+
+    /**
+     * Content type of a TLS handshake record
+     */
+    private static final int HANDSHAKE = 0x16;
+
+    private final Behavior behavior;
+
+    private final LoopbackServer backend;
+
+    private final long delay;
+
+    /**
+     * @param behavior
+     *            The misbehavior of the server
+     * @param backend
+     *            The healthy server the connections are relayed to
+     * @param delay
+     *            The delay of the greeting or between two trickled bytes in
+     *            milliseconds
+     */
+    public PathologicalServer(String name, Behavior behavior, LoopbackServer backend, long delay) {
+        super(name);
+        this.behavior = behavior;
+        this.backend = backend;
+        this.delay = delay;
+    }
+
+    @Override
+    protected void handle(Socket socket) throws IOException {
+        if (behavior == Behavior.SILENT) {
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            while (in.read(buffer) >= 0) {
+                // Read everything, answer nothing
+            }
+            return;
+        }
+        try (final Socket backendSocket = new Socket(InetAddress.getLoopbackAddress(), backend.getPort())) {
+            final InputStream clientIn = socket.getInputStream();
+            final OutputStream backendOut = backendSocket.getOutputStream();
+            final Socket client = socket;
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        relayClient(client, clientIn, backendOut);
+                    } catch (IOException E) {
+                        LOGGER.debug("Relay of " + getName() + " to the backend ended", E);
+                    } finally {
+                        try {
+                            backendSocket.close();
+                        } catch (IOException E) {
+                            LOGGER.debug("Could not close the backend connection", E);
+                        }
+                    }
+                }
+            });
+            relayServer(backendSocket.getInputStream(), socket.getOutputStream());
+        }
+    }
+
+    /**
+     * Relays the data of the client to the backend, resets the connection on
+     * the ClientHello if requested
+     */
+    private void relayClient(Socket client, InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (behavior == Behavior.RESET_MID_HANDSHAKE && buffer[0] == HANDSHAKE) {
+                // A linger time of zero lets close send a RST
+                client.setSoLinger(true, 0);
+                client.close();
+                return;
+            }
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
+    /**
+     * Relays the answers of the backend to the client, delayed or trickled if
+     * requested
+     */
+    private void relayServer(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[4096];
+        boolean first = true;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            if (first && behavior == Behavior.DELAYED_GREETING) {
+                sleep(delay);
+            }
+            first = false;
+            if (behavior == Behavior.TRICKLE) {
+                for (int i = 0; i < read; i++) {
+                    out.write(buffer[i]);
+                    out.flush();
+                    sleep(delay);
+                }
+            } else {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException E) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", E);
+        }
+    }
+
+    public Behavior getBehavior() {
+        return behavior;
+    }
+}
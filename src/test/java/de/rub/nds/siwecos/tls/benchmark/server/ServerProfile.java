@@ -0,0 +1,61 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+/**
+ * Protocol versions, cipher suites and behavior of a test server. Suites the
+ * JVM does not support are skipped when the server starts.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public enum ServerProfile {
+    /**
+     * TLS 1.2 with forward secret AEAD suites
+     */
+    MODERN(new String[] { "TLSv1.2" }, new String[] { "TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384",
+            "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256", "TLS_DHE_RSA_WITH_AES_128_GCM_SHA256" }, false),
+    /**
+     * TLS 1.0 to 1.2 with CBC, static RSA and 3DES suites
+     */
+    LEGACY(new String[] { "TLSv1", "TLSv1.1", "TLSv1.2" }, new String[] { "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+            "TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA", "TLS_RSA_WITH_AES_128_CBC_SHA", "TLS_RSA_WITH_AES_256_CBC_SHA",
+            "SSL_RSA_WITH_3DES_EDE_CBC_SHA" }, false),
+    /**
+     * SSL 3 to TLS 1.2, weak and anonymous suites and unsafe renegotiation
+     */
+    VULNERABLE(new String[] { "SSLv3", "TLSv1", "TLSv1.1", "TLSv1.2" }, new String[] { "SSL_RSA_WITH_RC4_128_SHA",
+            "SSL_RSA_WITH_3DES_EDE_CBC_SHA", "SSL_RSA_EXPORT_WITH_RC4_40_MD5", "SSL_RSA_WITH_DES_CBC_SHA",
+            "SSL_DH_anon_WITH_3DES_EDE_CBC_SHA", "TLS_RSA_WITH_AES_128_CBC_SHA", "TLS_RSA_WITH_NULL_SHA256",
+            "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256" }, true);
+
+    private final String[] protocols;
+
+    private final String[] cipherSuites;
+
+    private final boolean unsafeRenegotiation;
+
+    private ServerProfile(String[] protocols, String[] cipherSuites, boolean unsafeRenegotiation) {
+        this.protocols = protocols;
+        this.cipherSuites = cipherSuites;
+        this.unsafeRenegotiation = unsafeRenegotiation;
+    }
+
+    public String[] getProtocols() {
+        return protocols.clone();
+    }
+
+    public String[] getCipherSuites() {
+        return cipherSuites.clone();
+    }
+
+    public boolean isUnsafeRenegotiation() {
+        return unsafeRenegotiation;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+
+/**
+ * The plain text dialog a test server speaks before the TLS handshake. Only
+ * the commands a scanner needs to reach STARTTLS are understood.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public enum StarttlsProtocol {
+    NONE,
+    SMTP,
+    IMAP,
+    POP3;
+
+    public static StarttlsProtocol of(ScanType type) {
+        switch (type) {
+            case SMTP_TLS:
+            case SMTP_MSA_TLS:
+                return SMTP;
+            case IMAP_TLS:
+                return IMAP;
+            case POP3_TLS:
+                return POP3;
+            default:
+                return NONE;
+        }
+    }
+
+    public String getGreeting() {
+        switch (this) {
+            case SMTP:
+                return "220 localhost ESMTP ready\r\n";
+            case IMAP:
+                return "* OK IMAP4rev1 ready\r\n";
+            case POP3:
+                return "+OK POP3 ready\r\n";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * @return True if the command starts the TLS handshake
+     */
+    public boolean isStarttls(String command) {
+        String upper = command.toUpperCase();
+        switch (this) {
+            case SMTP:
+                return upper.equals("STARTTLS");
+            case IMAP:
+                return upper.endsWith(" STARTTLS");
+            case POP3:
+                return upper.equals("STLS");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return The answer to a plain text command
+     */
+    public String answer(String command) {
+        String upper = command.toUpperCase();
+        String tag = command.contains(" ") ? command.substring(0, command.indexOf(' ')) : command;
+        switch (this) {
+            case SMTP:
+                if (upper.startsWith("EHLO")) {
+                    return "250-localhost\r\n250 STARTTLS\r\n";
+                } else if (isStarttls(command)) {
+                    return "220 Ready to start TLS\r\n";
+                } else if (upper.startsWith("QUIT")) {
+                    return "221 Bye\r\n";
+                }
+                return "250 OK\r\n";
+            case IMAP:
+                if (upper.endsWith(" CAPABILITY")) {
+                    return "* CAPABILITY IMAP4rev1 STARTTLS\r\n" + tag + " OK CAPABILITY completed\r\n";
+                } else if (isStarttls(command)) {
+                    return tag + " OK Begin TLS negotiation now\r\n";
+                }
+                return tag + " BAD Unknown command\r\n";
+            case POP3:
+                if (upper.equals("CAPA")) {
+                    return "+OK\r\nSTLS\r\n.\r\n";
+                } else if (isStarttls(command)) {
+                    return "+OK Begin TLS negotiation\r\n";
+                }
+                return "-ERR Unknown command\r\n";
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.benchmark.server;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * Self signed certificate of the local test servers, created in memory so
+ * the servers need no key material on disk.
+ *
+ * @author Robert Merget <robert.merget@rub.de>
+ */
+public class TestCertificate {
+
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    private TestCertificate() {
+    }
+
+    public static KeyManager[] createKeyManagers(String host, int keySize) throws GeneralSecurityException,
+            IOException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(keySize);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=" + host);
+        Date notBefore = new Date(System.currentTimeMillis() - 24L * 60 * 60 * 1000);
+        Date notAfter = new Date(System.currentTimeMillis() + 365L * 24 * 60 * 60 * 1000);
+        X509v3CertificateBuilder builder = new X509v3CertificateBuilder(name, BigInteger.valueOf(
+                System.currentTimeMillis()), notBefore, notAfter, name, SubjectPublicKeyInfo.getInstance(keyPair
+                .getPublic().getEncoded()));
+        X509Certificate certificate;
+        try {
+            certificate = new JcaX509CertificateConverter().getCertificate(builder.build(new JcaContentSignerBuilder(
+                    "SHA256withRSA").build(keyPair.getPrivate())));
+        } catch (OperatorCreationException E) {
+            throw new GeneralSecurityException("Could not sign the test certificate", E);
+        }
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), PASSWORD, new X509Certificate[] { certificate });
+        KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore, PASSWORD);
+        return factory.getKeyManagers();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.config;
+
+import de.rub.nds.siwecos.tls.DebugManager;
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.pool.ScanFamily;
+import de.rub.nds.siwecos.tls.scan.ScanRegistry;
+import de.rub.nds.siwecos.tls.scan.ScannerConfigTemplate;
+import de.rub.nds.siwecos.tls.scan.TimeoutManager;
+import de.rub.nds.siwecos.tls.ws.PoolManager;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ConfigManagerTest {
+
+    private ConfigManager manager;
+
+    private WsConfig previous;
+
+    private Properties loaded;
+
+    private File file;
+
+    private boolean debugEnabled;
+
+    private int minTimeout;
+
+    @Before
+    public void setUp() {
+        manager = ConfigManager.getInstance();
+        previous = manager.getConfig();
+        loaded = manager.getLoaded();
+        file = manager.getFile();
+        debugEnabled = DebugManager.getInstance().isDebugEnabled();
+        minTimeout = TimeoutManager.getInstance().getMinTimeout();
+    }
+
+    @After
+    public void tearDown() {
+        manager.restore(previous, loaded);
+        manager.setFile(file);
+    }
+
+    @Test
+    public void testApplyPublishesSnapshot() {
+        Properties p = new Properties();
+        p.setProperty("tlsscanner.debugMode", Boolean.toString(!debugEnabled));
+        p.setProperty("tlsscanner.minTimeout", Integer.toString(minTimeout + 1));
+        p.setProperty("tlsscanner.scanDetail", "normal");
+        WsConfig config = manager.apply(p);
+        assertSame(config, manager.getConfig());
+        assertEquals(!debugEnabled, config.isDebugMode());
+        assertEquals(previous.getProbeThreads(), config.getProbeThreads());
+        assertEquals(!debugEnabled, DebugManager.getInstance().isDebugEnabled());
+        assertEquals(minTimeout + 1, TimeoutManager.getInstance().getMinTimeout());
+        assertEquals(ScannerDetail.NORMAL, ScannerConfigTemplate.getDefaultScanDetail());
+        assertEquals(ScannerDetail.NORMAL, ScannerConfigTemplate.of(ScanType.TLS).getScanDetail());
+    }
+
+    @Test
+    public void testRemovedSettingKeepsValue() {
+        Properties p = new Properties();
+        p.setProperty("tlsscanner.minTimeout", Integer.toString(minTimeout + 1));
+        manager.apply(p);
+        manager.apply(new Properties());
+        assertEquals(minTimeout + 1, manager.getConfig().getMinTimeout());
+        assertEquals(minTimeout + 1, TimeoutManager.getInstance().getMinTimeout());
+    }
+
+    @Test
+    public void testSystemPropertiesAreNoSettings() {
+        Properties p = new Properties(System.getProperties());
+        System.setProperty("tlsscanner.minTimeout", "1");
+        try {
+            assertEquals(new WsConfig(new Properties()).getMinTimeout(), new WsConfig(p).getMinTimeout());
+        } finally {
+            System.clearProperty("tlsscanner.minTimeout");
+        }
+    }
+
+    @Test
+    public void testInvalidSettingChangesNothing() {
+        Properties p = new Properties();
+        p.setProperty("tlsscanner.debugMode", Boolean.toString(!debugEnabled));
+        p.setProperty("tlsscanner.parallelScanJobs", "0");
+        try {
+            manager.apply(p);
+            fail("A pool without workers was accepted");
+        } catch (IllegalArgumentException E) {
+            assertSame(previous, manager.getConfig());
+            assertEquals(debugEnabled, DebugManager.getInstance().isDebugEnabled());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxTimeoutBelowMinTimeout() {
+        TimeoutManager.getInstance().setMaxTimeout(minTimeout - 1);
+    }
+
+    @Test
+    public void testRuntimeChangesArePublished() {
+        boolean enabled = DebugManager.getInstance().toggleDebugEnabled();
+        assertEquals(!debugEnabled, enabled);
+        assertEquals(enabled, manager.getConfig().isDebugMode());
+        ScanRegistry.getInstance().setStallTimeout(1234);
+        assertEquals(1234, manager.getConfig().getStallTimeout());
+        assertEquals(enabled, manager.getConfig().isDebugMode());
+    }
+
+    @Test
+    public void testRuntimeChangeSurvivesReload() throws IOException {
+        File config = File.createTempFile("config", ".txt");
+        config.deleteOnExit();
+        Properties p = new Properties();
+        p.setProperty("tlsscanner.parallelScanJobs", "3");
+        p.setProperty("tlsscanner.debugMode", Boolean.toString(debugEnabled));
+        store(p, config);
+        manager.setFile(config);
+        assertEquals(3, manager.reload().getParallelScanJobs());
+        PoolManager.getInstance().setPoolSize(ScanFamily.HTTPS, 7);
+        p.setProperty("tlsscanner.debugMode", Boolean.toString(!debugEnabled));
+        store(p, config);
+        WsConfig reloaded = manager.reload();
+        assertEquals(!debugEnabled, reloaded.isDebugMode());
+        assertEquals(7, reloaded.getParallelScanJobs());
+        assertEquals(7, PoolManager.getInstance().getPool(ScanFamily.HTTPS).getMaximumPoolSize());
+        // A change of the file applies again
+        p.setProperty("tlsscanner.parallelScanJobs", "4");
+        store(p, config);
+        assertEquals(4, manager.reload().getParallelScanJobs());
+    }
+
+    private static void store(Properties p, File file) throws IOException {
+        try (OutputStream output = new FileOutputStream(file)) {
+            p.store(output, null);
+        }
+    }
+
+    @Test
+    public void testInvalidFileIsIgnored() throws IOException {
+        File invalid = File.createTempFile("config", ".txt");
+        invalid.deleteOnExit();
+        Properties p = new Properties();
+        p.setProperty("tlsscanner.minTimeout", "fast");
+        try (OutputStream output = new FileOutputStream(invalid)) {
+            p.store(output, null);
+        }
+        manager.setFile(invalid);
+        assertSame(previous, manager.reload());
+        assertSame(previous, manager.getConfig());
+        assertEquals(minTimeout, TimeoutManager.getInstance().getMinTimeout());
+    }
+}
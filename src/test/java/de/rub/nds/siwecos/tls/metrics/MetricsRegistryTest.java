@@ -0,0 +1,62 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.metrics;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void testHistogramBuckets() {
+        Histogram histogram = new Histogram(new long[] { 10, 100 });
+        histogram.observe(5);
+        histogram.observe(10);
+        histogram.observe(50);
+        histogram.observe(1000);
+        assertArrayEquals(new long[] { 2, 1, 1 }, histogram.getBucketCounts());
+        assertEquals(4, histogram.getCount());
+        assertEquals(1065, histogram.getSum());
+    }
+
+    @Test
+    public void testWriteTo() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.observeScanDuration(ScanType.TLS, 1500);
+        registry.countError("PROBE_FAILED");
+        registry.addWorkerBusyTime(ScanType.TLS, 2500);
+        registry.countProbeRetry(ProbeType.CERTIFICATE);
+        registry.countProbeRetry(ProbeType.CERTIFICATE);
+        registry.countReusedProbe(ProbeType.COMPRESSIONS);
+        StringBuilder builder = new StringBuilder();
+        registry.writeTo(builder);
+        String output = builder.toString();
+        assertTrue(output.contains("# TYPE tlsscanner_scan_duration_seconds histogram"));
+        assertTrue(output.contains("tlsscanner_scan_duration_seconds_bucket{type=\"TLS\",le=\"1\"} 0\n"));
+        assertTrue(output.contains("tlsscanner_scan_duration_seconds_bucket{type=\"TLS\",le=\"2.5\"} 1\n"));
+        assertTrue(output.contains("tlsscanner_scan_duration_seconds_bucket{type=\"TLS\",le=\"+Inf\"} 1\n"));
+        assertTrue(output.contains("tlsscanner_scan_duration_seconds_sum{type=\"TLS\"} 1.5\n"));
+        assertTrue(output.contains("tlsscanner_errors_total{id=\"PROBE_FAILED\"} 1\n"));
+        assertTrue(output.contains("tlsscanner_worker_busy_seconds_total{type=\"TLS\"} 2.5\n"));
+        assertTrue(output.contains("tlsscanner_probe_retries_total{probe=\"CERTIFICATE\"} 2\n"));
+        assertTrue(output.contains("tlsscanner_probes_reused_total{probe=\"COMPRESSIONS\"} 1\n"));
+    }
+
+    @Test
+    public void testLabelIsEscaped() {
+        assertEquals("id=\"a\\\"b\\\\c\"", MetricsRegistry.label("id", "a\"b\\c"));
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class BorrowingQueueTest {
+
+    private static Runnable job() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+
+    @Test
+    public void testOwnJobsFirst() throws InterruptedException {
+        LinkedBlockingQueue<Runnable> lender = new LinkedBlockingQueue<>();
+        BorrowingQueue queue = new BorrowingQueue(new LinkedBlockingQueue<Runnable>());
+        queue.addLender(lender);
+        queue.setMaxBorrowed(1);
+        Runnable own = job();
+        lender.add(job());
+        queue.offer(own);
+        assertSame(own, queue.poll(1, TimeUnit.SECONDS));
+        assertEquals(1, lender.size());
+    }
+
+    @Test
+    public void testBorrowLimit() throws InterruptedException {
+        LinkedBlockingQueue<Runnable> lender = new LinkedBlockingQueue<>();
+        BorrowingQueue queue = new BorrowingQueue(new LinkedBlockingQueue<Runnable>());
+        queue.addLender(lender);
+        Runnable first = job();
+        lender.add(first);
+        lender.add(job());
+        assertNull(queue.poll());
+        queue.setMaxBorrowed(1);
+        assertSame(first, queue.take());
+        assertEquals(1, queue.getBorrowed());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        queue.finished(first);
+        assertEquals(0, queue.getBorrowed());
+        assertNotNull(queue.poll());
+        assertEquals(2, queue.getBorrowedTotal());
+        assertEquals(0, queue.size());
+    }
+}
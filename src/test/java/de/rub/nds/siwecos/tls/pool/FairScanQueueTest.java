@@ -0,0 +1,233 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class FairScanQueueTest {
+
+    private static TenantFutureTask<String> task(String tenant) {
+        return new TenantFutureTask<>(new TenantCallable(tenant, 0));
+    }
+
+    private static TenantFutureTask<String> task(String tenant, long cost) {
+        return new TenantFutureTask<>(new TenantCallable(tenant, cost));
+    }
+
+    @Test
+    public void testWeightedOrder() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setWeights("heavy:1, light:2");
+        for (int i = 0; i < 4; i++) {
+            queue.offer(task("heavy"));
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.offer(task("light"));
+        }
+        int light = 0;
+        for (int i = 0; i < 6; i++) {
+            TenantFutureTask<?> next = (TenantFutureTask<?>) queue.poll();
+            if (next.getTenant().equals("light")) {
+                light++;
+            }
+            queue.finished(next.getTenant());
+        }
+        // The light tenant gets two jobs for every job of the heavy tenant
+        assertEquals(4, light);
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testInFlightLimit() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setMaxInFlight(1);
+        queue.offer(task("a"));
+        queue.offer(task("a"));
+        queue.offer(task("b"));
+        assertEquals("a", ((TenantTask) queue.poll()).getTenant());
+        assertEquals("b", ((TenantTask) queue.poll()).getTenant());
+        assertNull(queue.poll());
+        queue.finished("a");
+        assertEquals("a", ((TenantTask) queue.poll()).getTenant());
+    }
+
+    @Test
+    public void testIdleTenantsKeepTheirStats() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.offer(task("a"));
+        queue.offer(task("b"));
+        TenantTask first = (TenantTask) queue.poll();
+        queue.finished(first.getTenant());
+        queue.finished(((TenantTask) queue.poll()).getTenant());
+        List<TenantQueueStats> stats = queue.getStats();
+        assertEquals(2, stats.size());
+        for (TenantQueueStats tenantStats : stats) {
+            assertEquals(0, tenantStats.getQueued());
+            assertEquals(0, tenantStats.getInFlight());
+            assertEquals(1, tenantStats.getDispatched());
+        }
+        // A returning tenant continues its counters
+        queue.offer(task(first.getTenant()));
+        queue.finished(((TenantTask) queue.poll()).getTenant());
+        for (TenantQueueStats tenantStats : queue.getStats()) {
+            if (tenantStats.getTenant().equals(first.getTenant())) {
+                assertEquals(2, tenantStats.getDispatched());
+            }
+        }
+    }
+
+    @Test
+    public void testIdleTenantsAreBounded() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setMaxIdleTenants(2);
+        for (String tenant : new String[] { "a", "b", "c" }) {
+            queue.offer(task(tenant));
+            queue.finished(((TenantTask) queue.poll()).getTenant());
+        }
+        List<TenantQueueStats> stats = queue.getStats();
+        assertEquals(2, stats.size());
+        assertEquals("b", stats.get(0).getTenant());
+        assertEquals("c", stats.get(1).getTenant());
+    }
+
+    @Test
+    public void testInFlightLimitOnFreshPool() throws InterruptedException {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setMaxInFlight(1);
+        ScanThreadPoolExecutor pool = new ScanThreadPoolExecutor(2, 1, TimeUnit.MINUTES, queue,
+                Executors.defaultThreadFactory());
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger(0);
+        try {
+            for (int i = 0; i < 2; i++) {
+                pool.submit(new BlockingTask("a", running, release));
+            }
+            Thread.sleep(200);
+            // Both jobs would run if the first jobs bypassed the queue
+            assertEquals(1, running.get());
+            assertEquals(1, queue.size());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testQueuedLimit() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setMaxQueued(2);
+        assertTrue(queue.offer(task("a")));
+        assertTrue(queue.offer(task("a")));
+        assertFalse(queue.offer(task("a")));
+        assertTrue(queue.offer(task("b")));
+        assertTrue(queue.isQueueFull("a"));
+        for (TenantQueueStats stats : queue.getStats()) {
+            if (stats.getTenant().equals("a")) {
+                assertEquals(2, stats.getQueued());
+                assertEquals(1, stats.getRejected());
+            }
+        }
+    }
+
+    @Test
+    public void testShortestJobFirst() {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setAgingRate(0);
+        TenantFutureTask<String> slow = task("a", 60000);
+        TenantFutureTask<String> fast = task("a", 1000);
+        queue.offer(slow);
+        queue.offer(fast);
+        assertSame(fast, queue.poll());
+        assertSame(slow, queue.poll());
+    }
+
+    @Test
+    public void testAging() throws InterruptedException {
+        FairScanQueue queue = new FairScanQueue();
+        queue.setAgingRate(1000);
+        TenantFutureTask<String> slow = task("a", 60000);
+        queue.offer(slow);
+        Thread.sleep(100);
+        TenantFutureTask<String> fast = task("a", 1000);
+        queue.offer(fast);
+        // The slow job waited long enough to overtake the fast one
+        assertSame(slow, queue.poll());
+        assertSame(fast, queue.poll());
+    }
+
+    private static class BlockingTask implements Runnable, TenantTask {
+
+        private final String tenant;
+
+        private final AtomicInteger running;
+
+        private final CountDownLatch release;
+
+        public BlockingTask(String tenant, AtomicInteger running, CountDownLatch release) {
+            this.tenant = tenant;
+            this.running = running;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            running.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException E) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public String getTenant() {
+            return tenant;
+        }
+    }
+
+    private static class TenantCallable implements Callable<String>, TenantTask, CostAwareTask {
+
+        private final String tenant;
+
+        private final long cost;
+
+        public TenantCallable(String tenant, long cost) {
+            this.tenant = tenant;
+            this.cost = cost;
+        }
+
+        @Override
+        public long getExpectedCost() {
+            return cost;
+        }
+
+        @Override
+        public String call() {
+            return tenant;
+        }
+
+        @Override
+        public String getTenant() {
+            return tenant;
+        }
+    }
+}
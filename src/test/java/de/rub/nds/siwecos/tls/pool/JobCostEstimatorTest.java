@@ -0,0 +1,59 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.pool;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class JobCostEstimatorTest {
+
+    @Test
+    public void testEstimate() {
+        JobCostEstimator estimator = new JobCostEstimator();
+        assertEquals(JobCostEstimator.getDefaultDuration(ScanType.TLS), estimator.estimate(ScanType.TLS, 0,
+                "example.com"));
+        estimator.record(ScanType.TLS, 0, "example.com", 10000);
+        assertEquals(10000, estimator.estimate(ScanType.TLS, 0, "example.com"));
+        // Unknown hosts use the average of the scan type and danger level
+        assertEquals(10000, estimator.estimate(ScanType.TLS, 0, "example.org"));
+        assertEquals(JobCostEstimator.getDefaultDuration(ScanType.TLS), estimator.estimate(ScanType.TLS, 5,
+                "example.org"));
+        estimator.record(ScanType.TLS, 0, "example.com", 20000);
+        assertEquals(13000, estimator.estimate(ScanType.TLS, 0, "example.com"));
+    }
+
+    @Test
+    public void testHostHistoryIsBounded() {
+        JobCostEstimator estimator = new JobCostEstimator();
+        estimator.setMaxHosts(1);
+        estimator.record(ScanType.TLS, 0, "a", 1000);
+        estimator.record(ScanType.TLS, 0, "b", 3000);
+        // The host a was evicted, its estimate falls back to the danger level
+        assertEquals(1600, estimator.estimate(ScanType.TLS, 0, "a"));
+        assertEquals(3000, estimator.estimate(ScanType.TLS, 0, "b"));
+    }
+
+    @Test
+    public void testHostHistoryPerDangerLevel() {
+        JobCostEstimator estimator = new JobCostEstimator();
+        estimator.record(ScanType.TLS, 0, "example.com", 1000);
+        estimator.record(ScanType.TLS, 10, "example.com", 20000);
+        assertEquals(1000, estimator.estimate(ScanType.TLS, 0, "example.com"));
+        assertEquals(20000, estimator.estimate(ScanType.TLS, 10, "example.com"));
+        // The danger level has no history of the host, its own average is used
+        assertEquals(JobCostEstimator.getDefaultDuration(ScanType.TLS), estimator.estimate(ScanType.TLS, 5,
+                "example.com"));
+    }
+}
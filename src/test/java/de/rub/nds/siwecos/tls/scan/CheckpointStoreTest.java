@@ -0,0 +1,91 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.siwecos.tls.json.ErrorTestInfo;
+import de.rub.nds.siwecos.tls.json.HostTestInfo;
+import de.rub.nds.siwecos.tls.json.ScanResult;
+import de.rub.nds.siwecos.tls.json.TestResult;
+import de.rub.nds.siwecos.tls.json.TranslateableMessage;
+import de.rub.nds.siwecos.tls.ws.ScanRequest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class CheckpointStoreTest {
+
+    private CheckpointStore store;
+
+    private ScanRequest request;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new CheckpointStore();
+        store.setDirectory(Files.createTempDirectory("checkpoints").toFile());
+        request = new ScanRequest("somehost.de", 0, new String[] { "http://127.0.0.1:8080" });
+    }
+
+    @Test
+    public void testResumeAfterRestart() {
+        String jobId = store.begin(request, ScanType.MAIL);
+        assertNotNull(jobId);
+        List<TranslateableMessage> details = new LinkedList<>();
+        details.add(new TranslateableMessage("ANON_SUITES", new HostTestInfo("somehost.de")));
+        List<TestResult> tests = new LinkedList<>();
+        tests.add(new TestResult("CIPHERSUITE_ANON", false, null, 0, "critical", details));
+        store.save(jobId, ScanType.SMTP_TLS, new ScanResult("SMTP_TLS", false, null, 42, tests));
+
+        CheckpointStore restarted = new CheckpointStore();
+        restarted.setDirectory(store.getDirectory());
+        List<CheckpointStore.PendingJob> pendingJobs = restarted.getPendingJobs();
+        assertEquals(1, pendingJobs.size());
+        assertEquals(ScanType.MAIL, pendingJobs.get(0).getType());
+        assertEquals("somehost.de", pendingJobs.get(0).getRequest().getUrl());
+
+        String resumedId = restarted.begin(pendingJobs.get(0).getRequest(), ScanType.MAIL);
+        assertEquals(jobId, resumedId);
+        ScanResult result = restarted.load(resumedId, ScanType.SMTP_TLS);
+        assertNotNull(result);
+        assertEquals(42, result.getScore());
+        assertEquals("CIPHERSUITE_ANON", result.getTests().get(0).getName());
+        assertTrue(result.getTests().get(0).getTestDetails()[0].getPlaceholders() instanceof HostTestInfo);
+        assertNull(restarted.load(resumedId, ScanType.IMAP_TLS));
+
+        restarted.finish(resumedId);
+        assertTrue(restarted.getPendingJobs().isEmpty());
+    }
+
+    @Test
+    public void testFailedScansAreNotCheckpointed() {
+        String jobId = store.begin(request, ScanType.TLS);
+        store.save(jobId, ScanType.TLS, new ScanResult("TLS", true, new TranslateableMessage("REPORT_CONSTRUCTION",
+                new ErrorTestInfo("failed")), 0, new LinkedList<TestResult>()));
+        assertNull(store.load(jobId, ScanType.TLS));
+        store.finish(jobId);
+    }
+
+    @Test
+    public void testDuplicateIsNotCheckpointed() {
+        String jobId = store.begin(request, ScanType.TLS);
+        assertNotNull(jobId);
+        assertNull(store.begin(request, ScanType.TLS));
+        store.finish(jobId);
+        assertNotNull(store.begin(request, ScanType.TLS));
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ConnectionBudgetTest {
+
+    @Test
+    public void testConnectionPermits() throws InterruptedException {
+        ConnectionBudget budget = new ConnectionBudget();
+        assertFalse(budget.acquire());
+        budget.setMaxConnections(1);
+        budget.setMaxWait(10);
+        assertTrue(budget.acquire());
+        assertEquals(1, budget.getConnectionsInUse());
+        try {
+            budget.acquire();
+            fail("Expected the budget to be exhausted");
+        } catch (LocalResourceException E) {
+            assertEquals(1, budget.getTimeouts());
+        }
+        budget.release();
+        assertTrue(budget.acquire());
+    }
+
+    @Test
+    public void testHandshakeRate() {
+        ConnectionBudget budget = new ConnectionBudget();
+        budget.setHandshakesPerSecond(10);
+        // A burst of one second worth of handshakes is allowed
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.reserveHandshake() <= 0);
+        }
+        long delay = budget.reserveHandshake();
+        assertTrue(delay > 0 && delay <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(budget.reserveHandshake() > delay);
+    }
+
+    @Test
+    public void testIsLocalExhaustion() {
+        assertTrue(ConnectionBudget.isLocalExhaustion(new IOException(new SocketException("Too many open files"))));
+        assertTrue(ConnectionBudget.isLocalExhaustion(new LocalResourceException("budget")));
+        assertFalse(ConnectionBudget.isLocalExhaustion(new ConnectException("Connection refused")));
+        assertFalse(ConnectionBudget.isLocalExhaustion(null));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsattacker.core.constants.CipherSuite;
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class EndpointFingerprintTest {
+
+    static SiteReport report(String host, boolean enforcesOrder, ProtocolVersion... versions) {
+        SiteReport report = new SiteReport(host, new LinkedList<ProbeType>(), false);
+        report.setVersions(new LinkedList<>(Arrays.asList(versions)));
+        report.setCipherSuites(new HashSet<>(Arrays.asList(CipherSuite.TLS_RSA_WITH_AES_128_CBC_SHA)));
+        report.setEnforcesCipherSuiteOrdering(enforcesOrder);
+        return report;
+    }
+
+    @Test
+    public void testSameStackMatches() {
+        String first = EndpointFingerprint.stackOf(report("a.de:443", true, ProtocolVersion.TLS12,
+                ProtocolVersion.TLS11));
+        String second = EndpointFingerprint.stackOf(report("b.de:443", true, ProtocolVersion.TLS11,
+                ProtocolVersion.TLS12));
+        assertNotNull(first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDifferentStackDoesNotMatch() {
+        String stack = EndpointFingerprint.stackOf(report("a.de:443", true, ProtocolVersion.TLS12));
+        assertNotEquals(stack, EndpointFingerprint.stackOf(report("a.de:443", false, ProtocolVersion.TLS12)));
+        assertNotEquals(stack, EndpointFingerprint.stackOf(report("a.de:443", true, ProtocolVersion.TLS12,
+                ProtocolVersion.TLS13)));
+        SiteReport otherSuites = report("a.de:443", true, ProtocolVersion.TLS12);
+        otherSuites.setCipherSuites(new HashSet<>(Arrays.asList(CipherSuite.values())));
+        assertNotEquals(stack, EndpointFingerprint.stackOf(otherSuites));
+    }
+
+    @Test
+    public void testIncompleteReport() {
+        SiteReport report = report("a.de:443", true, ProtocolVersion.TLS12);
+        report.setEnforcesCipherSuiteOrdering(null);
+        assertNull(EndpointFingerprint.stackOf(report));
+        assertNull(EndpointFingerprint.of(report("a.de:443", true, ProtocolVersion.TLS12)));
+    }
+}
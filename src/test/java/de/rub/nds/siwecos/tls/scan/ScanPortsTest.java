@@ -0,0 +1,48 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ScanPortsTest {
+
+    @Test
+    public void testDefaultPorts() {
+        ScanPorts ports = new ScanPorts();
+        assertEquals(443, ports.getPort(ScanType.TLS));
+        assertEquals(25, ports.getPort(ScanType.SMTP_TLS));
+        assertEquals(587, ports.getPort(ScanType.SMTP_MSA_TLS));
+        assertEquals(993, ports.getPort(ScanType.IMAPS_TLS));
+        assertEquals("", ports.getPorts());
+    }
+
+    @Test
+    public void testOverrides() {
+        ScanPorts ports = new ScanPorts();
+        ports.setPorts("SMTP_TLS:2525, IMAP_TLS:1143,");
+        assertEquals(2525, ports.getPort(ScanType.SMTP_TLS));
+        assertEquals(1143, ports.getPort(ScanType.IMAP_TLS));
+        assertEquals(110, ports.getPort(ScanType.POP3_TLS));
+        assertEquals("SMTP_TLS:2525,IMAP_TLS:1143", ports.getPorts());
+        ports.reset();
+        assertEquals(25, ports.getPort(ScanType.SMTP_TLS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOverride() {
+        new ScanPorts().setPorts("SMTP_TLS");
+    }
+}
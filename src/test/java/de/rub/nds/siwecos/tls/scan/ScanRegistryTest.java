@@ -0,0 +1,91 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ScanRegistryTest {
+
+    private WsConfig previous;
+
+    @Before
+    public void setUp() {
+        // The stall timeout is a published setting, shared by all registries
+        previous = ConfigManager.getInstance().getConfig();
+    }
+
+    @After
+    public void tearDown() {
+        ConfigManager.getInstance().publish(previous);
+    }
+
+    @Test
+    public void testCheckFlagsStalledScans() throws InterruptedException {
+        ScanRegistry registry = new ScanRegistry();
+        registry.setStallTimeout(50);
+        ActiveScan scan = registry.register("tenant", "localhost", "TLS");
+        registry.check();
+        assertFalse(scan.isHung());
+        Thread.sleep(100);
+        registry.check();
+        assertTrue(scan.isHung());
+        assertEquals(1, registry.getHungScans());
+        assertFalse(scan.isCancelled());
+        scan.progress();
+        assertFalse(scan.isHung());
+        registry.unregister(scan);
+        assertTrue(registry.getScans().isEmpty());
+    }
+
+    @Test
+    public void testZeroStallTimeoutDisablesCheck() {
+        ScanRegistry registry = new ScanRegistry();
+        registry.setStallTimeout(0);
+        registry.setCancelHungScans(true);
+        ActiveScan scan = registry.register("tenant", "localhost", "TLS");
+        registry.check();
+        assertFalse(scan.isHung());
+        assertFalse(scan.isCancelled());
+        registry.unregister(scan);
+    }
+
+    @Test
+    public void testCancelInterruptsWorker() throws InterruptedException {
+        ScanRegistry registry = new ScanRegistry();
+        registry.setStallTimeout(1);
+        registry.setCancelHungScans(true);
+        ActiveScan scan = registry.register("tenant", "localhost", "TLS");
+        Thread.sleep(10);
+        registry.check();
+        assertTrue(scan.isCancelled());
+        assertTrue(Thread.interrupted());
+        assertTrue(scan.captureStacks().contains("testCancelInterruptsWorker"));
+    }
+
+    @Test
+    public void testFinishedScanIsNotCancelled() {
+        ScanRegistry registry = new ScanRegistry();
+        ActiveScan scan = registry.register("tenant", "localhost", "TLS");
+        registry.unregister(scan);
+        assertTrue(scan.isFinished());
+        assertFalse(scan.cancel());
+        assertFalse(scan.isCancelled());
+        assertFalse(Thread.interrupted());
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.constants.ScanType;
+import de.rub.nds.tlsattacker.core.config.Config;
+import de.rub.nds.tlsattacker.core.constants.StarttlsType;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ScannerConfigTemplateTest {
+
+    @Test
+    public void testTemplatesAreBuiltOnce() {
+        for (ScanType type : ScanType.values()) {
+            assertSame(ScannerConfigTemplate.of(type), ScannerConfigTemplate.of(type));
+            assertEquals(type, ScannerConfigTemplate.of(type).getType());
+            assertEquals(ScannerDetail.QUICK, ScannerConfigTemplate.of(type).getScanDetail());
+        }
+    }
+
+    @Test
+    public void testStarttlsTypes() {
+        assertEquals(StarttlsType.SMTP, ScannerConfigTemplate.of(ScanType.SMTP_TLS).getStarttlsType());
+        assertEquals(StarttlsType.SMTP, ScannerConfigTemplate.of(ScanType.SMTP_MSA_TLS).getStarttlsType());
+        assertEquals(StarttlsType.IMAP, ScannerConfigTemplate.of(ScanType.IMAP_TLS).getStarttlsType());
+        assertEquals(StarttlsType.POP3, ScannerConfigTemplate.of(ScanType.POP3_TLS).getStarttlsType());
+        assertTrue(ScannerConfigTemplate.of(ScanType.POP3_TLS).isStarttls());
+        assertNull(ScannerConfigTemplate.of(ScanType.TLS).getStarttlsType());
+        assertFalse(ScannerConfigTemplate.of(ScanType.IMAPS_TLS).isStarttls());
+        assertFalse(ScannerConfigTemplate.of(ScanType.SMTPS_TLS).isStarttls());
+    }
+
+    @Test
+    public void testConfigsAreCopiesOfThePrototype() {
+        ScannerConfigTemplate template = ScannerConfigTemplate.of(ScanType.TLS);
+        assertNotNull(template.getPrototype());
+        WsScannerConfig scannerConfig = template.create("example.com", 443, 0);
+        Config first = scannerConfig.createConfig();
+        Config second = scannerConfig.createConfig();
+        assertNotSame(first, second);
+        String data = second.getDefaultApplicationMessageData();
+        first.setDefaultApplicationMessageData(data + "changed");
+        assertEquals(data, second.getDefaultApplicationMessageData());
+        assertEquals(data, template.create("example.org", 443, 0).createConfig().getDefaultApplicationMessageData());
+    }
+}
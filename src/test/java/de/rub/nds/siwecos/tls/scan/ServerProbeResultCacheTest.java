@@ -0,0 +1,99 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.tlsattacker.core.constants.ProtocolVersion;
+import de.rub.nds.tlsscanner.constants.ProbeType;
+import de.rub.nds.tlsscanner.constants.ScannerDetail;
+import de.rub.nds.tlsscanner.report.SiteReport;
+import de.rub.nds.tlsscanner.report.result.ProbeResult;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class ServerProbeResultCacheTest {
+
+    private ServerProbeResultCache cache;
+
+    private SiteReport report;
+
+    @Before
+    public void setUp() {
+        cache = new ServerProbeResultCache();
+        report = EndpointFingerprintTest.report("127.0.0.1:443", true, ProtocolVersion.TLS12);
+    }
+
+    private static ProbeResult result(ProbeType type) {
+        return new ProbeResult(type) {
+            @Override
+            public void mergeData(SiteReport report) {
+            }
+        };
+    }
+
+    @Test
+    public void testKey() {
+        String key = cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK);
+        assertNotNull(key);
+        assertEquals(key, cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK));
+        assertNotEquals(key, cache.getKey("127.0.0.1:8443", report, ScannerDetail.QUICK));
+        assertNotEquals(key, cache.getKey("127.0.0.1:443", report, ScannerDetail.DETAILED));
+        assertNull(cache.getKey("127.0.0.1", report, ScannerDetail.QUICK));
+        cache.setEnabled(false);
+        assertNull(cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK));
+    }
+
+    @Test
+    public void testScanDetailIsNotShared() {
+        ProbeResult result = result(ProbeType.PADDING_ORACLE);
+        cache.put(cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK), ProbeType.PADDING_ORACLE, result);
+        assertSame(result,
+                cache.get(cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK), ProbeType.PADDING_ORACLE));
+        assertNull(cache.get(cache.getKey("127.0.0.1:443", report, ScannerDetail.DETAILED),
+                ProbeType.PADDING_ORACLE));
+    }
+
+    @Test
+    public void testOnlyServerWideProbes() {
+        String key = cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK);
+        cache.put(key, ProbeType.CERTIFICATE, result(ProbeType.CERTIFICATE));
+        assertNull(cache.get(key, ProbeType.CERTIFICATE));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTtl() {
+        String key = cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK);
+        cache.put(key, ProbeType.HEARTBLEED, result(ProbeType.HEARTBLEED));
+        assertNotNull(cache.get(key, ProbeType.HEARTBLEED));
+        cache.setTtl(-1);
+        assertNull(cache.get(key, ProbeType.HEARTBLEED));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        cache.setMaxEntries(2);
+        String key = cache.getKey("127.0.0.1:443", report, ScannerDetail.QUICK);
+        cache.put(key, ProbeType.HEARTBLEED, result(ProbeType.HEARTBLEED));
+        cache.put(key, ProbeType.PADDING_ORACLE, result(ProbeType.PADDING_ORACLE));
+        // Marks HEARTBLEED as recently used
+        assertNotNull(cache.get(key, ProbeType.HEARTBLEED));
+        cache.put(key, ProbeType.BLEICHENBACHER, result(ProbeType.BLEICHENBACHER));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(key, ProbeType.HEARTBLEED));
+        assertNull(cache.get(key, ProbeType.PADDING_ORACLE));
+        assertNotNull(cache.get(key, ProbeType.BLEICHENBACHER));
+    }
+}
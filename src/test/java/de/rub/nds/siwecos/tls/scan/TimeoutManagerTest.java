@@ -0,0 +1,114 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.scan;
+
+import de.rub.nds.siwecos.tls.config.ConfigManager;
+import de.rub.nds.siwecos.tls.config.WsConfig;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class TimeoutManagerTest {
+
+    private TimeoutManager manager;
+
+    private WsConfig previous;
+
+    @Before
+    public void setUp() {
+        manager = new TimeoutManager();
+        // The timeouts are published settings, shared by all instances
+        previous = ConfigManager.getInstance().getConfig();
+        manager.setAdaptiveTimeouts(true);
+        manager.setMaxTimeout(10000);
+        manager.setMinTimeout(300);
+        manager.setRttMultiplier(8);
+    }
+
+    @After
+    public void tearDown() {
+        ConfigManager.getInstance().publish(previous);
+    }
+
+    @Test
+    public void testDeriveTimeoutIsBounded() {
+        assertEquals(300, manager.deriveTimeout(1, 0));
+        assertEquals(100 + 8 * 400, manager.deriveTimeout(400, 0));
+        assertEquals(10000, manager.deriveTimeout(5000, 0));
+    }
+
+    @Test
+    public void testDeriveTimeoutCoversGreeting() {
+        assertEquals(3000 + 1500 + 10, manager.deriveTimeout(10, 3000));
+    }
+
+    @Test
+    public void testMeasureUnreachable() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        assertNull(manager.measure("127.0.0.1", port, false));
+        assertNull(manager.getTimeout("127.0.0.1", port, false));
+        assertEquals(1, manager.getCachedEntries());
+    }
+
+    @Test
+    public void testFailureIsCached() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            int port = socket.getLocalPort();
+            socket.close();
+            assertNull(manager.getTimeout("127.0.0.1", port, false));
+            try (ServerSocket reopened = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+                // The failure is still cached, the open port is not measured
+                assertNull(manager.getTimeout("127.0.0.1", port, false));
+                manager.setFailureTtl(-1);
+                assertNotNull(manager.getTimeout("127.0.0.1", port, false));
+            }
+        }
+    }
+
+    @Test
+    public void testGreetingWaitIsCapped() throws IOException {
+        manager.setGreetingTimeout(200);
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            long start = System.currentTimeMillis();
+            assertNotNull(manager.measure("127.0.0.1", socket.getLocalPort(), true));
+            assertTrue(System.currentTimeMillis() - start < manager.getMaxTimeout());
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() throws IOException {
+        manager.setCacheSize(1);
+        try (ServerSocket first = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+                ServerSocket second = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            assertNotNull(manager.getTimeout("127.0.0.1", first.getLocalPort(), false));
+            assertNotNull(manager.getTimeout("127.0.0.1", second.getLocalPort(), false));
+            assertEquals(1, manager.getCachedEntries());
+        }
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+        manager.setAdaptiveTimeouts(false);
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            assertNull(manager.getTimeout("127.0.0.1", socket.getLocalPort(), false));
+        }
+    }
+}
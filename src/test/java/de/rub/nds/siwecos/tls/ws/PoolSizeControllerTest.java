@@ -0,0 +1,60 @@
+/**
+ *  SIWECOS-TLS-Scanner - A Webservice for the TLS-Scanner Module of TLS-Attacker
+ *
+ *  Copyright 2014-2017 Ruhr University Bochum / Hackmanit GmbH
+ *
+ *  Licensed under Apache License 2.0
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ */
+package de.rub.nds.siwecos.tls.ws;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author robert
+ */
+public class PoolSizeControllerTest {
+
+    @Test
+    public void testDecide() {
+        PoolSizeController controller = new PoolSizeController();
+        controller.setMinPoolSize(2);
+        controller.setMaxPoolSize(20);
+        controller.setTargetWait(1000);
+        // Jobs wait too long
+        assertEquals(12, controller.decide(10, 5, 10, 5000, false));
+        // Jobs wait, but not long
+        assertEquals(10, controller.decide(10, 5, 10, 500, false));
+        // Saturated machine
+        assertEquals(7, controller.decide(10, 5, 10, 5000, true));
+        // Mostly idle pool
+        assertEquals(9, controller.decide(10, 0, 2, 0, false));
+        // Bounds
+        assertEquals(20, controller.decide(20, 5, 20, 5000, false));
+        assertEquals(2, controller.decide(2, 0, 0, 0, true));
+    }
+
+    @Test
+    public void testProbeThreadsFollowTheConfiguration() {
+        PoolSizeController controller = new PoolSizeController();
+        controller.setMinParallelProbeThreads(8);
+        // Never raised above the configured value
+        assertEquals(64, controller.decideProbeThreads(64, false));
+        assertEquals(4, controller.decideProbeThreads(4, true));
+        assertEquals(32, controller.decideProbeThreads(64, true));
+        assertEquals(40, controller.decideProbeThreads(32, false));
+        assertEquals(50, controller.decideProbeThreads(40, false));
+        assertEquals(62, controller.decideProbeThreads(50, false));
+        assertEquals(64, controller.decideProbeThreads(62, false));
+        assertEquals(64, controller.decideProbeThreads(64, false));
+        // The operator lowers the value while it is reduced
+        assertEquals(32, controller.decideProbeThreads(64, true));
+        assertEquals(20, controller.decideProbeThreads(20, false));
+        // The operator raises the value while it is reduced
+        assertEquals(10, controller.decideProbeThreads(20, true));
+        assertEquals(100, controller.decideProbeThreads(100, false));
+    }
+}